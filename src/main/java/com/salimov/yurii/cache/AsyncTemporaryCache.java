@@ -0,0 +1,177 @@
+package com.salimov.yurii.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The cache which stores the results of CompletableFuture objects.
+ * A future which is in-flight is not stored in the cache until
+ * it completes, so its lifetime starts at the completion.
+ * A future which completes exceptionally or with null is removed.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public interface AsyncTemporaryCache {
+
+    /**
+     * Returns the future of the object with key.
+     * Returns null if there is no object and no load in-flight.
+     *
+     * @param key the object key in the cache.
+     * @return The future of the object or null.
+     */
+    CompletableFuture<Object> get(Object key);
+
+    /**
+     * Returns the future of the object with key. If there is
+     * no object and no load in-flight, the object is loaded
+     * on the cache executor with the loader and saved in the cache
+     * with default lifetime. The loader may block.
+     *
+     * @param key    the object key in the cache.
+     * @param loader the function to load the object.
+     * @return The future of the object (newer null).
+     */
+    CompletableFuture<Object> get(Object key, Function<Object, Object> loader);
+
+    /**
+     * Returns the future of the object with key. If there is
+     * no object and no load in-flight, the object is loaded
+     * with the asynchronous loader and saved in the cache
+     * with default lifetime.
+     *
+     * @param key    the object key in the cache.
+     * @param loader the function to start the loading of the object,
+     *               it takes the key and the cache executor.
+     * @return The future of the object (newer null).
+     */
+    CompletableFuture<Object> get(
+            Object key,
+            BiFunction<Object, Executor, CompletableFuture<Object>> loader
+    );
+
+    /**
+     * Returns the future of the map with objects which are stored
+     * in the cache or loaded in-flight. The missing keys are not
+     * in the map.
+     *
+     * @param keys the object keys in the cache.
+     * @return The future of the map with objects (newer null).
+     */
+    CompletableFuture<Map<Object, Object>> getAll(Collection<Object> keys);
+
+    /**
+     * Returns the future of the map with objects. The missing objects
+     * are loaded on the cache executor with the loader.
+     * The keys which are loaded as null are not in the map.
+     * If a load fails, the future of the map fails with its
+     * exception when all loads are done, the objects loaded
+     * by the other loads are saved in the cache anyway.
+     *
+     * @param keys   the object keys in the cache.
+     * @param loader the function to load the object.
+     * @return The future of the map with objects (newer null).
+     */
+    CompletableFuture<Map<Object, Object>> getAll(
+            Collection<Object> keys,
+            Function<Object, Object> loader
+    );
+
+    /**
+     * Returns the future of the map with objects. The missing objects
+     * are loaded with the asynchronous loader.
+     * The keys which are loaded as null are not in the map.
+     * If a load fails, the future of the map fails with its
+     * exception when all loads are done, the objects loaded
+     * by the other loads are saved in the cache anyway.
+     *
+     * @param keys   the object keys in the cache.
+     * @param loader the function to start the loading of the object,
+     *               it takes the key and the cache executor.
+     * @return The future of the map with objects (newer null).
+     */
+    CompletableFuture<Map<Object, Object>> getAll(
+            Collection<Object> keys,
+            BiFunction<Object, Executor, CompletableFuture<Object>> loader
+    );
+
+    /**
+     * Saves the future in the cache with default lifetime.
+     *
+     * @param key    the object key in the cache.
+     * @param future the future of the object to save.
+     */
+    void put(Object key, CompletableFuture<Object> future);
+
+    /**
+     * Saves the future in the cache. The lifetime
+     * starts when the future completes.
+     *
+     * @param key          the object key in the cache.
+     * @param future       the future of the object to save.
+     * @param milliseconds the lifetime of objects (milliseconds).
+     */
+    void put(Object key, CompletableFuture<Object> future, long milliseconds);
+
+    /**
+     * Starts loading the keys of the manifest into the cache
+     * on the cache executor, {@link CacheConstants#WARM_UP_PARALLELISM}
+     * keys in parallel and without a rate limit.
+     *
+     * @param keys   the keys to load, for example
+     *               {@link CacheWarmUp#readManifest(java.nio.file.Path)}.
+     * @param loader the function to load the object, it may block.
+     * @return The progress of the warm-up (newer null).
+     * @see #warmUp(Collection, Function, Executor, int, int)
+     */
+    CacheWarmUp warmUp(Collection<Object> keys, Function<Object, Object> loader);
+
+    /**
+     * Starts loading the keys of the manifest into the cache while
+     * the cache serves the readers. The keys are loaded by the given
+     * number of workers on the executor, the workers block their
+     * threads while they load and wait for the rate limit.
+     * The keys which are in the cache already are skipped.
+     * A load is in-flight like the one of {@link #get(Object, Function)},
+     * so a reader of a key which is warming waits for its load
+     * rather than loads it again, and the other way round.
+     *
+     * @param keys        the keys to load, for example
+     *                    {@link CacheWarmUp#readManifest(java.nio.file.Path)}.
+     * @param loader      the function to load the object, it may block.
+     * @param executor    the executor where the keys are loaded.
+     * @param parallelism the maximum number of keys which are loaded
+     *                    in parallel, the default number if it is not positive.
+     * @param rate        the maximum number of loads per second,
+     *                    the rate is not limited if it is not positive.
+     * @return The progress of the warm-up (newer null).
+     */
+    CacheWarmUp warmUp(
+            Collection<Object> keys,
+            Function<Object, Object> loader,
+            Executor executor,
+            int parallelism,
+            int rate
+    );
+
+    /**
+     * Returns the synchronous view of the cache
+     * which is backed by the same storage.
+     * The loads which are in-flight are not visible in the view.
+     *
+     * @return The synchronous view of the cache (newer null).
+     */
+    TemporaryCache synchronous();
+
+    /**
+     *
+     * @return
+     */
+    static AsyncTemporaryCache getAsyncTemporaryCache() {
+        return AsyncTemporaryCacheImpl.getInstance();
+    }
+}
@@ -0,0 +1,478 @@
+package com.salimov.yurii.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static com.salimov.yurii.cache.Validator.isNull;
+
+/**
+ * The class implements a set of methods for working with
+ * the asynchronous cache. The completed objects are stored in the
+ * temporary cache, the futures which are in-flight are stored
+ * separately until they complete.
+ * <p>
+ * The loads are coordinated by the atomic putIfAbsent of the future,
+ * the loader itself is never called under a lock or monitor,
+ * so a blocking loader does not pin a virtual thread.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class AsyncTemporaryCacheImpl implements AsyncTemporaryCache {
+
+    private static volatile AsyncTemporaryCacheImpl cache;
+
+    /**
+     * The cache where the completed objects are stored.
+     */
+    private final TemporaryCacheImpl storage;
+
+    /**
+     * The futures which are in-flight.
+     */
+    private final Map<Object, CompletableFuture<Object>> loads;
+
+    /**
+     * The executor where the objects are loaded.
+     */
+    private final Executor executor;
+
+    /**
+     * Constructor.
+     *
+     * @param storage  the cache where the completed objects are stored.
+     * @param executor the executor where the objects are loaded.
+     */
+    AsyncTemporaryCacheImpl(final TemporaryCacheImpl storage, final Executor executor) {
+        this.storage = storage;
+        this.executor = executor;
+        this.loads = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the shared cache, a new one if the shared
+     * cache where the objects are stored was closed.
+     *
+     * @return The shared cache (newer null).
+     */
+    static AsyncTemporaryCacheImpl getInstance() {
+        if (isNull(cache) || cache.isClosed()) {
+            synchronized (AsyncTemporaryCacheImpl.class) {
+                if (isNull(cache) || cache.isClosed()) {
+                    cache = new AsyncTemporaryCacheImpl(
+                            TemporaryCacheImpl.getInstance(),
+                            isNull(cache) ? CacheThreads.newExecutor() : cache.executor
+                    );
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Checks if the cache where the objects are stored is closed.
+     *
+     * @return true if the storage is closed, false otherwise.
+     */
+    private boolean isClosed() {
+        return this.storage.isClosed();
+    }
+
+    /**
+     * Returns the future of the object with key.
+     * Returns null if there is no object and no load in-flight.
+     *
+     * @param key the object key in the cache.
+     * @return The future of the object or null.
+     */
+    @Override
+    public CompletableFuture<Object> get(final Object key) {
+        CompletableFuture<Object> result = null;
+        if (Validator.isNotNull(key)) {
+            final Object object = this.storage.get(key);
+            if (Validator.isNotNull(object)) {
+                result = CompletableFuture.completedFuture(object);
+            } else {
+                result = this.loads.get(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the future of the object with key. If there is
+     * no object and no load in-flight, the object is loaded
+     * on the cache executor with the loader and saved in the cache
+     * with default lifetime. The loader may block.
+     *
+     * @param key    the object key in the cache.
+     * @param loader the function to load the object.
+     * @return The future of the object (newer null).
+     */
+    @Override
+    public CompletableFuture<Object> get(
+            final Object key,
+            final Function<Object, Object> loader
+    ) {
+        return get(
+                key,
+                (_key, executor) -> CompletableFuture.supplyAsync(
+                        () -> loader.apply(_key), executor
+                )
+        );
+    }
+
+    /**
+     * Returns the future of the object with key. If there is
+     * no object and no load in-flight, the object is loaded
+     * with the asynchronous loader and saved in the cache
+     * with default lifetime. Returns the completed future
+     * of null if the key is null. The cache is checked again
+     * without counting the read after the load is registered,
+     * so an object saved meanwhile is not loaded and a miss
+     * is counted once.
+     *
+     * @param key    the object key in the cache.
+     * @param loader the function to start the loading of the object,
+     *               it takes the key and the cache executor.
+     * @return The future of the object (newer null).
+     */
+    @Override
+    public CompletableFuture<Object> get(
+            final Object key,
+            final BiFunction<Object, Executor, CompletableFuture<Object>> loader
+    ) {
+        CompletableFuture<Object> result = Validator.isNotNull(key) ?
+                get(key) : CompletableFuture.completedFuture(null);
+        if (isNull(result)) {
+            final CompletableFuture<Object> future = new CompletableFuture<>();
+            result = this.loads.putIfAbsent(key, future);
+            if (isNull(result)) {
+                result = future;
+                final Object object = this.storage.peek(key);
+                if (Validator.isNotNull(object)) {
+                    this.loads.remove(key, future);
+                    future.complete(object);
+                } else {
+                    load(key, future, loader);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the future of the map with objects which are stored
+     * in the cache or loaded in-flight. The missing keys are not
+     * in the map.
+     *
+     * @param keys the object keys in the cache.
+     * @return The future of the map with objects (newer null).
+     */
+    @Override
+    public CompletableFuture<Map<Object, Object>> getAll(final Collection<Object> keys) {
+        final Map<Object, CompletableFuture<Object>> futures = new HashMap<>();
+        if (Validator.isNotEmpty(keys)) {
+            CompletableFuture<Object> future;
+            for (Object key : keys) {
+                future = get(key);
+                if (Validator.isNotNull(future)) {
+                    futures.put(key, future);
+                }
+            }
+        }
+        return join(futures);
+    }
+
+    /**
+     * Returns the future of the map with objects. The missing objects
+     * are loaded on the cache executor with the loader.
+     * The keys which are loaded as null are not in the map.
+     * If a load fails, the future of the map fails with its
+     * exception when all loads are done, the objects loaded
+     * by the other loads are saved in the cache anyway.
+     *
+     * @param keys   the object keys in the cache.
+     * @param loader the function to load the object.
+     * @return The future of the map with objects (newer null).
+     */
+    @Override
+    public CompletableFuture<Map<Object, Object>> getAll(
+            final Collection<Object> keys,
+            final Function<Object, Object> loader
+    ) {
+        final Map<Object, CompletableFuture<Object>> futures = new HashMap<>();
+        if (Validator.isNotEmpty(keys)) {
+            for (Object key : keys) {
+                if (Validator.isNotNull(key)) {
+                    futures.put(key, get(key, loader));
+                }
+            }
+        }
+        return join(futures);
+    }
+
+    /**
+     * Returns the future of the map with objects. The missing objects
+     * are loaded with the asynchronous loader.
+     * The keys which are loaded as null are not in the map.
+     * If a load fails, the future of the map fails with its
+     * exception when all loads are done, the objects loaded
+     * by the other loads are saved in the cache anyway.
+     *
+     * @param keys   the object keys in the cache.
+     * @param loader the function to start the loading of the object,
+     *               it takes the key and the cache executor.
+     * @return The future of the map with objects (newer null).
+     */
+    @Override
+    public CompletableFuture<Map<Object, Object>> getAll(
+            final Collection<Object> keys,
+            final BiFunction<Object, Executor, CompletableFuture<Object>> loader
+    ) {
+        final Map<Object, CompletableFuture<Object>> futures = new HashMap<>();
+        if (Validator.isNotEmpty(keys)) {
+            for (Object key : keys) {
+                if (Validator.isNotNull(key)) {
+                    futures.put(key, get(key, loader));
+                }
+            }
+        }
+        return join(futures);
+    }
+
+    /**
+     * Saves the future in the cache with default lifetime.
+     *
+     * @param key    the object key in the cache.
+     * @param future the future of the object to save.
+     */
+    @Override
+    public void put(final Object key, final CompletableFuture<Object> future) {
+        final long milliseconds = -1L;
+        put(key, future, milliseconds);
+    }
+
+    /**
+     * Saves the future in the cache. The lifetime
+     * starts when the future completes. The previous object
+     * with the key is removed at once.
+     *
+     * @param key          the object key in the cache.
+     * @param future       the future of the object to save.
+     * @param milliseconds the lifetime of objects (milliseconds).
+     */
+    @Override
+    public void put(
+            final Object key,
+            final CompletableFuture<Object> future,
+            final long milliseconds
+    ) {
+        if (Validator.isNotNull(key) && Validator.isNotNull(future)) {
+            this.loads.put(key, future);
+            this.storage.remove(key);
+            future.whenComplete(
+                    (object, throwable) -> complete(key, future, object, milliseconds)
+            );
+        }
+    }
+
+    /**
+     * Starts loading the keys of the manifest into the cache
+     * on the cache executor, {@link CacheConstants#WARM_UP_PARALLELISM}
+     * keys in parallel and without a rate limit.
+     *
+     * @param keys   the keys to load.
+     * @param loader the function to load the object, it may block.
+     * @return The progress of the warm-up (newer null).
+     */
+    @Override
+    public CacheWarmUp warmUp(
+            final Collection<Object> keys,
+            final Function<Object, Object> loader
+    ) {
+        return warmUp(keys, loader, this.executor, CacheConstants.WARM_UP_PARALLELISM, 0);
+    }
+
+    /**
+     * Starts loading the keys of the manifest into the cache while
+     * the cache serves the readers. The keys are loaded by the given
+     * number of workers on the executor. The loads are in-flight
+     * like the ones of the readers, so a key is not loaded twice.
+     *
+     * @param keys        the keys to load.
+     * @param loader      the function to load the object, it may block.
+     * @param executor    the executor where the keys are loaded.
+     * @param parallelism the maximum number of keys which are loaded
+     *                    in parallel, the default number if it is not positive.
+     * @param rate        the maximum number of loads per second,
+     *                    the rate is not limited if it is not positive.
+     * @return The progress of the warm-up (newer null).
+     */
+    @Override
+    public CacheWarmUp warmUp(
+            final Collection<Object> keys,
+            final Function<Object, Object> loader,
+            final Executor executor,
+            final int parallelism,
+            final int rate
+    ) {
+        final CacheWarmUp result = new CacheWarmUp(keys, rate);
+        final int workers = Math.min(
+                (parallelism > 0) ? parallelism : CacheConstants.WARM_UP_PARALLELISM,
+                result.getTotal()
+        );
+        result.start(workers);
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(() -> warmUp(result, loader));
+            } catch (RejectedExecutionException ex) {
+                result.cancel();
+                result.onWorkerDone();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the synchronous view of the cache
+     * which is backed by the same storage.
+     * The loads which are in-flight are not visible in the view.
+     *
+     * @return The synchronous view of the cache (newer null).
+     */
+    @Override
+    public TemporaryCache synchronous() {
+        return this.storage;
+    }
+
+    /**
+     * Loads the keys of the warm-up one by one until there are
+     * no more keys. The object is loaded in the worker thread,
+     * but its future is in-flight during the load.
+     *
+     * @param warmUp the warm-up whose keys are loaded.
+     * @param loader the function to load the object.
+     */
+    private void warmUp(
+            final CacheWarmUp warmUp,
+            final Function<Object, Object> loader
+    ) {
+        try {
+            Object key = warmUp.next();
+            Object object;
+            while (Validator.isNotNull(key)) {
+                if (Validator.isNotNull(get(key))) {
+                    warmUp.onSkipped();
+                } else {
+                    object = get(
+                            key,
+                            (_key, executor) -> CompletableFuture.completedFuture(
+                                    loader.apply(_key)
+                            )
+                    ).handle((_object, throwable) -> _object).join();
+                    if (Validator.isNotNull(object)) {
+                        warmUp.onLoaded();
+                    } else {
+                        warmUp.onFailed();
+                    }
+                }
+                key = warmUp.next();
+            }
+        } finally {
+            warmUp.onWorkerDone();
+        }
+    }
+
+    /**
+     * Starts the loading of the object and completes
+     * the future when the loading is finished.
+     *
+     * @param key    the object key in the cache.
+     * @param future the future which waits for the object.
+     * @param loader the function to start the loading of the object.
+     */
+    private void load(
+            final Object key,
+            final CompletableFuture<Object> future,
+            final BiFunction<Object, Executor, CompletableFuture<Object>> loader
+    ) {
+        final long milliseconds = -1L;
+        final CacheStatistics statistics = this.storage.getStatistics();
+        final long start = statistics.startTimer();
+        try {
+            loader.apply(key, this.executor).whenComplete(
+                    (object, throwable) -> {
+                        statistics.recordLatency(CacheOperation.LOAD, start);
+                        complete(key, future, object, milliseconds);
+                        if (Validator.isNotNull(throwable)) {
+                            CacheEvents.loadFailed(key, throwable);
+                            future.completeExceptionally(throwable);
+                        } else {
+                            future.complete(object);
+                        }
+                    }
+            );
+        } catch (RuntimeException ex) {
+            CacheEvents.loadFailed(key, ex);
+            this.loads.remove(key, future);
+            future.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Forgets the in-flight future and moves the completed object
+     * into the cache. The object is saved only if the future is still
+     * in-flight, the check and the save are atomic under the lock
+     * of the key, so a later write or removal is not overwritten.
+     *
+     * @param key          the object key in the cache.
+     * @param future       the completed future.
+     * @param object       the object or null if the future failed.
+     * @param milliseconds the lifetime of objects (milliseconds).
+     */
+    private void complete(
+            final Object key,
+            final CompletableFuture<Object> future,
+            final Object object,
+            final long milliseconds
+    ) {
+        if (Validator.isNotNull(object)) {
+            this.storage.putIf(key, object, milliseconds, () -> this.loads.remove(key, future));
+        } else {
+            this.loads.remove(key, future);
+        }
+    }
+
+    /**
+     * Joins the futures into the future of the map.
+     *
+     * @param futures the futures of the objects.
+     * @return The future of the map with objects (newer null).
+     */
+    private static CompletableFuture<Map<Object, Object>> join(
+            final Map<Object, CompletableFuture<Object>> futures
+    ) {
+        final CompletableFuture<?>[] array = futures.values()
+                .toArray(new CompletableFuture<?>[futures.size()]);
+        return CompletableFuture.allOf(array).thenApply(
+                ignored -> {
+                    final Map<Object, Object> result = new HashMap<>();
+                    Object object;
+                    for (Map.Entry<Object, CompletableFuture<Object>> entry : futures.entrySet()) {
+                        object = entry.getValue().join();
+                        if (Validator.isNotNull(object)) {
+                            result.put(entry.getKey(), object);
+                        }
+                    }
+                    return result;
+                }
+        );
+    }
+}
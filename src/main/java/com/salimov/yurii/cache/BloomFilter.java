@@ -0,0 +1,136 @@
+package com.salimov.yurii.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The class implements a compact concurrent Bloom filter.
+ * It answers whether an object might have been added,
+ * with no false negatives and a small rate of false positives.
+ * The bits are set with CAS, so the filter does not lock.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class BloomFilter {
+
+    /**
+     * The bits of the filter.
+     */
+    private final AtomicLongArray bits;
+
+    /**
+     * The mask of a bit index, the number of bits is a power of two.
+     */
+    private final int mask;
+
+    /**
+     * The number of hash functions.
+     */
+    private final int hashes;
+
+    /**
+     * Constructor.
+     *
+     * @param expectedInsertions the number of objects the filter is sized for.
+     * @param bitsPerObject      the number of bits per object.
+     * @param hashes             the number of hash functions.
+     */
+    BloomFilter(
+            final int expectedInsertions,
+            final int bitsPerObject,
+            final int hashes
+    ) {
+        final long size = Math.max((long) expectedInsertions * bitsPerObject, Long.SIZE);
+        final int bitCount = (int) Math.min(
+                Long.highestOneBit(size - 1) << 1, 1L << 30
+        );
+        this.bits = new AtomicLongArray(bitCount / Long.SIZE);
+        this.mask = bitCount - 1;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Adds the object to the filter.
+     *
+     * @param object the object to add.
+     * @return true if the object might have been added before, false otherwise.
+     */
+    boolean put(final Object object) {
+        final int hash = spread(object.hashCode());
+        final int step = rehash(hash);
+        boolean result = true;
+        for (int i = 0; i < this.hashes; i++) {
+            if (!set((hash + i * step) & this.mask)) {
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the object might have been added to the filter.
+     *
+     * @param object the object to check.
+     * @return false if the object was never added, true otherwise.
+     */
+    boolean mightContain(final Object object) {
+        final int hash = spread(object.hashCode());
+        final int step = rehash(hash);
+        boolean result = true;
+        for (int i = 0; (i < this.hashes) && result; i++) {
+            result = isSet((hash + i * step) & this.mask);
+        }
+        return result;
+    }
+
+    /**
+     * Sets the bit.
+     *
+     * @param index the index of the bit.
+     * @return true if the bit was set before, false otherwise.
+     */
+    private boolean set(final int index) {
+        final int word = index >>> 6;
+        final long bit = 1L << index;
+        long value = this.bits.get(word);
+        while ((value & bit) == 0) {
+            if (this.bits.compareAndSet(word, value, value | bit)) {
+                return false;
+            }
+            value = this.bits.get(word);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the bit is set.
+     *
+     * @param index the index of the bit.
+     * @return true if the bit is set, false otherwise.
+     */
+    private boolean isSet(final int index) {
+        return (this.bits.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Mixes the bits of the hash code.
+     *
+     * @param hash the hash code of an object.
+     * @return The mixed hash.
+     */
+    private static int spread(final int hash) {
+        final int result = hash * 0x9E3779B9;
+        return result ^ (result >>> 16);
+    }
+
+    /**
+     * Computes the second hash, which is odd,
+     * so the probes visit different bits.
+     *
+     * @param hash the first hash.
+     * @return The second hash.
+     */
+    private static int rehash(final int hash) {
+        final int result = hash * 0x85EBCA6B;
+        return (result ^ (result >>> 13)) | 1;
+    }
+}
@@ -52,12 +52,19 @@ public interface Cache {
     void remove(Object key);
 
     /**
-     * Removes all objects from the cache
-     * if they key contains the string subKey.
-     * Removes objects if subKey is not blank.
-     * The objects are removed in a parallel thread.
+     * Removes object from cache with key if the object is dead.
      *
-     * @param keys the key strings.
+     * @param key the object key in the cache.
+     * @return true if the object was removed, false otherwise.
+     */
+    boolean removeIfDead(Object key);
+
+    /**
+     * Removes the objects with the keys from the cache,
+     * as {@link #remove(Object)} does for every key.
+     * Does nothing if the keys are null or empty.
+     *
+     * @param keys the object keys in the cache.
      */
     void removeAll(final Collection<Object> keys);
 
@@ -114,6 +121,13 @@ public interface Cache {
      */
     int getSize();
 
+    /**
+     * Returns statistics about the cache and its maintenance.
+     *
+     * @return The cache statistics (newer null).
+     */
+    CacheStatistics getStatistics();
+
     /**
      *
      * @return
@@ -121,4 +135,14 @@ public interface Cache {
     static TemporaryCache getTemporaryCache() {
         return TemporaryCache.getTemporaryCache();
     }
+
+    /**
+     * Returns the asynchronous cache which is backed
+     * by the temporary cache.
+     *
+     * @return The asynchronous cache (newer null).
+     */
+    static AsyncTemporaryCache getAsyncTemporaryCache() {
+        return AsyncTemporaryCache.getAsyncTemporaryCache();
+    }
 }
@@ -1,9 +1,15 @@
 package com.salimov.yurii.cache;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The class implements a set of methods for checking cache at old objects.
+ * The key set is partitioned into segments which are swept
+ * in parallel on a ForkJoinPool, so one run does not take seconds
+ * on a big cache.
  *
  * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
  */
@@ -13,12 +19,37 @@ final class CacheCleaner implements Runnable {
      * The maximum size of objects
      * which can be stored in the cache.
      */
-    private final int maxSize;
+    private volatile int maxSize;
 
     /**
      * The map where can be stored some objects.
      */
-    private final TemporaryCache cache;
+    private final TemporaryCacheImpl cache;
+
+    /**
+     * The pool where the segments of the cache are swept.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The pool is shared with the other caches.
+     */
+    private final boolean shared;
+
+    /**
+     * The shadow entries of the evicted keys or null.
+     */
+    private final CacheGhosts ghosts;
+
+    /**
+     * The source of time which the cache uses.
+     */
+    private final Ticker ticker;
+
+    /**
+     * The sampler of the keys to evict or null.
+     */
+    private final CacheEvictionSampler sampler;
 
     /**
      * Constructor.
@@ -26,10 +57,76 @@ final class CacheCleaner implements Runnable {
      * @param cache   the map where can be stored some objects.
      * @param maxSize the maximum size of objects
      *                which can be stored in the cache.
+     * @param ticker  the source of time which the cache uses.
+     * @param pool    the pool which is shared with the other caches
+     *                or null to create a new pool.
+     * @param ghosts  the shadow entries of the evicted keys or null.
+     * @param sampler the sampler of the keys to evict or null,
+     *                the writes do not evict the keys then.
      */
-    CacheCleaner(final TemporaryCache cache, final int maxSize) {
+    CacheCleaner(
+            final TemporaryCacheImpl cache,
+            final int maxSize,
+            final Ticker ticker,
+            final ForkJoinPool pool,
+            final CacheGhosts ghosts,
+            final CacheEvictionSampler sampler
+    ) {
         this.cache = cache;
         this.maxSize = (maxSize > 0) ? maxSize : CacheConstants.CACHE_MAX_SIZE;
+        this.shared = Validator.isNotNull(pool);
+        this.pool = this.shared ? pool : new ForkJoinPool(CacheConstants.CLEANER_PARALLELISM);
+        this.ticker = ticker;
+        this.ghosts = ghosts;
+        this.sampler = sampler;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cache   the map where can be stored some objects.
+     * @param maxSize the maximum size of objects
+     *                which can be stored in the cache.
+     * @param ticker  the source of time which the cache uses.
+     * @param pool    the pool which is shared with the other caches
+     *                or null to create a new pool.
+     * @param ghosts  the shadow entries of the evicted keys or null.
+     */
+    CacheCleaner(
+            final TemporaryCacheImpl cache,
+            final int maxSize,
+            final Ticker ticker,
+            final ForkJoinPool pool,
+            final CacheGhosts ghosts
+    ) {
+        this(cache, maxSize, ticker, pool, ghosts, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cache   the map where can be stored some objects.
+     * @param maxSize the maximum size of objects
+     *                which can be stored in the cache.
+     * @param ticker  the source of time which the cache uses.
+     */
+    CacheCleaner(
+            final TemporaryCacheImpl cache,
+            final int maxSize,
+            final Ticker ticker
+    ) {
+        this(cache, maxSize, ticker, null, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cache   the map where can be stored some objects.
+     * @param maxSize the maximum size of objects
+     *                which can be stored in the cache.
+     */
+    CacheCleaner(final TemporaryCacheImpl cache, final int maxSize) {
+        this(cache, maxSize, Ticker.systemTicker());
     }
 
     /**
@@ -48,8 +145,51 @@ final class CacheCleaner implements Runnable {
      */
     @Override
     public void run() {
-        removeDeadObject();
-        cleanCache();
+        final Object event = CacheEvents.beginMaintenance();
+        final long start = System.nanoTime();
+        final long scanned = this.cache.keySet().size();
+        final long expired = removeDeadObject();
+        final long evicted = cleanCache();
+        final long duration = System.nanoTime() - start;
+        this.cache.getStatistics().recordSweep(expired, evicted, duration);
+        CacheEvents.endMaintenance(event, scanned, expired, evicted);
+    }
+
+    /**
+     * Evicts a few objects if the cache passed its maximum size.
+     * Called by the writers after the write, so the cache does not
+     * grow above the maximum size until the next run. Every write
+     * tries at most {@link CacheConstants#WRITE_EVICTION_BATCH}
+     * sampled objects, the run cleans the cache to the normal size.
+     * Does nothing without the sampler.
+     *
+     * @return The number of removed objects.
+     */
+    long evictOnWrite() {
+        long result = 0;
+        if (Validator.isNotNull(this.sampler)) {
+            Key key;
+            for (int attempts = CacheConstants.WRITE_EVICTION_BATCH;
+                 (attempts > 0) && isGreatMaxSize(); attempts--) {
+                key = this.sampler.next();
+                if (Validator.isNull(key)) {
+                    break;
+                }
+                if (evict(key)) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Shuts down the pool if it is not shared.
+     */
+    void close() {
+        if (!this.shared) {
+            this.pool.shutdown();
+        }
     }
 
     /**
@@ -63,55 +203,125 @@ final class CacheCleaner implements Runnable {
         return this.maxSize;
     }
 
+    /**
+     * Sets maximum size of objects which can be stored in the cache.
+     * The cache is cleaned to the new size on the next run.
+     * Sets the default size if the size is not positive.
+     *
+     * @param maxSize the maximum size of objects.
+     */
+    void setMaxSize(final int maxSize) {
+        this.maxSize = (maxSize > 0) ? maxSize : CacheConstants.CACHE_MAX_SIZE;
+    }
+
     /**
      * Removes dead objects from cache.
+     *
+     * @return The number of removed objects.
      */
-    private void removeDeadObject() {
-        final Set<Key> keySet = this.cache.keySet();
-        final Iterator<Key> iterator = keySet.iterator();
-        Key key;
-        while (iterator.hasNext()) {
-            key = iterator.next();
-            if (key.isDead()) {
-                iterator.remove();
-            }
-        }
+    private long removeDeadObject() {
+        final Spliterator<Key> keys = this.cache.keySet().spliterator();
+        final CacheSweepTask task = new CacheSweepTask(
+                this.cache, keys, CacheConstants.CLEANER_SEGMENT_SIZE,
+                this.ticker.read()
+        );
+        return this.pool.invoke(task);
     }
 
     /**
      * Cleans cache when cache.size() great maxSize.
+     *
+     * @return The number of removed objects.
      */
-    private void cleanCache() {
+    private long cleanCache() {
+        long result = 0;
         if (isGreatMaxSize()) {
-            final List<Key> keys = getSortedKeys();
-            cleanToNormalSize(keys);
+            if (Validator.isNotNull(this.sampler) && this.sampler.isSampled()) {
+                result = cleanBySamples();
+            } else {
+                final Key[] keys = getSortedKeys();
+                result = cleanToNormalSize(keys);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cleans cache by the keys which the sampler chooses.
+     * The number of attempts is limited by the size of the cache,
+     * so the run ends even if the removed keys are saved again.
+     *
+     * @return The number of removed objects.
+     */
+    private long cleanBySamples() {
+        long result = 0;
+        Key key;
+        for (int attempts = this.cache.getSize(); (attempts > 0) && !isNormalSize(); attempts--) {
+            key = this.sampler.next();
+            if (Validator.isNull(key)) {
+                break;
+            }
+            if (evict(key)) {
+                result++;
+            }
         }
+        return result;
     }
 
     /**
      * Sorted and return the cache keys.
+     * The keys are sorted in parallel in the cleaner pool.
+     * The copies of the keys are sorted, because the writers
+     * change the lifetime of the keys in place during the sort.
+     * The confirmed absences are skipped, they are not counted
+     * in the size of the cache and have their own limit.
      *
-     * @return The lit of the sorted keys.
+     * @return The array of the sorted keys.
      */
-    private List<Key> getSortedKeys() {
-        final List<Key> keys = new ArrayList<>(this.cache.keySet());
+    private Key[] getSortedKeys() {
+        final Key[] keys = this.cache.keySet().stream()
+                .filter(key -> !key.isNotFound())
+                .map(Key::snapshot)
+                .toArray(Key[]::new);
         final Comparator<Key> comparator = new KeyComparator();
-        Collections.sort(keys, comparator);
+        this.pool.submit(() -> Arrays.parallelSort(keys, comparator)).join();
         return keys;
     }
 
     /**
      * Cleans cache.
      *
-     * @param keys the keys list.
+     * @param keys the keys array.
+     * @return The number of removed objects.
      */
-    private void cleanToNormalSize(final Collection<Key> keys) {
+    private long cleanToNormalSize(final Key[] keys) {
+        long result = 0;
         for (Key key : keys) {
             if (isNormalSize()) {
                 break;
             }
-            this.cache.remove(key);
+            if (evict(key)) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the key from the cache and remembers
+     * it in the shadow entries if they are enabled.
+     * The key is not counted if it was already
+     * removed meanwhile or became a confirmed absence.
+     *
+     * @param key the key to remove.
+     * @return true if the key was removed, false otherwise.
+     */
+    private boolean evict(final Key key) {
+        final boolean result = this.cache.evict(key);
+        if (result && Validator.isNotNull(this.ghosts)) {
+            this.ghosts.onEviction(key);
         }
+        return result;
     }
 
     /**
@@ -130,6 +340,7 @@ final class CacheCleaner implements Runnable {
      * @return true if cache.size() great normalSize, false otherwise.
      */
     private boolean isNormalSize() {
-        return (this.cache.getSize() <= CacheConstants.CACHE_NORMAL_SIZE);
+        final int normalSize = (int) (this.maxSize * CacheConstants.CACHE_LOAD_FACTOR);
+        return (this.cache.getSize() <= normalSize);
     }
 }
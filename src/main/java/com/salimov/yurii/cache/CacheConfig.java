@@ -0,0 +1,619 @@
+package com.salimov.yurii.cache;
+
+/**
+ * The class implements a set of methods for configuring
+ * a new cache. The default values are taken from the
+ * {@link CacheConstants}.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public final class CacheConfig {
+
+    /**
+     * The name of the cache, used by its MBean.
+     */
+    private String name;
+
+    /**
+     * The maximum size of objects which can be stored in the cache.
+     */
+    private int maxSize;
+
+    /**
+     * The default lifetime of objects (milliseconds).
+     */
+    private long defaultTimeout;
+
+    /**
+     * The String keys are indexed by prefix.
+     */
+    private boolean prefixIndex;
+
+    /**
+     * The lifetime of a confirmed absence (milliseconds).
+     */
+    private long notFoundTimeout;
+
+    /**
+     * The maximum number of confirmed absences.
+     */
+    private int notFoundMaxSize;
+
+    /**
+     * The number of new keys in one window of the doorkeeper,
+     * 0 if the doorkeeper is disabled.
+     */
+    private int doorkeeperWindow;
+
+    /**
+     * The source of time for the lifetime of objects.
+     */
+    private Ticker ticker;
+
+    /**
+     * The latencies of the cache operations are recorded.
+     */
+    private boolean latencyHistograms;
+
+    /**
+     * The minimum memory of the region of a manager (bytes).
+     */
+    private long minMemory;
+
+    /**
+     * The maximum memory of the region of a manager (bytes),
+     * 0 if it is limited by the budget of the manager only.
+     */
+    private long maxMemory;
+
+    /**
+     * The mode of the eviction of objects.
+     */
+    private CacheEviction eviction;
+
+    /**
+     * The number of keys sampled for one removal
+     * by the sampled eviction.
+     */
+    private int evictionSamples;
+
+    /**
+     * The number of the most read keys which are counted,
+     * 0 if the detection is disabled.
+     */
+    private int hotKeys;
+
+    /**
+     * The hot objects are copied for the readers.
+     */
+    private boolean hotKeyReplicas;
+
+    /**
+     * The backing store where the objects are written
+     * behind the callers or null.
+     */
+    private CacheWriter writer;
+
+    /**
+     * The maximum number of objects in one batch of the writer.
+     */
+    private int writerBatchSize;
+
+    /**
+     * The delay between the batches of the writer (milliseconds).
+     */
+    private long writerDelay;
+
+    /**
+     * The maximum number of objects which wait for the writer.
+     */
+    private int writerMaxPending;
+
+    /**
+     * Constructor.
+     */
+    public CacheConfig() {
+        this.maxSize = CacheConstants.CACHE_MAX_SIZE;
+        this.defaultTimeout = CacheConstants.KEY_TIMEOUT;
+        this.notFoundTimeout = CacheConstants.NOT_FOUND_TIMEOUT;
+        this.notFoundMaxSize = CacheConstants.NOT_FOUND_MAX_SIZE;
+        this.ticker = Ticker.coarseTicker();
+        this.eviction = CacheEviction.SORTED;
+        this.evictionSamples = CacheConstants.EVICTION_SAMPLES;
+        this.hotKeys = CacheConstants.HOT_KEYS;
+        this.writerBatchSize = CacheConstants.WRITER_BATCH_SIZE;
+        this.writerDelay = CacheConstants.WRITER_DELAY;
+        this.writerMaxPending = CacheConstants.WRITER_MAX_PENDING;
+    }
+
+    /**
+     * Constructor. Copies the configuration.
+     *
+     * @param config the configuration to copy.
+     */
+    CacheConfig(final CacheConfig config) {
+        this.name = config.name;
+        this.maxSize = config.maxSize;
+        this.defaultTimeout = config.defaultTimeout;
+        this.prefixIndex = config.prefixIndex;
+        this.notFoundTimeout = config.notFoundTimeout;
+        this.notFoundMaxSize = config.notFoundMaxSize;
+        this.doorkeeperWindow = config.doorkeeperWindow;
+        this.ticker = config.ticker;
+        this.latencyHistograms = config.latencyHistograms;
+        this.minMemory = config.minMemory;
+        this.maxMemory = config.maxMemory;
+        this.eviction = config.eviction;
+        this.evictionSamples = config.evictionSamples;
+        this.hotKeys = config.hotKeys;
+        this.hotKeyReplicas = config.hotKeyReplicas;
+        this.writer = config.writer;
+        this.writerBatchSize = config.writerBatchSize;
+        this.writerDelay = config.writerDelay;
+        this.writerMaxPending = config.writerMaxPending;
+    }
+
+    /**
+     * Returns a string representation of the object.
+     *
+     * @return A string representation of the object.
+     */
+    @Override
+    public String toString() {
+        return "CacheConfig{" +
+                "name='" + this.name + '\'' +
+                ", maxSize=" + this.maxSize +
+                ", defaultTimeout=" + this.defaultTimeout +
+                ", prefixIndex=" + this.prefixIndex +
+                ", notFoundTimeout=" + this.notFoundTimeout +
+                ", notFoundMaxSize=" + this.notFoundMaxSize +
+                ", doorkeeperWindow=" + this.doorkeeperWindow +
+                ", latencyHistograms=" + this.latencyHistograms +
+                ", minMemory=" + this.minMemory +
+                ", maxMemory=" + this.maxMemory +
+                ", eviction=" + this.eviction +
+                ", evictionSamples=" + this.evictionSamples +
+                ", hotKeys=" + this.hotKeys +
+                ", hotKeyReplicas=" + this.hotKeyReplicas +
+                ", writer=" + this.writer +
+                ", writerBatchSize=" + this.writerBatchSize +
+                ", writerDelay=" + this.writerDelay +
+                ", writerMaxPending=" + this.writerMaxPending +
+                '}';
+    }
+
+    /**
+     * Returns the name of the cache.
+     *
+     * @return The name of the cache or null.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Sets the name of the cache, its MBean is registered
+     * under the name. A name is generated if it is null.
+     *
+     * @param name the name of the cache.
+     * @return This config.
+     */
+    public CacheConfig setName(final String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Returns the default lifetime of objects.
+     *
+     * @return The default lifetime of objects (milliseconds).
+     */
+    public long getDefaultTimeout() {
+        return this.defaultTimeout;
+    }
+
+    /**
+     * Sets the lifetime of objects which are saved
+     * without a lifetime. Sets the default lifetime
+     * if it is not positive.
+     *
+     * @param defaultTimeout the default lifetime of objects (milliseconds).
+     * @return This config.
+     */
+    public CacheConfig setDefaultTimeout(final long defaultTimeout) {
+        this.defaultTimeout = (defaultTimeout > 0) ?
+                defaultTimeout : CacheConstants.KEY_TIMEOUT;
+        return this;
+    }
+
+    /**
+     * Returns the maximum size of objects
+     * which can be stored in the cache.
+     *
+     * @return The maximum size of objects.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Sets the maximum size of objects which can be stored
+     * in the cache. Sets the default size if the size is not positive.
+     *
+     * @param maxSize the maximum size of objects.
+     * @return This config.
+     */
+    public CacheConfig setMaxSize(final int maxSize) {
+        this.maxSize = (maxSize > 0) ? maxSize : CacheConstants.CACHE_MAX_SIZE;
+        return this;
+    }
+
+    /**
+     * Checks if the String keys are indexed by prefix.
+     *
+     * @return true if the keys are indexed, false otherwise.
+     */
+    public boolean isPrefixIndex() {
+        return this.prefixIndex;
+    }
+
+    /**
+     * Sets whether the String keys are indexed by prefix,
+     * so the prefix operations cost O(matches) instead
+     * of a scan of the whole cache.
+     *
+     * @param prefixIndex true if the keys are indexed.
+     * @return This config.
+     */
+    public CacheConfig setPrefixIndex(final boolean prefixIndex) {
+        this.prefixIndex = prefixIndex;
+        return this;
+    }
+
+    /**
+     * Returns the default lifetime of a confirmed absence.
+     *
+     * @return The lifetime of a confirmed absence (milliseconds).
+     */
+    public long getNotFoundTimeout() {
+        return this.notFoundTimeout;
+    }
+
+    /**
+     * Sets the default lifetime of a confirmed absence.
+     * Sets the default lifetime if it is not positive.
+     *
+     * @param notFoundTimeout the lifetime of a confirmed absence (milliseconds).
+     * @return This config.
+     */
+    public CacheConfig setNotFoundTimeout(final long notFoundTimeout) {
+        this.notFoundTimeout = (notFoundTimeout > 0) ?
+                notFoundTimeout : CacheConstants.NOT_FOUND_TIMEOUT;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of confirmed absences.
+     *
+     * @return The maximum number of confirmed absences.
+     */
+    public int getNotFoundMaxSize() {
+        return this.notFoundMaxSize;
+    }
+
+    /**
+     * Sets the maximum number of confirmed absences, which is bounded
+     * separately from the objects, so a scan of missing keys
+     * does not flush the objects. Sets the default size
+     * if the size is not positive.
+     *
+     * @param notFoundMaxSize the maximum number of confirmed absences.
+     * @return This config.
+     */
+    public CacheConfig setNotFoundMaxSize(final int notFoundMaxSize) {
+        this.notFoundMaxSize = (notFoundMaxSize > 0) ?
+                notFoundMaxSize : CacheConstants.NOT_FOUND_MAX_SIZE;
+        return this;
+    }
+
+    /**
+     * Returns the number of new keys in one window of the doorkeeper.
+     *
+     * @return The window of the doorkeeper, 0 if it is disabled.
+     */
+    public int getDoorkeeperWindow() {
+        return this.doorkeeperWindow;
+    }
+
+    /**
+     * Sets the number of new keys in one window of the doorkeeper.
+     * With the doorkeeper a new key is saved only on its second put
+     * within the window, except a confirmed absence which is saved
+     * on the first miss. So the keys which are put once do not
+     * flush the others, and the reads of missing keys are answered
+     * by a Bloom filter without a map lookup. Disables
+     * the doorkeeper if the window is not positive.
+     *
+     * @param doorkeeperWindow the number of new keys in one window.
+     * @return This config.
+     */
+    public CacheConfig setDoorkeeperWindow(final int doorkeeperWindow) {
+        this.doorkeeperWindow = Math.max(doorkeeperWindow, 0);
+        return this;
+    }
+
+    /**
+     * Returns the source of time for the lifetime of objects.
+     *
+     * @return The ticker (newer null).
+     */
+    public Ticker getTicker() {
+        return this.ticker;
+    }
+
+    /**
+     * Sets the source of time for the lifetime of objects.
+     * The coarse ticker is used by default, a manual ticker
+     * makes the expiry deterministic in tests.
+     * Sets the default ticker if the ticker is null.
+     *
+     * @param ticker the source of time.
+     * @return This config.
+     */
+    public CacheConfig setTicker(final Ticker ticker) {
+        this.ticker = Validator.isNotNull(ticker) ? ticker : Ticker.coarseTicker();
+        return this;
+    }
+
+    /**
+     * Checks if the latencies of the cache operations are recorded.
+     *
+     * @return true if the latencies are recorded, false otherwise.
+     */
+    public boolean isLatencyHistograms() {
+        return this.latencyHistograms;
+    }
+
+    /**
+     * Sets whether the latencies of the cache operations are recorded
+     * in histograms, which are exported by {@link CacheStatistics}.
+     * A recording costs two reads of the nanosecond clock.
+     *
+     * @param latencyHistograms true if the latencies are recorded.
+     * @return This config.
+     */
+    public CacheConfig setLatencyHistograms(final boolean latencyHistograms) {
+        this.latencyHistograms = latencyHistograms;
+        return this;
+    }
+
+    /**
+     * Returns the minimum memory of the region of a manager.
+     *
+     * @return The minimum memory (bytes).
+     */
+    public long getMinMemory() {
+        return this.minMemory;
+    }
+
+    /**
+     * Sets the minimum memory which the region keeps when the memory
+     * budget of the manager is rebalanced. The memory is estimated
+     * as by {@link CacheMXBean#getEstimatedMemory()}.
+     *
+     * @param minMemory the minimum memory (bytes).
+     * @return This config.
+     */
+    public CacheConfig setMinMemory(final long minMemory) {
+        this.minMemory = Math.max(minMemory, 0L);
+        return this;
+    }
+
+    /**
+     * Returns the maximum memory of the region of a manager.
+     *
+     * @return The maximum memory (bytes), 0 if it is not limited.
+     */
+    public long getMaxMemory() {
+        return this.maxMemory;
+    }
+
+    /**
+     * Sets the maximum memory which the region takes when the memory
+     * budget of the manager is rebalanced. The region is limited
+     * by the budget only if the memory is not positive.
+     *
+     * @param maxMemory the maximum memory (bytes).
+     * @return This config.
+     */
+    public CacheConfig setMaxMemory(final long maxMemory) {
+        this.maxMemory = Math.max(maxMemory, 0L);
+        return this;
+    }
+
+    /**
+     * Returns the mode of the eviction of objects.
+     *
+     * @return The eviction mode (newer null).
+     */
+    public CacheEviction getEviction() {
+        return this.eviction;
+    }
+
+    /**
+     * Sets the mode of the eviction of objects when the cache
+     * passes its maximum size. Sets the sorted eviction if it is null.
+     *
+     * @param eviction the eviction mode.
+     * @return This config.
+     */
+    public CacheConfig setEviction(final CacheEviction eviction) {
+        this.eviction = Validator.isNotNull(eviction) ? eviction : CacheEviction.SORTED;
+        return this;
+    }
+
+    /**
+     * Returns the number of keys sampled for one removal.
+     *
+     * @return The number of sampled keys.
+     */
+    public int getEvictionSamples() {
+        return this.evictionSamples;
+    }
+
+    /**
+     * Sets the number of keys sampled for one removal by the sampled
+     * eviction, more samples make the eviction closer to the precise
+     * order and slower. Sets the default number if it is not positive.
+     *
+     * @param evictionSamples the number of sampled keys.
+     * @return This config.
+     */
+    public CacheConfig setEvictionSamples(final int evictionSamples) {
+        this.evictionSamples = (evictionSamples > 0) ?
+                evictionSamples : CacheConstants.EVICTION_SAMPLES;
+        return this;
+    }
+
+    /**
+     * Returns the number of the most read keys which are counted.
+     *
+     * @return The number of hot keys, 0 if the detection is disabled.
+     */
+    public int getHotKeys() {
+        return this.hotKeys;
+    }
+
+    /**
+     * Sets the number of the most read keys which are counted.
+     * A sample of the reads is counted and the most read keys
+     * are shown by {@link CacheStatistics#getHotKeys()}.
+     * Disables the detection if the number is not positive.
+     *
+     * @param hotKeys the number of hot keys.
+     * @return This config.
+     */
+    public CacheConfig setHotKeys(final int hotKeys) {
+        this.hotKeys = Math.max(hotKeys, 0);
+        return this;
+    }
+
+    /**
+     * Checks if the hot objects are copied for the readers.
+     *
+     * @return true if the hot objects are copied, false otherwise.
+     */
+    public boolean isHotKeyReplicas() {
+        return this.hotKeyReplicas;
+    }
+
+    /**
+     * Sets if the hot objects are copied for the readers. The hot objects
+     * are detected and copied as soon as enough reads are sampled, without
+     * waiting for the maintenance, into the stripes of the reader threads,
+     * so the readers on different cores do not read the same memory.
+     * A write of a hot key drops its copies. The reads of the copies
+     * extend the lifetime of the objects as the other reads do.
+     * Needs the detection of the hot keys, see {@link #setHotKeys(int)}.
+     *
+     * @param hotKeyReplicas the hot objects are copied.
+     * @return This config.
+     */
+    public CacheConfig setHotKeyReplicas(final boolean hotKeyReplicas) {
+        this.hotKeyReplicas = hotKeyReplicas;
+        return this;
+    }
+
+    /**
+     * Returns the backing store where the objects are written.
+     *
+     * @return The writer or null.
+     */
+    public CacheWriter getWriter() {
+        return this.writer;
+    }
+
+    /**
+     * Sets the backing store where the saved and removed objects
+     * are written behind the callers. The writes of one key are
+     * coalesced, so only the last one is written, and they are
+     * written in batches by size or after the delay.
+     * The objects are not written if the writer is null.
+     *
+     * @param writer the backing store.
+     * @return This config.
+     */
+    public CacheConfig setWriter(final CacheWriter writer) {
+        this.writer = writer;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of objects in one batch of the writer.
+     *
+     * @return The batch size of the writer.
+     */
+    public int getWriterBatchSize() {
+        return this.writerBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of objects in one batch of the writer,
+     * a batch is written at once when so many objects wait.
+     * Sets the default size if it is not positive.
+     *
+     * @param writerBatchSize the batch size of the writer.
+     * @return This config.
+     */
+    public CacheConfig setWriterBatchSize(final int writerBatchSize) {
+        this.writerBatchSize = (writerBatchSize > 0) ?
+                writerBatchSize : CacheConstants.WRITER_BATCH_SIZE;
+        return this;
+    }
+
+    /**
+     * Returns the delay between the batches of the writer.
+     *
+     * @return The delay of the writer (milliseconds).
+     */
+    public long getWriterDelay() {
+        return this.writerDelay;
+    }
+
+    /**
+     * Sets the longest time an object waits for the writer,
+     * the failed batches are retried after growing multiples of it.
+     * Sets the default delay if it is not positive.
+     *
+     * @param writerDelay the delay of the writer (milliseconds).
+     * @return This config.
+     */
+    public CacheConfig setWriterDelay(final long writerDelay) {
+        this.writerDelay = (writerDelay > 0) ?
+                writerDelay : CacheConstants.WRITER_DELAY;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of objects which wait for the writer.
+     *
+     * @return The maximum number of pending objects.
+     */
+    public int getWriterMaxPending() {
+        return this.writerMaxPending;
+    }
+
+    /**
+     * Sets the maximum number of objects which wait for the writer,
+     * the callers which write a new key are blocked while there are
+     * so many of them. Sets the default number if it is not positive.
+     *
+     * @param writerMaxPending the maximum number of pending objects.
+     * @return This config.
+     */
+    public CacheConfig setWriterMaxPending(final int writerMaxPending) {
+        this.writerMaxPending = (writerMaxPending > 0) ?
+                writerMaxPending : CacheConstants.WRITER_MAX_PENDING;
+        return this;
+    }
+}
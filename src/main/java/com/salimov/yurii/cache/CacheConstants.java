@@ -15,11 +15,92 @@ interface CacheConstants {
      */
     long KEY_TIMEOUT = 10L * 24L * 60L * 60L * 1000L;
 
+    /**
+     * The granularity of the lifetime extension on reads (milliseconds).
+     * A read does not write the new lifetime if it differs
+     * from the current one less than the granularity
+     * or a quarter of the lifetime, whichever is smaller.
+     */
+    long KEY_ACCESS_GRANULARITY = 1000L;
+
     /**
      * The default maximum size of objects which can be stored in the cache.
      */
     int CACHE_MAX_SIZE = 150;
 
+    /**
+     * The default lifetime of a confirmed absence in the cache (milliseconds).
+     * 1 minute = (60 s * 1000 ms) ms
+     */
+    long NOT_FOUND_TIMEOUT = 60L * 1000L;
+
+    /**
+     * The default maximum number of confirmed absences
+     * which can be stored in the cache.
+     */
+    int NOT_FOUND_MAX_SIZE = CACHE_MAX_SIZE;
+
+    /**
+     * The number of bits of the doorkeeper filter per key in one window.
+     */
+    int DOORKEEPER_BITS_PER_KEY = 8;
+
+    /**
+     * The number of hash functions of the doorkeeper filter.
+     */
+    int DOORKEEPER_HASHES = 4;
+
+    /**
+     * The period between updates of the coarse ticker (milliseconds).
+     */
+    long TICKER_RESOLUTION = 4L;
+
+    /**
+     * The estimated memory of one entry in the cache (bytes):
+     * the key node and the table slot,
+     * without the key value and the saved object.
+     */
+    long ENTRY_MEMORY_OVERHEAD = 64L;
+
+    /**
+     * The number of segments of the key table, a power of two.
+     */
+    int KEY_TABLE_SEGMENTS = 16;
+
+    /**
+     * The initial number of bins of one segment
+     * of the key table, a power of two.
+     */
+    int KEY_TABLE_CAPACITY = 16;
+
+    /**
+     * The number of random positions of the key table which
+     * are tried by one sample before the bins are probed.
+     */
+    int KEY_TABLE_SAMPLE_ATTEMPTS = 64;
+
+    /**
+     * The number of keys of one bin of the key table
+     * which are sampled uniformly.
+     */
+    int KEY_TABLE_SAMPLE_DEPTH = 4;
+
+    /**
+     * The domain of the cache MBeans.
+     */
+    String MBEAN_DOMAIN = "com.salimov.yurii.cache";
+
+    /**
+     * The number of bits of the linear buckets in one power of two
+     * of the latency histograms, 4 bits keep the error within 1/16.
+     */
+    int HISTOGRAM_SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of stripes of the latency histograms.
+     */
+    int HISTOGRAM_STRIPES = Math.min(Runtime.getRuntime().availableProcessors(), 16);
+
     /**
      * The default cache load factor.
      */
@@ -39,12 +120,161 @@ interface CacheConstants {
     long SCHEDULER_INITIAL_DELAY = 5L;
 
     /**
-     * The period between successive executions (3 hour).
+     * The maximum period between successive executions (3 hour),
+     * used while the cache is idle.
      */
     long SCHEDULER_PERIOD = 3L;
 
+    /**
+     * The minimum delay between successive executions (milliseconds),
+     * used while the cache is under pressure.
+     */
+    long SCHEDULER_MIN_DELAY = 1000L;
+
+    /**
+     * The number of writes since the last execution which triggers
+     * the next one at once, per object of the maximum size.
+     */
+    double SCHEDULER_WRITES_RATIO = 1.0;
+
+    /**
+     * The estimated number of dead objects which triggers
+     * the next execution at once, per object of the maximum size.
+     */
+    double SCHEDULER_DEAD_RATIO = 1.0 - CACHE_LOAD_FACTOR;
+
+    /**
+     * The writes and the dead objects are checked
+     * once per so many writes on average.
+     */
+    int SCHEDULER_CHECK_RATE = 64;
+
+    /**
+     * The maximum part of the delay which is added at random
+     * when the executor is shared by the caches of a manager.
+     */
+    double SCHEDULER_JITTER = 0.1;
+
+    /**
+     * The default number of threads of the executor
+     * which is shared by the caches of a manager.
+     */
+    int MANAGER_THREADS = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+
+    /**
+     * The time to wait for the running maintenance
+     * when a manager is closed (milliseconds).
+     */
+    long MANAGER_SHUTDOWN_TIMEOUT = 10L * 1000L;
+
+    /**
+     * The period between the rebalances of the memory budget
+     * of a manager between its regions (milliseconds).
+     */
+    long MANAGER_REBALANCE_PERIOD = 10L * 1000L;
+
+    /**
+     * The part of the memory budget which is moved
+     * from one region to another by one rebalance.
+     */
+    double MANAGER_REBALANCE_STEP = 0.05;
+
+    /**
+     * The number of the shadow entries of evicted keys
+     * in one window per object of the region.
+     */
+    double MANAGER_GHOST_RATIO = 0.25;
+
+    /**
+     * The default number of keys sampled for one removal
+     * by the sampled eviction.
+     */
+    int EVICTION_SAMPLES = 5;
+
+    /**
+     * The maximum number of objects which one write evicts
+     * when the cache passes its maximum size. More than one,
+     * so the writes bring the cache back to the maximum size.
+     */
+    int WRITE_EVICTION_BATCH = 2;
+
+    /**
+     * The default number of the most read keys which are counted.
+     */
+    int HOT_KEYS = 16;
+
+    /**
+     * One of so many reads is counted by the detection
+     * of the most read keys.
+     */
+    int HOT_KEYS_SAMPLE_RATE = 16;
+
+    /**
+     * The number of the sampled reads which the buffer of a stripe
+     * holds until they are counted, a power of two. The reader which
+     * fills a buffer counts the samples and copies the hot objects,
+     * if no other thread does it. The oldest samples of a full buffer
+     * are overwritten.
+     */
+    int HOT_KEYS_BUFFER_SIZE = 128;
+
+    /**
+     * The distance between the counters of the stripes
+     * of the sampled reads, so they do not share a cache line.
+     */
+    int HOT_KEYS_PADDING = 8;
+
+    /**
+     * The number of the counted reads of a key since the last
+     * maintenance which makes the key hot and copied.
+     */
+    int HOT_KEY_MIN_SAMPLES = 8;
+
+    /**
+     * The default number of keys which are loaded
+     * in parallel by a warm-up.
+     */
+    int WARM_UP_PARALLELISM = 4;
+
+    /**
+     * The default maximum number of objects in one batch of the writer.
+     */
+    int WRITER_BATCH_SIZE = 100;
+
+    /**
+     * The default delay between the batches of the writer (milliseconds).
+     */
+    long WRITER_DELAY = 1000L;
+
+    /**
+     * The default maximum number of objects which wait for the writer.
+     */
+    int WRITER_MAX_PENDING = 10000;
+
+    /**
+     * The number of retries of a failed batch of the writer,
+     * the objects of the batch are dropped after them.
+     */
+    int WRITER_RETRIES = 5;
+
+    /**
+     * The time to wait for the last batches of the writer
+     * when the cache is closed (milliseconds).
+     */
+    long WRITER_SHUTDOWN_TIMEOUT = 10L * 1000L;
+
     /**
      * Time unit representing one hour.
      */
     TimeUnit SCHEDULER_TIME_UNIT = TimeUnit.HOURS;
+
+    /**
+     * The number of threads which sweep the cache segments in parallel.
+     */
+    int CLEANER_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The maximum number of keys in one swept segment.
+     */
+    int CLEANER_SEGMENT_SIZE = 1024;
 }
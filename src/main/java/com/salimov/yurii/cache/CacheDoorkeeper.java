@@ -0,0 +1,149 @@
+package com.salimov.yurii.cache;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.salimov.yurii.cache.CacheConstants.DOORKEEPER_BITS_PER_KEY;
+import static com.salimov.yurii.cache.CacheConstants.DOORKEEPER_HASHES;
+
+/**
+ * The class implements a set of methods for admitting keys
+ * into the cache. A key is admitted on its second sighting
+ * within the window, so the keys which are seen once
+ * do not cost a map entry.
+ * <p>
+ * The sightings are kept in two Bloom filters, the current and
+ * the previous one. When the current filter is full, the writer
+ * which sees it builds a new filter from the live keys and replaces
+ * the previous one, so every key in the cache is in one of the filters
+ * and {@link #mightContain(Object)} has no false negatives. The new
+ * filter is sized for the live keys and one window of sightings,
+ * so it is not saturated when the cache is bigger than the window.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheDoorkeeper {
+
+    /**
+     * The number of sightings in one window.
+     */
+    private final int window;
+
+    /**
+     * The number of sightings in the current filter.
+     */
+    private final LongAdder sightings;
+
+    /**
+     * The filter where the sightings are added.
+     */
+    private volatile BloomFilter current;
+
+    /**
+     * The filter of the previous window.
+     */
+    private volatile BloomFilter previous;
+
+    /**
+     * A rotation is in progress.
+     */
+    private final AtomicBoolean rotating;
+
+    /**
+     * Constructor.
+     *
+     * @param window the number of sightings in one window.
+     */
+    CacheDoorkeeper(final int window) {
+        this.window = window;
+        this.sightings = new LongAdder();
+        this.current = newFilter(0);
+        this.previous = newFilter(0);
+        this.rotating = new AtomicBoolean();
+    }
+
+    /**
+     * Records the sighting of the key.
+     *
+     * @param key the object key in the cache.
+     * @return true if the key was seen before, false otherwise.
+     */
+    boolean admit(final Object key) {
+        final boolean seen = this.previous.mightContain(key);
+        final boolean result = this.current.put(key) || seen;
+        if (!result) {
+            this.sightings.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the key might be in the cache.
+     *
+     * @param key the object key in the cache.
+     * @return false if the key is surely not in the cache, true otherwise.
+     */
+    boolean mightContain(final Object key) {
+        return this.current.mightContain(key) || this.previous.mightContain(key);
+    }
+
+    /**
+     * Checks if the current filter is full and needs a rotation.
+     *
+     * @return true if the current window is over, false otherwise.
+     */
+    boolean isFull() {
+        return (this.sightings.sum() >= this.window);
+    }
+
+    /**
+     * Starts a new window if the current one is over. Only one
+     * thread rotates, the others do not wait for it.
+     *
+     * @param keys the keys which are in the cache.
+     * @return true if the window was rotated, false otherwise.
+     */
+    boolean rotateIfFull(final Collection<Key> keys) {
+        boolean result = false;
+        if (isFull() && this.rotating.compareAndSet(false, true)) {
+            try {
+                if (isFull()) {
+                    rotate(keys);
+                    result = true;
+                }
+            } finally {
+                this.rotating.set(false);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Starts a new window. The live keys are added to the new filter
+     * before it replaces the current one, the keys which are added
+     * meanwhile stay in the previous filter until the next rotation.
+     *
+     * @param keys the keys which are in the cache.
+     */
+    void rotate(final Collection<Key> keys) {
+        final BloomFilter filter = newFilter(keys.size());
+        for (Key key : keys) {
+            filter.put(key.getValue());
+        }
+        this.sightings.reset();
+        this.previous = this.current;
+        this.current = filter;
+    }
+
+    /**
+     * Creates a new filter for the live keys and one window.
+     *
+     * @param keys the number of live keys which are added to the filter.
+     * @return The new filter (newer null).
+     */
+    private BloomFilter newFilter(final int keys) {
+        final int size = (int) Math.min((long) keys + this.window, Integer.MAX_VALUE);
+        return new BloomFilter(size, DOORKEEPER_BITS_PER_KEY, DOORKEEPER_HASHES);
+    }
+}
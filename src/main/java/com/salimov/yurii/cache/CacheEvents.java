@@ -0,0 +1,92 @@
+package com.salimov.yurii.cache;
+
+/**
+ * The class implements a set of methods for emitting events
+ * about cache operations and maintenance. On Java 8 the methods
+ * do nothing and are removed by the JIT, the multi-release jar
+ * replaces this class on Java 21 to emit Flight Recorder events.
+ * <p>
+ * An event is started by a begin method, which returns
+ * the handle of the event or null if the event is disabled,
+ * and is committed by the matching end method.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheEvents {
+
+    /**
+     * Private Constructor.
+     */
+    private CacheEvents() {
+    }
+
+    /**
+     * Starts the event of a get or put call.
+     *
+     * @return The handle of the event or null if it is disabled.
+     */
+    static Object beginOperation() {
+        return null;
+    }
+
+    /**
+     * Commits the event of a get or put call
+     * if the call was slower than the threshold.
+     *
+     * @param event     the handle of the event or null.
+     * @param operation the name of the call.
+     * @param key       the object key in the cache.
+     */
+    static void endOperation(final Object event, final String operation, final Object key) {
+    }
+
+    /**
+     * Starts the event of a maintenance run.
+     *
+     * @return The handle of the event or null if it is disabled.
+     */
+    static Object beginMaintenance() {
+        return null;
+    }
+
+    /**
+     * Commits the event of a maintenance run.
+     *
+     * @param event   the handle of the event or null.
+     * @param scanned the number of scanned objects.
+     * @param expired the number of removed dead objects.
+     * @param evicted the number of objects removed to the normal size.
+     */
+    static void endMaintenance(
+            final Object event, final long scanned,
+            final long expired, final long evicted
+    ) {
+    }
+
+    /**
+     * Starts the event of a rebuild of the cache information.
+     *
+     * @return The handle of the event or null if it is disabled.
+     */
+    static Object beginRebuild() {
+        return null;
+    }
+
+    /**
+     * Commits the event of a rebuild of the cache information.
+     *
+     * @param event   the handle of the event or null.
+     * @param entries the number of entries in the information.
+     */
+    static void endRebuild(final Object event, final int entries) {
+    }
+
+    /**
+     * Emits the event of a failed load.
+     *
+     * @param key       the object key in the cache.
+     * @param throwable the cause of the failure.
+     */
+    static void loadFailed(final Object key, final Throwable throwable) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.salimov.yurii.cache;
+
+/**
+ * The modes of the eviction of objects when the cache
+ * passes its maximum size, see {@link CacheConfig#setEviction(CacheEviction)}.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public enum CacheEviction {
+
+    /**
+     * The copies of all keys are sorted by the lifetime
+     * and removed in that order. Precise, but every run
+     * costs O(n log n) time and O(n) memory. The writes which
+     * pass the maximum size remove the sampled keys in the same order.
+     */
+    SORTED,
+
+    /**
+     * A few keys are sampled at random and the key with the oldest
+     * access is removed, until the cache is back to the normal size.
+     * An approximate LRU which costs O(samples) per removed key.
+     */
+    SAMPLED_ACCESS,
+
+    /**
+     * A few keys are sampled at random and the key which dies
+     * soonest is removed, until the cache is back to the normal size.
+     * Costs O(samples) per removed key.
+     */
+    SAMPLED_EXPIRY
+}
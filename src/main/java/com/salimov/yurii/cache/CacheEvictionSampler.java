@@ -0,0 +1,108 @@
+package com.salimov.yurii.cache;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The class chooses the keys to evict by sampling, see
+ * {@link CacheEviction#SAMPLED_ACCESS} and {@link CacheEviction#SAMPLED_EXPIRY}.
+ * A few keys are read at random from the table without the lock
+ * and without copying, and the worst of them is the victim.
+ * The "not found" keys are skipped, they have their own limit.
+ * The writers evict by the samples in every mode, with
+ * {@link CacheEviction#SORTED} the sampled key which comes first
+ * in the order of {@link KeyComparator} is the victim, as in the
+ * sorted run of the cleaner.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheEvictionSampler {
+
+    /**
+     * The table where the keys are saved.
+     */
+    private final KeyTable table;
+
+    /**
+     * The mode of the eviction.
+     */
+    private final CacheEviction eviction;
+
+    /**
+     * The number of keys sampled per victim.
+     */
+    private final int samples;
+
+    /**
+     * The order of the eviction in the sorted mode.
+     */
+    private final Comparator<Key> comparator;
+
+    /**
+     * Constructor.
+     *
+     * @param table    the table where the keys are saved.
+     * @param eviction the mode of the eviction.
+     * @param samples  the number of keys sampled per victim.
+     */
+    CacheEvictionSampler(
+            final KeyTable table,
+            final CacheEviction eviction,
+            final int samples
+    ) {
+        this.table = table;
+        this.eviction = eviction;
+        this.samples = (samples > 0) ? samples : CacheConstants.EVICTION_SAMPLES;
+        this.comparator = new KeyComparator();
+    }
+
+    /**
+     * Checks if the cleaner evicts by the samples
+     * rather than in the sorted order.
+     *
+     * @return true if the eviction is sampled, false otherwise.
+     */
+    boolean isSampled() {
+        return (this.eviction != CacheEviction.SORTED);
+    }
+
+    /**
+     * Samples the keys and returns the worst of them.
+     *
+     * @return The key to evict or null if no key is sampled.
+     */
+    Key next() {
+        final Random random = ThreadLocalRandom.current();
+        Key result = null;
+        Key key;
+        for (int i = 0; i < this.samples; i++) {
+            key = this.table.sample(random);
+            if (Validator.isNotNull(key) && !key.isNotFound() &&
+                    (Validator.isNull(result) || isWorse(key, result))) {
+                result = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the key is a better victim than the other one.
+     *
+     * @param key   the sampled key.
+     * @param other the current victim.
+     * @return true if the key should be evicted first, false otherwise.
+     */
+    private boolean isWorse(final Key key, final Key other) {
+        final boolean result;
+        if ((this.eviction == CacheEviction.SAMPLED_ACCESS) &&
+                (key.isAccessedBefore(other) || other.isAccessedBefore(key))) {
+            result = key.isAccessedBefore(other);
+        } else if (this.eviction == CacheEviction.SORTED) {
+            result = (this.comparator.compare(key, other) < 0);
+        } else {
+            result = (key.getTimeout() < other.getTimeout());
+        }
+        return result;
+    }
+}
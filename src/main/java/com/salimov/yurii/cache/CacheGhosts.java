@@ -0,0 +1,151 @@
+package com.salimov.yurii.cache;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.salimov.yurii.cache.CacheConstants.DOORKEEPER_BITS_PER_KEY;
+import static com.salimov.yurii.cache.CacheConstants.DOORKEEPER_HASHES;
+
+/**
+ * The class implements the shadow entries of the keys which were
+ * evicted from the cache to free the space. A miss of a shadow key
+ * would be a hit if the cache were bigger, so the number of such
+ * misses estimates the gain of more memory for the cache.
+ * <p>
+ * The keys are kept in two Bloom filters of one window each,
+ * so the shadow entries cost a few bits per key and remember
+ * the last one or two windows of the evicted keys.
+ * The evictions do not lock: the filters are concurrent and
+ * a new window is started by the one thread which wins the race,
+ * a key added to the old filter meanwhile stays in the previous one.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheGhosts {
+
+    /**
+     * The number of evicted keys in one window.
+     */
+    private volatile int window;
+
+    /**
+     * The number of evicted keys in the current filter.
+     */
+    private final LongAdder evicted;
+
+    /**
+     * The number of misses of the evicted keys.
+     */
+    private final LongAdder hits;
+
+    /**
+     * The filter where the evicted keys are added.
+     */
+    private volatile BloomFilter current;
+
+    /**
+     * The filter of the previous window.
+     */
+    private volatile BloomFilter previous;
+
+    /**
+     * A new window is being started.
+     */
+    private final AtomicBoolean rotating;
+
+    /**
+     * Constructor.
+     *
+     * @param window the number of evicted keys in one window.
+     */
+    CacheGhosts(final int window) {
+        this.window = Math.max(window, 1);
+        this.evicted = new LongAdder();
+        this.hits = new LongAdder();
+        this.current = newFilter();
+        this.previous = newFilter();
+        this.rotating = new AtomicBoolean();
+    }
+
+    /**
+     * Records the key which was evicted from the cache.
+     * Starts a new window if the current one is full
+     * and no other thread is starting it.
+     *
+     * @param key the evicted key.
+     */
+    void onEviction(final Key key) {
+        this.current.put(key);
+        this.evicted.increment();
+        if (isFull() && this.rotating.compareAndSet(false, true)) {
+            try {
+                if (isFull()) {
+                    this.evicted.reset();
+                    this.previous = this.current;
+                    this.current = newFilter();
+                }
+            } finally {
+                this.rotating.set(false);
+            }
+        }
+    }
+
+    /**
+     * Records the miss of the key in the cache,
+     * counts it if the key was evicted.
+     *
+     * @param key the missed key.
+     */
+    void onMiss(final Key key) {
+        if (this.current.mightContain(key) || this.previous.mightContain(key)) {
+            this.hits.increment();
+        }
+    }
+
+    /**
+     * Returns the number of misses of the evicted keys
+     * since the last call and resets it.
+     *
+     * @return The number of misses of the evicted keys.
+     */
+    long takeHits() {
+        return this.hits.sumThenReset();
+    }
+
+    /**
+     * Returns the number of evicted keys in one window.
+     *
+     * @return The number of evicted keys in one window.
+     */
+    int getWindow() {
+        return this.window;
+    }
+
+    /**
+     * Sets the number of evicted keys in one window,
+     * the new filters are sized for it.
+     *
+     * @param window the number of evicted keys in one window.
+     */
+    void setWindow(final int window) {
+        this.window = Math.max(window, 1);
+    }
+
+    /**
+     * Checks if the current window is over.
+     *
+     * @return true if the current filter holds a window of keys, false otherwise.
+     */
+    private boolean isFull() {
+        return (this.evicted.sum() >= this.window);
+    }
+
+    /**
+     * Creates a new filter for one window.
+     *
+     * @return The new filter (newer null).
+     */
+    private BloomFilter newFilter() {
+        return new BloomFilter(this.window, DOORKEEPER_BITS_PER_KEY, DOORKEEPER_HASHES);
+    }
+}
@@ -0,0 +1,268 @@
+package com.salimov.yurii.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+/**
+ * The class implements the detection of the most read keys.
+ * A sample of the reads is counted in a Space-Saving sketch
+ * of a fixed number of counters: a key without a counter takes
+ * the smallest one and inherits its count as the error, so the keys
+ * which are read most often stay in the sketch and their counts
+ * are overestimated by the error at most. The counts are halved
+ * by every maintenance run, so the sketch follows the changes
+ * of the traffic.
+ * <p>
+ * The readers do not lock and do not touch the sketch: a sampled
+ * read is written to the ring buffer of the stripe of its thread,
+ * the oldest samples of a full buffer are overwritten. The buffers
+ * are drained into the sketch under its lock when the keys are read,
+ * that is when the buffer of a reader is filled and
+ * by the maintenance of the cache.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheHotKeys {
+
+    /**
+     * The maximum number of counted keys.
+     */
+    private final int capacity;
+
+    /**
+     * The counters by key. Guarded by this object.
+     */
+    private final Map<Object, Counter> counters;
+
+    /**
+     * The sampled keys, one ring buffer per stripe.
+     */
+    private final AtomicReferenceArray<Object> buffers;
+
+    /**
+     * The number of the samples written to every buffer,
+     * padded, so the stripes do not share a cache line.
+     */
+    private final AtomicLongArray tails;
+
+    /**
+     * The number of the samples drained from every buffer.
+     * Guarded by this object.
+     */
+    private final long[] heads;
+
+    /**
+     * The mask of the stripe index.
+     */
+    private final int mask;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the maximum number of counted keys.
+     */
+    CacheHotKeys(final int capacity) {
+        final int count = Integer.highestOneBit(
+                Math.max(Runtime.getRuntime().availableProcessors() * 2 - 1, 1)
+        );
+        this.capacity = capacity;
+        this.counters = new HashMap<>();
+        this.buffers = new AtomicReferenceArray<>(count * CacheConstants.HOT_KEYS_BUFFER_SIZE);
+        this.tails = new AtomicLongArray((count + 1) * CacheConstants.HOT_KEYS_PADDING);
+        this.heads = new long[count];
+        this.mask = count - 1;
+    }
+
+    /**
+     * Checks if the current read is sampled.
+     * One of {@link CacheConstants#HOT_KEYS_SAMPLE_RATE} reads is sampled.
+     *
+     * @return true if the read should be offered, false otherwise.
+     */
+    boolean isSampled() {
+        return (ThreadLocalRandom.current().nextInt(CacheConstants.HOT_KEYS_SAMPLE_RATE) == 0);
+    }
+
+    /**
+     * Writes the sampled read of the key to the buffer
+     * of the current thread. Does not lock.
+     *
+     * @param key the object key in the cache.
+     * @return true if the buffer became full, so the samples
+     * should be drained before they are overwritten, false otherwise.
+     */
+    boolean offer(final Object key) {
+        final long id = Thread.currentThread().getId();
+        final int stripe = (int) (id ^ (id >>> 16)) & this.mask;
+        final long tail = this.tails.getAndIncrement(getTailIndex(stripe));
+        this.buffers.lazySet(getBufferIndex(stripe, tail), key);
+        return (((tail + 1) & (CacheConstants.HOT_KEYS_BUFFER_SIZE - 1)) == 0);
+    }
+
+    /**
+     * Counts the sampled reads which are written to the buffers
+     * since the last drain.
+     */
+    synchronized void drain() {
+        final int size = CacheConstants.HOT_KEYS_BUFFER_SIZE;
+        long tail;
+        Object key;
+        for (int stripe = 0; stripe < this.heads.length; stripe++) {
+            tail = this.tails.get(getTailIndex(stripe));
+            for (long i = Math.max(this.heads[stripe], tail - size); i < tail; i++) {
+                key = this.buffers.getAndSet(getBufferIndex(stripe, i), null);
+                if (Validator.isNotNull(key)) {
+                    count(key);
+                }
+            }
+            this.heads[stripe] = tail;
+        }
+    }
+
+    /**
+     * Returns the counted keys from the most read one.
+     * Drains the buffers first.
+     *
+     * @return The keys (newer null).
+     */
+    synchronized List<Object> getKeys() {
+        drain();
+        return this.counters.values().stream()
+                .sorted(Comparator.reverseOrder())
+                .map(counter -> counter.key)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the keys which were surely sampled at least
+     * the given number of times since the counts were halved.
+     * Drains the buffers first.
+     *
+     * @param samples the minimum number of the sampled reads.
+     * @return The hot keys (newer null).
+     */
+    synchronized Collection<Object> getKeys(final long samples) {
+        drain();
+        final Collection<Object> result = new ArrayList<>();
+        for (Counter counter : this.counters.values()) {
+            if (counter.count - counter.error >= samples) {
+                result.add(counter.key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Halves the counts and drops the keys which are not counted anymore.
+     */
+    synchronized void decay() {
+        final Iterator<Counter> iterator = this.counters.values().iterator();
+        Counter counter;
+        while (iterator.hasNext()) {
+            counter = iterator.next();
+            counter.count /= 2;
+            counter.error /= 2;
+            if (counter.count == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Counts the sampled read of the key. Replaces the key
+     * with the smallest count if all counters are taken.
+     * Called under the lock of this object.
+     *
+     * @param key the object key in the cache.
+     */
+    private void count(final Object key) {
+        final Counter counter = this.counters.get(key);
+        if (Validator.isNotNull(counter)) {
+            counter.count++;
+        } else if (this.counters.size() < this.capacity) {
+            this.counters.put(key, new Counter(key, 1, 0));
+        } else {
+            final Counter min = Collections.min(this.counters.values());
+            this.counters.remove(min.key);
+            this.counters.put(key, new Counter(key, min.count + 1, min.count));
+        }
+    }
+
+    /**
+     * Returns the index of the number of the samples
+     * written to the buffer of the stripe.
+     *
+     * @param stripe the index of the stripe.
+     * @return The index in the padded array.
+     */
+    private static int getTailIndex(final int stripe) {
+        return (stripe + 1) * CacheConstants.HOT_KEYS_PADDING;
+    }
+
+    /**
+     * Returns the index of the slot of the sample in the buffers.
+     *
+     * @param stripe the index of the stripe.
+     * @param sample the number of the sample in the stripe.
+     * @return The index in the buffers.
+     */
+    private static int getBufferIndex(final int stripe, final long sample) {
+        final int size = CacheConstants.HOT_KEYS_BUFFER_SIZE;
+        return stripe * size + (int) (sample & (size - 1));
+    }
+
+    /**
+     * The estimated number of the sampled reads of a key.
+     */
+    private static final class Counter implements Comparable<Counter> {
+
+        /**
+         * The object key in the cache.
+         */
+        private final Object key;
+
+        /**
+         * The estimated number of the sampled reads.
+         */
+        private long count;
+
+        /**
+         * The maximum overestimation of the count.
+         */
+        private long error;
+
+        /**
+         * Constructor.
+         *
+         * @param key   the object key in the cache.
+         * @param count the estimated number of the sampled reads.
+         * @param error the maximum overestimation of the count.
+         */
+        private Counter(final Object key, final long count, final long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        /**
+         * Compares the counters by the count.
+         *
+         * @param other the counter to compare.
+         * @return The result of the comparison of the counts.
+         */
+        @Override
+        public int compareTo(final Counter other) {
+            return Long.compare(this.count, other.count);
+        }
+    }
+}
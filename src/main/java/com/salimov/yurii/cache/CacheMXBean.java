@@ -0,0 +1,153 @@
+package com.salimov.yurii.cache;
+
+/**
+ * The management interface of a cache. Every cache registers
+ * its MBean in the platform MBean server under the name
+ * {@code com.salimov.yurii.cache:type=TemporaryCache,name=<cache name>},
+ * so the cache can be watched and tuned with JConsole or any JMX client
+ * without a restart.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public interface CacheMXBean {
+
+    /**
+     * Returns the name of the cache.
+     *
+     * @return The name of the cache.
+     */
+    String getName();
+
+    /**
+     * Returns the number of objects in the cache.
+     *
+     * @return The size of the cache.
+     */
+    int getSize();
+
+    /**
+     * Returns the estimated memory of the cache entries,
+     * without the keys and objects themselves.
+     *
+     * @return The estimated memory (bytes).
+     */
+    long getEstimatedMemory();
+
+    /**
+     * Returns the maximum size of objects in the cache.
+     *
+     * @return The maximum size of objects.
+     */
+    int getMaxSize();
+
+    /**
+     * Sets the maximum size of objects in the cache.
+     * The maintenance is triggered at once and cleans the cache
+     * to the new size, but the run starts not sooner than
+     * the minimum maintenance delay after the last one.
+     * If a run is in progress, the cache is cleaned by that run
+     * or by the next scheduled one.
+     *
+     * @param maxSize the maximum size of objects.
+     */
+    void setMaxSize(int maxSize);
+
+    /**
+     * Returns the lifetime of objects which are saved without a lifetime.
+     *
+     * @return The default lifetime (milliseconds).
+     */
+    long getDefaultTimeout();
+
+    /**
+     * Sets the lifetime of objects which are saved without a lifetime.
+     * The saved objects keep their lifetime.
+     *
+     * @param defaultTimeout the default lifetime (milliseconds).
+     */
+    void setDefaultTimeout(long defaultTimeout);
+
+    /**
+     * Returns the maximum interval between maintenance runs.
+     *
+     * @return The maintenance interval (milliseconds).
+     */
+    long getMaintenanceInterval();
+
+    /**
+     * Sets the maximum interval between maintenance runs,
+     * the runs are more often while the cache is under pressure.
+     *
+     * @param maintenanceInterval the maintenance interval (milliseconds).
+     */
+    void setMaintenanceInterval(long maintenanceInterval);
+
+    /**
+     * Returns the current delay before the next maintenance run.
+     *
+     * @return The current maintenance delay (milliseconds).
+     */
+    long getMaintenanceDelay();
+
+    /**
+     * Returns the number of reads which found an object.
+     *
+     * @return The number of hits.
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of reads which found nothing.
+     *
+     * @return The number of misses.
+     */
+    long getMissCount();
+
+    /**
+     * Returns the ratio of hits to all reads.
+     *
+     * @return The hit rate from 0 to 1.
+     */
+    double getHitRate();
+
+    /**
+     * Returns the number of objects removed because the cache was too big.
+     *
+     * @return The number of evictions.
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the number of objects removed because they were dead.
+     *
+     * @return The number of expirations.
+     */
+    long getExpirationCount();
+
+    /**
+     * Returns the number of maintenance runs.
+     *
+     * @return The number of maintenance runs.
+     */
+    long getMaintenanceCount();
+
+    /**
+     * Returns the duration of the last maintenance run.
+     *
+     * @return The duration of the last run (milliseconds).
+     */
+    long getLastMaintenanceDuration();
+
+    /**
+     * Returns the number of objects reclaimed by the last maintenance run.
+     *
+     * @return The number of reclaimed objects.
+     */
+    long getLastMaintenanceReclaimed();
+
+    /**
+     * Runs the maintenance of the cache as soon as possible,
+     * but not sooner than the minimum delay after the last run.
+     */
+    void cleanUp();
+}
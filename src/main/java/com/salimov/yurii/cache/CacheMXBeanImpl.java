@@ -0,0 +1,310 @@
+package com.salimov.yurii.cache;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.salimov.yurii.cache.CacheConstants.ENTRY_MEMORY_OVERHEAD;
+import static com.salimov.yurii.cache.CacheConstants.MBEAN_DOMAIN;
+
+/**
+ * The class implements the management interface of a cache.
+ * The settings are changed in the cache, its cleaner and
+ * its maintenance executor, which read them on every run.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheMXBeanImpl implements CacheMXBean {
+
+    /**
+     * The number of caches which are named by default.
+     */
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    /**
+     * The name of the cache.
+     */
+    private final String name;
+
+    /**
+     * The managed cache.
+     */
+    private final TemporaryCacheImpl cache;
+
+    /**
+     * The cleaner of the cache.
+     */
+    private final CacheCleaner cleaner;
+
+    /**
+     * The executor which runs the cache maintenance.
+     */
+    private final CacheScheduledExecutor executor;
+
+    /**
+     * The name of the registered MBean or null.
+     */
+    private volatile ObjectName objectName;
+
+    /**
+     * Constructor.
+     *
+     * @param name     the name of the cache or null.
+     * @param cache    the managed cache.
+     * @param cleaner  the cleaner of the cache.
+     * @param executor the executor which runs the cache maintenance.
+     */
+    CacheMXBeanImpl(
+            final String name,
+            final TemporaryCacheImpl cache,
+            final CacheCleaner cleaner,
+            final CacheScheduledExecutor executor
+    ) {
+        this.name = Validator.isNotNull(name) ? name :
+                "TemporaryCache-" + COUNTER.incrementAndGet();
+        this.cache = cache;
+        this.cleaner = cleaner;
+        this.executor = executor;
+    }
+
+    /**
+     * Registers the MBean in the platform MBean server.
+     * The cache works without the MBean if it cannot be registered,
+     * for example if the name is taken.
+     *
+     * @return The name of the registered MBean or null.
+     */
+    ObjectName register() {
+        ObjectName result = null;
+        try {
+            final ObjectName objectName = new ObjectName(
+                    MBEAN_DOMAIN + ":type=TemporaryCache,name=" +
+                            ObjectName.quote(this.name)
+            );
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, objectName);
+            result = objectName;
+        } catch (JMException ex) {
+            result = null;
+        }
+        this.objectName = result;
+        return result;
+    }
+
+    /**
+     * Unregisters the MBean from the platform MBean server
+     * if it was registered.
+     */
+    void unregister() {
+        final ObjectName objectName = this.objectName;
+        if (Validator.isNotNull(objectName)) {
+            this.objectName = null;
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException ex) {
+                // the MBean is already unregistered
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the cache.
+     *
+     * @return The name of the cache.
+     */
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the number of objects in the cache.
+     *
+     * @return The size of the cache.
+     */
+    @Override
+    public int getSize() {
+        return this.cache.getSize();
+    }
+
+    /**
+     * Returns the estimated memory of the cache entries,
+     * without the keys and objects themselves.
+     *
+     * @return The estimated memory (bytes).
+     */
+    @Override
+    public long getEstimatedMemory() {
+        return this.cache.keySet().size() * ENTRY_MEMORY_OVERHEAD;
+    }
+
+    /**
+     * Returns the maximum size of objects in the cache.
+     *
+     * @return The maximum size of objects.
+     */
+    @Override
+    public int getMaxSize() {
+        return this.cleaner.getMaxSize();
+    }
+
+    /**
+     * Sets the maximum size of objects in the cache.
+     * The maintenance is triggered at once and cleans the cache
+     * to the new size, but the run starts not sooner than
+     * {@link CacheConstants#SCHEDULER_MIN_DELAY} after the last one.
+     * If a run is in progress, the cache is cleaned by that run
+     * or by the next scheduled one.
+     *
+     * @param maxSize the maximum size of objects.
+     */
+    @Override
+    public void setMaxSize(final int maxSize) {
+        this.cleaner.setMaxSize(maxSize);
+        this.executor.setHighWaterMark(this.cleaner.getMaxSize());
+        this.executor.trigger();
+    }
+
+    /**
+     * Returns the lifetime of objects which are saved without a lifetime.
+     *
+     * @return The default lifetime (milliseconds).
+     */
+    @Override
+    public long getDefaultTimeout() {
+        return this.cache.getDefaultTimeout();
+    }
+
+    /**
+     * Sets the lifetime of objects which are saved without a lifetime.
+     * The saved objects keep their lifetime.
+     *
+     * @param defaultTimeout the default lifetime (milliseconds).
+     */
+    @Override
+    public void setDefaultTimeout(final long defaultTimeout) {
+        this.cache.setDefaultTimeout(defaultTimeout);
+    }
+
+    /**
+     * Returns the maximum interval between maintenance runs.
+     *
+     * @return The maintenance interval (milliseconds).
+     */
+    @Override
+    public long getMaintenanceInterval() {
+        return this.executor.getPeriod();
+    }
+
+    /**
+     * Sets the maximum interval between maintenance runs,
+     * the runs are more often while the cache is under pressure.
+     *
+     * @param maintenanceInterval the maintenance interval (milliseconds).
+     */
+    @Override
+    public void setMaintenanceInterval(final long maintenanceInterval) {
+        this.executor.setPeriod(maintenanceInterval);
+    }
+
+    /**
+     * Returns the current delay before the next maintenance run.
+     *
+     * @return The current maintenance delay (milliseconds).
+     */
+    @Override
+    public long getMaintenanceDelay() {
+        return this.executor.getDelay();
+    }
+
+    /**
+     * Returns the number of reads which found an object.
+     *
+     * @return The number of hits.
+     */
+    @Override
+    public long getHitCount() {
+        return this.cache.getStatistics().getHitCount();
+    }
+
+    /**
+     * Returns the number of reads which found nothing.
+     *
+     * @return The number of misses.
+     */
+    @Override
+    public long getMissCount() {
+        return this.cache.getStatistics().getMissCount();
+    }
+
+    /**
+     * Returns the ratio of hits to all reads.
+     *
+     * @return The hit rate from 0 to 1.
+     */
+    @Override
+    public double getHitRate() {
+        return this.cache.getStatistics().getHitRate();
+    }
+
+    /**
+     * Returns the number of objects removed because the cache was too big.
+     *
+     * @return The number of evictions.
+     */
+    @Override
+    public long getEvictionCount() {
+        return this.cache.getStatistics().getEvictionCount();
+    }
+
+    /**
+     * Returns the number of objects removed because they were dead.
+     *
+     * @return The number of expirations.
+     */
+    @Override
+    public long getExpirationCount() {
+        return this.cache.getStatistics().getExpirationCount();
+    }
+
+    /**
+     * Returns the number of maintenance runs.
+     *
+     * @return The number of maintenance runs.
+     */
+    @Override
+    public long getMaintenanceCount() {
+        return this.cache.getStatistics().getSweepCount();
+    }
+
+    /**
+     * Returns the duration of the last maintenance run.
+     *
+     * @return The duration of the last run (milliseconds).
+     */
+    @Override
+    public long getLastMaintenanceDuration() {
+        return this.cache.getStatistics().getLastSweepDuration();
+    }
+
+    /**
+     * Returns the number of objects reclaimed by the last maintenance run.
+     *
+     * @return The number of reclaimed objects.
+     */
+    @Override
+    public long getLastMaintenanceReclaimed() {
+        return this.cache.getStatistics().getLastSweepReclaimed();
+    }
+
+    /**
+     * Runs the maintenance of the cache as soon as possible,
+     * but not sooner than the minimum delay after the last run.
+     */
+    @Override
+    public void cleanUp() {
+        this.executor.trigger();
+    }
+}
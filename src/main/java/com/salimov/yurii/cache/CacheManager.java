@@ -0,0 +1,293 @@
+package com.salimov.yurii.cache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class implements a manager of named cache regions.
+ * Every region is a cache with its own configuration,
+ * the maintenance of all regions runs in one scheduler
+ * and one sweep pool of the manager, so the number of threads
+ * does not grow with the number of regions. The delays of
+ * the regions are spread at random, so the regions are not
+ * maintained at the same moment. The manager is closed
+ * with all its regions and threads.
+ * <p>
+ * The manager can have a memory budget of all regions, then the
+ * maximum size of the regions is set from the budget and the budget
+ * is rebalanced periodically to the regions which would gain
+ * the most hits from more memory.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public final class CacheManager implements AutoCloseable {
+
+    /**
+     * The regions by name.
+     */
+    private final Map<String, TemporaryCacheImpl> regions;
+
+    /**
+     * The scheduler of the maintenance of all regions.
+     */
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * The pool where the regions are swept.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The memory budget of all regions (bytes), 0 if there is no budget.
+     */
+    private final long memoryBudget;
+
+    /**
+     * The balancer of the memory budget or null if there is no budget.
+     */
+    private final CacheMemoryBalancer balancer;
+
+    /**
+     * The manager is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructor. The scheduler has the default number of threads.
+     */
+    public CacheManager() {
+        this(CacheConstants.MANAGER_THREADS);
+    }
+
+    /**
+     * Constructor. The manager does not have a memory budget.
+     *
+     * @param threads the number of threads of the scheduler,
+     *                the default number is used if it is not positive.
+     */
+    public CacheManager(final int threads) {
+        this(threads, 0L);
+    }
+
+    /**
+     * Constructor. The memory is estimated
+     * as by {@link CacheMXBean#getEstimatedMemory()}.
+     *
+     * @param threads      the number of threads of the scheduler,
+     *                     the default number is used if it is not positive.
+     * @param memoryBudget the memory budget of all regions (bytes),
+     *                     there is no budget if it is not positive.
+     */
+    public CacheManager(final int threads, final long memoryBudget) {
+        this.regions = new ConcurrentHashMap<>();
+        this.scheduler = new ScheduledThreadPoolExecutor(
+                (threads > 0) ? threads : CacheConstants.MANAGER_THREADS,
+                CacheThreads.newThreadFactory()
+        );
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.pool = new ForkJoinPool(CacheConstants.CLEANER_PARALLELISM);
+        this.memoryBudget = Math.max(memoryBudget, 0L);
+        this.balancer = (this.memoryBudget > 0) ?
+                new CacheMemoryBalancer(this.memoryBudget) : null;
+        if (Validator.isNotNull(this.balancer)) {
+            final long period = CacheConstants.MANAGER_REBALANCE_PERIOD;
+            this.scheduler.scheduleWithFixedDelay(
+                    this.balancer, period, period, TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Creates a new region with the default configuration.
+     *
+     * @param name the name of the region.
+     * @return The new region (newer null).
+     * @throws IllegalArgumentException if the name is empty.
+     * @throws IllegalStateException    if the region exists or the manager is closed.
+     */
+    public TemporaryCache createRegion(final String name) {
+        return createRegion(name, new CacheConfig());
+    }
+
+    /**
+     * Creates a new region with the configuration.
+     * The configuration is copied and the name of the copy is set
+     * to the name of the region, so the MBean of the region is
+     * registered under it. The given configuration is not changed.
+     * If the manager has a memory budget, the budget is shared
+     * equally between the regions and the maximum size of the
+     * configuration is replaced by the share of the region.
+     *
+     * @param name   the name of the region.
+     * @param config the configuration of the region.
+     * @return The new region (newer null).
+     * @throws IllegalArgumentException if the name is empty.
+     * @throws IllegalStateException    if the region exists or the manager is closed.
+     */
+    public synchronized TemporaryCache createRegion(
+            final String name,
+            final CacheConfig config
+    ) {
+        if (!Validator.isNotEmpty(name)) {
+            throw new IllegalArgumentException("The name of the region must not be empty");
+        }
+        if (this.closed) {
+            throw new IllegalStateException("The cache manager is closed");
+        }
+        if (this.regions.containsKey(name)) {
+            throw new IllegalStateException("The region " + name + " already exists");
+        }
+        final CacheConfig _config = Validator.isNotNull(config) ?
+                new CacheConfig(config) : new CacheConfig();
+        _config.setName(name);
+        final TemporaryCacheImpl result = new TemporaryCacheImpl(_config, this);
+        this.regions.put(name, result);
+        if (Validator.isNotNull(this.balancer)) {
+            this.balancer.add(name, result, _config);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the region with the name.
+     *
+     * @param name the name of the region.
+     * @return The region or null.
+     */
+    public TemporaryCache getRegion(final String name) {
+        return Validator.isNotNull(name) ? this.regions.get(name) : null;
+    }
+
+    /**
+     * Returns the names of the regions.
+     *
+     * @return The unmodifiable set of names (newer null).
+     */
+    public Set<String> getRegionNames() {
+        return Collections.unmodifiableSet(this.regions.keySet());
+    }
+
+    /**
+     * Closes the region and removes it from the manager.
+     *
+     * @param name the name of the region.
+     * @return true if the region was removed, false otherwise.
+     */
+    public synchronized boolean destroyRegion(final String name) {
+        final TemporaryCacheImpl region = Validator.isNotNull(name) ?
+                this.regions.get(name) : null;
+        return Validator.isNotNull(region) && destroyRegion(name, region);
+    }
+
+    /**
+     * Closes the region and removes it from the manager
+     * if it is still the region with the name.
+     *
+     * @param name   the name of the region.
+     * @param region the region to close.
+     * @return true if the region was removed, false otherwise.
+     */
+    synchronized boolean destroyRegion(final String name, final TemporaryCacheImpl region) {
+        final boolean result = this.regions.remove(name, region);
+        if (result && Validator.isNotNull(this.balancer)) {
+            this.balancer.remove(name);
+        }
+        region.shutdown();
+        return result;
+    }
+
+    /**
+     * Returns the memory budget of all regions.
+     *
+     * @return The memory budget (bytes), 0 if there is no budget.
+     */
+    public long getMemoryBudget() {
+        return this.memoryBudget;
+    }
+
+    /**
+     * Returns the estimated memory which the region can take.
+     *
+     * @param name the name of the region.
+     * @return The memory limit (bytes), 0 if there is no region.
+     */
+    public long getMemoryLimit(final String name) {
+        final TemporaryCacheImpl region = Validator.isNotNull(name) ?
+                this.regions.get(name) : null;
+        return Validator.isNotNull(region) ? region.getMemoryLimit() : 0L;
+    }
+
+    /**
+     * Returns the scheduler of the maintenance of all regions.
+     *
+     * @return The scheduler (newer null).
+     */
+    ScheduledThreadPoolExecutor getScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * Returns the pool where the regions are swept.
+     *
+     * @return The pool (newer null).
+     */
+    ForkJoinPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Rebalances the memory budget at once,
+     * does nothing if there is no budget.
+     */
+    void rebalance() {
+        if (Validator.isNotNull(this.balancer)) {
+            this.balancer.run();
+        }
+    }
+
+    /**
+     * Checks if the manager is closed.
+     *
+     * @return true if the manager is closed, false otherwise.
+     */
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Closes all regions and shuts down the threads of the manager.
+     * Waits for the running maintenance to complete.
+     * Does nothing if the manager is already closed.
+     */
+    @Override
+    public synchronized void close() {
+        if (!this.closed) {
+            this.closed = true;
+            this.regions.values().forEach(TemporaryCacheImpl::shutdown);
+            this.regions.clear();
+            this.scheduler.shutdown();
+            this.pool.shutdown();
+            awaitTermination();
+        }
+    }
+
+    /**
+     * Waits for the threads of the manager to terminate.
+     */
+    private void awaitTermination() {
+        try {
+            final long timeout = CacheConstants.MANAGER_SHUTDOWN_TIMEOUT;
+            if (this.scheduler.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                this.pool.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
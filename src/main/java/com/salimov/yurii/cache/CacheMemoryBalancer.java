@@ -0,0 +1,194 @@
+package com.salimov.yurii.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.salimov.yurii.cache.CacheConstants.ENTRY_MEMORY_OVERHEAD;
+import static com.salimov.yurii.cache.CacheConstants.MANAGER_REBALANCE_STEP;
+
+/**
+ * The class implements the balancer of the memory budget
+ * of a manager between its regions. The budget is shared equally
+ * when a region is added or removed, then every rebalance moves
+ * a step of the budget from the region with the lowest gain
+ * to the region with the highest gain of more memory.
+ * <p>
+ * The gain of a region is the number of misses of its recently
+ * evicted keys per byte of the tracked keys, which estimates
+ * the hits per byte the region would have with more memory.
+ * The minimum and the maximum memory of regions are respected.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheMemoryBalancer implements Runnable {
+
+    /**
+     * The memory budget of all regions (bytes).
+     */
+    private final long budget;
+
+    /**
+     * The regions by name in the order they were added.
+     */
+    private final Map<String, Region> regions;
+
+    /**
+     * Constructor.
+     *
+     * @param budget the memory budget of all regions (bytes).
+     */
+    CacheMemoryBalancer(final long budget) {
+        this.budget = budget;
+        this.regions = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds the region and shares the budget equally.
+     *
+     * @param name   the name of the region.
+     * @param cache  the cache of the region.
+     * @param config the configuration of the region.
+     */
+    synchronized void add(
+            final String name,
+            final TemporaryCacheImpl cache,
+            final CacheConfig config
+    ) {
+        final long max = (config.getMaxMemory() > 0) ?
+                Math.min(config.getMaxMemory(), this.budget) : this.budget;
+        final long min = Math.min(config.getMinMemory(), max);
+        this.regions.put(name, new Region(cache, min, max));
+        share();
+    }
+
+    /**
+     * Removes the region and shares the budget equally.
+     *
+     * @param name the name of the region.
+     */
+    synchronized void remove(final String name) {
+        if (Validator.isNotNull(this.regions.remove(name))) {
+            share();
+        }
+    }
+
+    /**
+     * Moves a step of the budget from the region with the lowest gain
+     * to the region with the highest gain. The budget which is not
+     * taken by the regions is given to the region with the highest gain.
+     */
+    @Override
+    public synchronized void run() {
+        Region donor = null;
+        Region receiver = null;
+        long used = 0L;
+        for (Region region : this.regions.values()) {
+            region.measure();
+            used += region.limit;
+            if ((region.limit > region.min) &&
+                    (Validator.isNull(donor) || (region.gain < donor.gain))) {
+                donor = region;
+            }
+            if ((region.limit < region.max) &&
+                    (Validator.isNull(receiver) || (region.gain > receiver.gain))) {
+                receiver = region;
+            }
+        }
+        if (Validator.isNotNull(receiver) && (receiver.gain > 0.0)) {
+            final long free = Math.max(this.budget - used, 0L);
+            long step = Math.min(
+                    (long) (this.budget * MANAGER_REBALANCE_STEP),
+                    receiver.max - receiver.limit
+            );
+            long taken = 0L;
+            if ((free < step) && Validator.isNotNull(donor) &&
+                    (donor != receiver) && (donor.gain < receiver.gain)) {
+                taken = Math.min(step - free, donor.limit - donor.min);
+                donor.resize(donor.limit - taken);
+            }
+            step = Math.min(step, free + taken);
+            if (step > 0) {
+                receiver.resize(receiver.limit + step);
+            }
+        }
+    }
+
+    /**
+     * Shares the budget equally between the regions
+     * within their minimum and maximum memory.
+     */
+    private void share() {
+        if (!this.regions.isEmpty()) {
+            final long share = this.budget / this.regions.size();
+            for (Region region : this.regions.values()) {
+                region.resize(Math.max(Math.min(share, region.max), region.min));
+                region.measure();
+            }
+        }
+    }
+
+    /**
+     * The region with its memory limits and its last gain.
+     */
+    private static final class Region {
+
+        /**
+         * The cache of the region.
+         */
+        private final TemporaryCacheImpl cache;
+
+        /**
+         * The minimum memory of the region (bytes).
+         */
+        private final long min;
+
+        /**
+         * The maximum memory of the region (bytes).
+         */
+        private final long max;
+
+        /**
+         * The current memory limit of the region (bytes).
+         */
+        private long limit;
+
+        /**
+         * The misses of the evicted keys per byte of the tracked keys
+         * since the last measure.
+         */
+        private double gain;
+
+        /**
+         * Constructor.
+         *
+         * @param cache the cache of the region.
+         * @param min   the minimum memory of the region (bytes).
+         * @param max   the maximum memory of the region (bytes).
+         */
+        private Region(final TemporaryCacheImpl cache, final long min, final long max) {
+            this.cache = cache;
+            this.min = min;
+            this.max = max;
+            this.limit = cache.getMemoryLimit();
+        }
+
+        /**
+         * Measures the gain of more memory since the last measure.
+         */
+        private void measure() {
+            final long hits = this.cache.takeGhostHits();
+            final long window = Math.max(this.cache.getGhostWindow(), 1);
+            this.gain = (double) hits / (window * ENTRY_MEMORY_OVERHEAD);
+        }
+
+        /**
+         * Sets the memory limit of the region.
+         *
+         * @param limit the memory limit (bytes).
+         */
+        private void resize(final long limit) {
+            this.limit = limit;
+            this.cache.setMemoryLimit(limit);
+        }
+    }
+}
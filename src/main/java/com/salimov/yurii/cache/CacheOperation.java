@@ -0,0 +1,39 @@
+package com.salimov.yurii.cache;
+
+/**
+ * The operations of the cache whose latency is recorded.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public enum CacheOperation {
+
+    /**
+     * A read which found an object.
+     */
+    GET_HIT,
+
+    /**
+     * A read which found nothing.
+     */
+    GET_MISS,
+
+    /**
+     * A save of an object.
+     */
+    PUT,
+
+    /**
+     * A load of an object by the asynchronous cache.
+     */
+    LOAD,
+
+    /**
+     * A removal of an object.
+     */
+    REMOVE,
+
+    /**
+     * A maintenance run.
+     */
+    MAINTENANCE
+}
@@ -0,0 +1,179 @@
+package com.salimov.yurii.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The class implements the read copies of the hot objects.
+ * Every stripe holds its own copies and a reader reads the stripe
+ * of its thread, so the readers of a hot key on different cores
+ * do not read the same table bin and the same key.
+ * The stripes are padded, so they do not share a cache line.
+ * <p>
+ * The copies are changed rarely and the maps of the stripes are
+ * replaced as a whole. A copy is made and dropped under the map
+ * lock of its key, so a write of the key never leaves a stale copy.
+ * A copy keeps the saved key, so a read of a copy sees the lifetime
+ * of the key and can extend it and record the access as a read
+ * of the key does.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheReplicas {
+
+    /**
+     * The stripes where the copies are held.
+     */
+    private final Stripe[] stripes;
+
+    /**
+     * The mask of the stripe index.
+     */
+    private final int mask;
+
+    /**
+     * The keys which have copies.
+     */
+    private volatile Set<Object> keys;
+
+    /**
+     * Constructor.
+     */
+    CacheReplicas() {
+        final int count = Integer.highestOneBit(
+                Math.max(Runtime.getRuntime().availableProcessors() * 2 - 1, 1)
+        );
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.mask = count - 1;
+        this.keys = Collections.emptySet();
+    }
+
+    /**
+     * Returns the copy of the key from the stripe of the current thread.
+     *
+     * @param key the object key in the cache.
+     * @param now the current time (milliseconds).
+     * @return The saved key or null if the key has no live copy.
+     */
+    Key get(final Object key, final long now) {
+        final Key replica = getStripe().replicas.get(key);
+        return (Validator.isNotNull(replica) && !replica.isDead(now)) ? replica : null;
+    }
+
+    /**
+     * Copies the object of the key into every stripe.
+     * Called under the map lock of the key.
+     *
+     * @param key the saved key.
+     */
+    synchronized void put(final Key key) {
+        final Object value = key.getValue();
+        for (Stripe stripe : this.stripes) {
+            final Map<Object, Key> replicas = new HashMap<>(stripe.replicas);
+            replicas.put(value, key);
+            stripe.replicas = replicas;
+        }
+        final Set<Object> keys = new HashSet<>(this.keys);
+        keys.add(value);
+        this.keys = keys;
+    }
+
+    /**
+     * Drops the copies of the key if it has them.
+     * Called under the map lock of the key.
+     *
+     * @param key the object key in the cache.
+     */
+    void invalidate(final Object key) {
+        if (contains(key)) {
+            remove(Collections.singleton(key));
+        }
+    }
+
+    /**
+     * Drops the copies of the keys which are not hot anymore.
+     *
+     * @param hot the hot keys.
+     */
+    void retain(final Collection<Object> hot) {
+        final Set<Object> cold = new HashSet<>(this.keys);
+        cold.removeAll(hot);
+        if (!cold.isEmpty()) {
+            remove(cold);
+        }
+    }
+
+    /**
+     * Checks if the key has copies.
+     *
+     * @param key the object key in the cache.
+     * @return true if the key has copies, false otherwise.
+     */
+    boolean contains(final Object key) {
+        return this.keys.contains(key);
+    }
+
+    /**
+     * Returns the keys which have copies.
+     *
+     * @return The keys (newer null).
+     */
+    Set<Object> getKeys() {
+        return Collections.unmodifiableSet(this.keys);
+    }
+
+    /**
+     * Drops the copies of the keys from every stripe.
+     *
+     * @param keys the object keys in the cache.
+     */
+    private synchronized void remove(final Collection<Object> keys) {
+        for (Stripe stripe : this.stripes) {
+            final Map<Object, Key> replicas = new HashMap<>(stripe.replicas);
+            replicas.keySet().removeAll(keys);
+            stripe.replicas = replicas;
+        }
+        final Set<Object> result = new HashSet<>(this.keys);
+        result.removeAll(keys);
+        this.keys = result;
+    }
+
+    /**
+     * Returns the stripe of the current thread.
+     *
+     * @return The stripe (newer null).
+     */
+    private Stripe getStripe() {
+        final long id = Thread.currentThread().getId();
+        return this.stripes[(int) (id ^ (id >>> 16)) & this.mask];
+    }
+
+    /**
+     * The copies of one stripe, padded on both sides.
+     */
+    @SuppressWarnings("unused")
+    private static final class Stripe {
+
+        /**
+         * The padding before the copies.
+         */
+        private long p1, p2, p3, p4, p5, p6, p7;
+
+        /**
+         * The copies by key.
+         */
+        private volatile Map<Object, Key> replicas = Collections.emptyMap();
+
+        /**
+         * The padding after the copies.
+         */
+        private long q1, q2, q3, q4, q5, q6, q7;
+    }
+}
@@ -1,14 +1,32 @@
 package com.salimov.yurii.cache;
 
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.salimov.yurii.cache.CacheConstants.*;
 
 /**
  * The class implements a set of methods for creating and starting
  * a new ScheduledExecutorService for working with the incoming command.
+ * The delay between executions adapts to the cache pressure:
+ * it is halved while the command has work to do and doubled
+ * while the cache is idle. The command is also triggered
+ * when the cache passes its high-water mark, when too many writes
+ * were made or too many objects are estimated to be dead since
+ * the last execution, both in proportion to the high-water mark.
+ * A triggered execution starts not sooner than
+ * {@link CacheConstants#SCHEDULER_MIN_DELAY} after the last one
+ * and the executions never overlap.
+ * The service can be shared by the caches of a {@link CacheManager},
+ * then the delays are spread at random, so the caches
+ * are not maintained at the same moment.
  *
  * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
  */
@@ -19,58 +37,341 @@ final class CacheScheduledExecutor {
      */
     private final Runnable command;
 
+    /**
+     * The statistics which the command records.
+     */
+    private final CacheStatistics statistics;
+
+    /**
+     * The cache size which triggers the command at once.
+     */
+    private volatile int highWaterMark;
+
+    /**
+     * The number of writes which triggers the command at once.
+     */
+    private volatile long writesThreshold;
+
+    /**
+     * The estimated number of dead objects
+     * which triggers the command at once.
+     */
+    private volatile long deadThreshold;
+
+    /**
+     * The maximum delay between executions,
+     * used while the cache is idle (milliseconds).
+     */
+    private volatile long period;
+
+    /**
+     * The number of writes since the last execution.
+     */
+    private final LongAdder writes;
+
+    /**
+     * The command is triggered and waits for execution.
+     */
+    private final AtomicBoolean triggered;
+
+    /**
+     * The command is running.
+     */
+    private final AtomicBoolean running;
+
+    /**
+     * The service where the command is executed.
+     */
+    private volatile ScheduledExecutorService service;
+
+    /**
+     * The service is shared with the other caches.
+     */
+    private volatile boolean shared;
+
+    /**
+     * The executions are stopped by {@link #shutdown()}.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * The next scheduled execution.
+     */
+    private volatile ScheduledFuture<?> future;
+
+    /**
+     * The current delay between executions (milliseconds).
+     */
+    private volatile long delay;
+
+    /**
+     * The time of the last execution (milliseconds).
+     */
+    private volatile long lastRunTime;
+
+    /**
+     * The time between the last two executions (milliseconds).
+     */
+    private volatile long lastInterval;
+
+    /**
+     * The time when the last execution finished (milliseconds),
+     * 0 before the first one.
+     */
+    private volatile long lastFinishTime;
+
     /**
      * Constructor.
      *
-     * @param command the task to execute
+     * @param command       the task to execute.
+     * @param statistics    the statistics which the command records.
+     * @param highWaterMark the cache size which triggers the command at once.
      */
-    CacheScheduledExecutor(final Runnable command) {
+    CacheScheduledExecutor(
+            final Runnable command,
+            final CacheStatistics statistics,
+            final int highWaterMark
+    ) {
         this.command = command;
+        this.statistics = statistics;
+        setHighWaterMark(highWaterMark);
+        this.writes = new LongAdder();
+        this.triggered = new AtomicBoolean();
+        this.running = new AtomicBoolean();
+        this.period = SCHEDULER_TIME_UNIT.toMillis(SCHEDULER_PERIOD);
+        this.delay = this.period;
     }
 
     /**
      * Creates and starts a new ScheduledExecutorService.
      */
     void go() {
-        final ScheduledExecutorService service = createScheduledExecutorService();
-        scheduleAtFixedRate(service);
+        go(createScheduledExecutorService(), false);
     }
 
     /**
-     * Configures the incoming ScheduledExecutorService
-     * with the default parameters.
+     * Starts the executions in the service which is shared
+     * with the other caches. The service is not shut down
+     * with this executor.
      *
-     * @param service the instance of the ScheduledExecutorService class.
+     * @param service the shared service.
      */
-    private void scheduleAtFixedRate(final ScheduledExecutorService service) {
-        service.scheduleAtFixedRate(
-                this.command,
-                SCHEDULER_INITIAL_DELAY,
-                SCHEDULER_PERIOD,
-                SCHEDULER_TIME_UNIT
-        );
+    void go(final ScheduledExecutorService service) {
+        go(service, true);
     }
 
     /**
-     * Creates a new ScheduledExecutorService.
+     * Stops the executions. The running execution is completed,
+     * the service is shut down if it is not shared.
+     */
+    synchronized void shutdown() {
+        this.stopped = true;
+        final ScheduledFuture<?> future = this.future;
+        if (Validator.isNotNull(future)) {
+            future.cancel(false);
+        }
+        final ScheduledExecutorService service = this.service;
+        if (Validator.isNotNull(service) && !this.shared) {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Starts the executions in the service.
      *
-     * @return the instance of the ScheduledExecutorService class (newer null).
+     * @param service the service where the command is executed.
+     * @param shared  the service is shared with the other caches.
      */
-    private ScheduledExecutorService createScheduledExecutorService() {
-        final ThreadFactory threadFactory = createThreadFactory();
-        return Executors.newSingleThreadScheduledExecutor(threadFactory);
+    private void go(final ScheduledExecutorService service, final boolean shared) {
+        this.shared = shared;
+        this.service = service;
+        this.lastRunTime = System.currentTimeMillis();
+        schedule(SCHEDULER_TIME_UNIT.toMillis(SCHEDULER_INITIAL_DELAY));
+    }
+
+    /**
+     * Registers a write into the cache and triggers
+     * the command if the cache is under pressure.
+     * The writes and the dead objects are checked once
+     * per {@link CacheConstants#SCHEDULER_CHECK_RATE} writes
+     * on average, the size is checked on every write.
+     * Costs O(1) and does not wait for the command.
+     *
+     * @param size the cache size after the write.
+     */
+    void onWrite(final int size) {
+        this.writes.increment();
+        if ((size > this.highWaterMark) ||
+                ((ThreadLocalRandom.current().nextInt(SCHEDULER_CHECK_RATE) == 0) &&
+                        isUnderPressure())) {
+            trigger();
+        }
+    }
+
+    /**
+     * Returns the current delay between executions.
+     *
+     * @return The current delay (milliseconds).
+     */
+    long getDelay() {
+        return this.delay;
+    }
+
+    /**
+     * Returns the maximum delay between executions.
+     *
+     * @return The maximum delay (milliseconds).
+     */
+    long getPeriod() {
+        return this.period;
+    }
+
+    /**
+     * Sets the maximum delay between executions. If the current
+     * delay is longer, the next execution is rescheduled at once.
+     *
+     * @param period the maximum delay (milliseconds).
+     */
+    void setPeriod(final long period) {
+        this.period = Math.max(period, SCHEDULER_MIN_DELAY);
+        if (this.delay > this.period) {
+            this.delay = this.period;
+            if (Validator.isNotNull(this.service)) {
+                schedule(this.delay);
+            }
+        }
+    }
+
+    /**
+     * Sets the cache size which triggers the command at once
+     * and scales the thresholds of the writes and the dead objects.
+     *
+     * @param highWaterMark the cache size which triggers the command.
+     */
+    void setHighWaterMark(final int highWaterMark) {
+        this.highWaterMark = highWaterMark;
+        this.writesThreshold = (long) (highWaterMark * SCHEDULER_WRITES_RATIO);
+        this.deadThreshold = (long) (highWaterMark * SCHEDULER_DEAD_RATIO);
+    }
+
+    /**
+     * Checks if too many writes were made or too many objects
+     * are estimated to be dead since the last execution.
+     *
+     * @return true if the cache is under pressure, false otherwise.
+     */
+    private boolean isUnderPressure() {
+        return (this.writes.sum() > this.writesThreshold) ||
+                (estimateDeadObjects() > this.deadThreshold);
     }
 
     /**
-     * Creates a new threads factory for constructing a new thread-demand.
+     * Estimates the number of objects which died since the last
+     * execution from the rate at which the last execution found them.
      *
-     * @return The new threads factory (newer null).
-     */
-    private ThreadFactory createThreadFactory() {
-        return runnable -> {
-            final Thread thread = new Thread(runnable);
-            thread.setDaemon(true);
-            return thread;
-        };
+     * @return The estimated number of dead objects.
+     */
+    private long estimateDeadObjects() {
+        final long interval = this.lastInterval;
+        long result = 0;
+        if (interval > 0) {
+            final long elapsed = System.currentTimeMillis() - this.lastRunTime;
+            result = this.statistics.getLastSweepExpired() * elapsed / interval;
+        }
+        return result;
+    }
+
+    /**
+     * Executes the command as soon as possible if it is not
+     * triggered yet, but not sooner than
+     * {@link CacheConstants#SCHEDULER_MIN_DELAY} after the last
+     * execution. Does nothing while the command is running,
+     * the running execution schedules the next one.
+     */
+    void trigger() {
+        if (Validator.isNotNull(this.service) && !this.stopped && !this.running.get() &&
+                this.triggered.compareAndSet(false, true)) {
+            final long wait = this.lastFinishTime + SCHEDULER_MIN_DELAY -
+                    System.currentTimeMillis();
+            schedule(Math.max(wait, 0L));
+        }
+    }
+
+    /**
+     * Executes the command, adapts the delay and schedules
+     * the next execution. Does nothing if the command is running
+     * already, the running execution schedules the next one.
+     */
+    private void execute() {
+        if (this.running.compareAndSet(false, true)) {
+            final boolean pressure = this.triggered.get();
+            final long writes = this.writes.sumThenReset();
+            final long now = System.currentTimeMillis();
+            this.lastInterval = now - this.lastRunTime;
+            this.lastRunTime = now;
+            try {
+                this.command.run();
+            } finally {
+                this.lastFinishTime = System.currentTimeMillis();
+                adapt(pressure, writes);
+                schedule(this.delay);
+                this.triggered.set(false);
+                this.running.set(false);
+            }
+        }
+    }
+
+    /**
+     * Halves the delay if the cache was under pressure or the command
+     * reclaimed some objects, doubles it if the cache was idle.
+     *
+     * @param pressure the command was triggered by the cache pressure.
+     * @param writes   the number of writes since the previous execution.
+     */
+    private void adapt(final boolean pressure, final long writes) {
+        final long maxDelay = this.period;
+        final long reclaimed = this.statistics.getLastSweepReclaimed();
+        if (pressure || (reclaimed > 0)) {
+            this.delay = Math.max(this.delay / 2, SCHEDULER_MIN_DELAY);
+        } else if (writes == 0) {
+            this.delay = Math.min(this.delay * 2, maxDelay);
+        }
+    }
+
+    /**
+     * Replaces the next scheduled execution.
+     * Synchronized, so two replacements do not leave
+     * two scheduled executions. Does nothing if the executions
+     * are stopped. Adds a random part of the delay
+     * if the service is shared.
+     *
+     * @param delay the time to delay the execution (milliseconds).
+     */
+    private synchronized void schedule(final long delay) {
+        if (!this.stopped) {
+            final ScheduledFuture<?> future = this.future;
+            if (Validator.isNotNull(future)) {
+                future.cancel(false);
+            }
+            final long jitter = this.shared ?
+                    (long) (ThreadLocalRandom.current().nextDouble() * delay * SCHEDULER_JITTER) : 0L;
+            try {
+                this.future = this.service.schedule(
+                        this::execute, delay + jitter, TimeUnit.MILLISECONDS
+                );
+            } catch (RejectedExecutionException ex) {
+                this.stopped = true;
+            }
+        }
+    }
+
+    /**
+     * Creates a new ScheduledExecutorService.
+     *
+     * @return the instance of the ScheduledExecutorService class (newer null).
+     */
+    private ScheduledExecutorService createScheduledExecutorService() {
+        final ThreadFactory threadFactory = CacheThreads.newThreadFactory();
+        return Executors.newSingleThreadScheduledExecutor(threadFactory);
     }
 }
@@ -0,0 +1,169 @@
+package com.salimov.yurii.cache;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * The class implements a simulator which replays a trace of reads
+ * through eviction policies and reports the hit ratio against
+ * the cache size. Every pair of a policy and a size is replayed
+ * in parallel and streams the trace on its own, so a trace
+ * of 100M reads does not have to fit in memory.
+ * <p>
+ * The current policy of the {@link CacheCleaner} is registered
+ * as "cleaner", the least recently used policy as "lru",
+ * the alternative policies are added by {@link #addPolicy}.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public final class CacheSimulator {
+
+    /**
+     * The trace of reads.
+     */
+    private final Supplier<Stream<Object>> trace;
+
+    /**
+     * The factories of policies by name,
+     * a factory takes the maximum size of the cache.
+     */
+    private final Map<String, IntFunction<EvictionPolicy>> policies;
+
+    /**
+     * Constructor.
+     *
+     * @param trace the trace of reads, see {@link CacheTraces}.
+     */
+    public CacheSimulator(final Supplier<Stream<Object>> trace) {
+        this.trace = trace;
+        this.policies = new LinkedHashMap<>();
+        this.policies.put("cleaner", CleanerEvictionPolicy::new);
+        this.policies.put("lru", LruEvictionPolicy::new);
+    }
+
+    /**
+     * Replays a trace through the policies and prints the results.
+     * <pre>
+     *     CacheSimulator &lt;trace&gt; &lt;size&gt;...
+     *     trace = file path | zipf:keys:exponent:events | loop:keys:events | scan:events
+     * </pre>
+     *
+     * @param args the trace and the cache sizes.
+     */
+    public static void main(final String[] args) {
+        if (args.length < 2) {
+            System.out.println(
+                    "Usage: CacheSimulator <trace> <size>...\n" +
+                            "trace = file path | zipf:keys:exponent:events" +
+                            " | loop:keys:events | scan:events"
+            );
+            return;
+        }
+        final int[] sizes = new int[args.length - 1];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = Integer.parseInt(args[i + 1]);
+        }
+        final CacheSimulator simulator = new CacheSimulator(parseTrace(args[0]));
+        for (SimulationResult result : simulator.run(sizes)) {
+            System.out.println(result);
+        }
+    }
+
+    /**
+     * Adds the policy or replaces the policy with the same name.
+     *
+     * @param name    the name of the policy.
+     * @param factory the factory of the policy, it takes
+     *                the maximum size of the cache.
+     * @return This simulator.
+     */
+    public CacheSimulator addPolicy(final String name, final IntFunction<EvictionPolicy> factory) {
+        this.policies.put(name, factory);
+        return this;
+    }
+
+    /**
+     * Replays the trace through every policy with every size.
+     *
+     * @param sizes the maximum sizes of the cache.
+     * @return The results ordered by policy and size (newer null).
+     */
+    public List<SimulationResult> run(final int... sizes) {
+        final List<Callable<SimulationResult>> tasks = new ArrayList<>();
+        for (Map.Entry<String, IntFunction<EvictionPolicy>> entry : this.policies.entrySet()) {
+            for (int size : sizes) {
+                tasks.add(() -> replay(entry.getKey(), entry.getValue().apply(size), size));
+            }
+        }
+        final ForkJoinPool pool = new ForkJoinPool(CacheConstants.CLEANER_PARALLELISM);
+        try {
+            final List<SimulationResult> result = new ArrayList<>();
+            for (Future<SimulationResult> future : pool.invokeAll(tasks)) {
+                result.add(future.get());
+            }
+            return result;
+        } catch (Exception ex) {
+            throw new IllegalStateException("The simulation failed", ex);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Replays the trace through the policy.
+     *
+     * @param name    the name of the policy.
+     * @param policy  the policy.
+     * @param maxSize the maximum size of the cache.
+     * @return The result of the replay (newer null).
+     */
+    private SimulationResult replay(
+            final String name, final EvictionPolicy policy, final int maxSize
+    ) {
+        final long[] counts = {0L, 0L};
+        try (Stream<Object> keys = this.trace.get()) {
+            keys.forEachOrdered(
+                    key -> {
+                        counts[0]++;
+                        if (policy.access(key)) {
+                            counts[1]++;
+                        }
+                    }
+            );
+        }
+        return new SimulationResult(name, maxSize, counts[0], counts[1]);
+    }
+
+    /**
+     * Parses the trace of the command line.
+     *
+     * @param value the trace of the command line.
+     * @return The trace (newer null).
+     */
+    private static Supplier<Stream<Object>> parseTrace(final String value) {
+        final String[] parts = value.split(":");
+        final Supplier<Stream<Object>> result;
+        if (value.startsWith("zipf:") && (parts.length == 4)) {
+            result = CacheTraces.zipf(
+                    Integer.parseInt(parts[1]), Double.parseDouble(parts[2]),
+                    Long.parseLong(parts[3]), 42L
+            );
+        } else if (value.startsWith("loop:") && (parts.length == 3)) {
+            result = CacheTraces.loop(Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+        } else if (value.startsWith("scan:") && (parts.length == 2)) {
+            result = CacheTraces.scan(Long.parseLong(parts[1]));
+        } else {
+            result = CacheTraces.file(Paths.get(value));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,460 @@
+package com.salimov.yurii.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The class implements a set of methods for collecting
+ * statistics about the cache and its maintenance.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public final class CacheStatistics {
+
+    /**
+     * The number of reads which found an object.
+     */
+    private final LongAdder hits;
+
+    /**
+     * The number of reads which found nothing.
+     */
+    private final LongAdder misses;
+
+    /**
+     * The number of reads which found a confirmed absence.
+     */
+    private final LongAdder notFoundHits;
+
+    /**
+     * The number of confirmed absences in the cache.
+     */
+    private final LongAdder notFoundSize;
+
+    /**
+     * The number of objects removed because they were dead.
+     */
+    private final LongAdder expirations;
+
+    /**
+     * The number of objects removed because the cache was too big.
+     */
+    private final LongAdder evictions;
+
+    /**
+     * The number of maintenance runs.
+     */
+    private final LongAdder sweeps;
+
+    /**
+     * The number of objects written to the backing store.
+     */
+    private final LongAdder writes;
+
+    /**
+     * The number of failed batches of the backing store writer.
+     */
+    private final LongAdder writeFailures;
+
+    /**
+     * The number of objects dropped after the retries of the writer.
+     */
+    private final LongAdder writeDrops;
+
+    /**
+     * The duration of the last maintenance run (nanoseconds).
+     */
+    private volatile long lastSweepDuration;
+
+    /**
+     * The number of objects reclaimed by the last maintenance run.
+     */
+    private volatile long lastSweepReclaimed;
+
+    /**
+     * The number of dead objects removed by the last maintenance run.
+     */
+    private volatile long lastSweepExpired;
+
+    /**
+     * The latency histograms of the operations or null if they are disabled.
+     */
+    private final LatencyHistogram[] latencies;
+
+    /**
+     * The detection of the most read keys or null if it is disabled.
+     */
+    private final CacheHotKeys hotKeys;
+
+    /**
+     * Constructor.
+     */
+    CacheStatistics() {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param latencies the latencies of the operations are recorded.
+     */
+    CacheStatistics(final boolean latencies) {
+        this(latencies, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param latencies the latencies of the operations are recorded.
+     * @param hotKeys   the detection of the most read keys or null.
+     */
+    CacheStatistics(final boolean latencies, final CacheHotKeys hotKeys) {
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.notFoundHits = new LongAdder();
+        this.notFoundSize = new LongAdder();
+        this.expirations = new LongAdder();
+        this.evictions = new LongAdder();
+        this.sweeps = new LongAdder();
+        this.writes = new LongAdder();
+        this.writeFailures = new LongAdder();
+        this.writeDrops = new LongAdder();
+        this.latencies = latencies ? newHistograms() : null;
+        this.hotKeys = hotKeys;
+    }
+
+    /**
+     * Returns a string representation of the object.
+     *
+     * @return A string representation of the object.
+     */
+    @Override
+    public String toString() {
+        return "CacheStatistics{" +
+                "hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", notFoundHits=" + getNotFoundHitCount() +
+                ", notFoundSize=" + getNotFoundSize() +
+                ", expirations=" + getExpirationCount() +
+                ", evictions=" + getEvictionCount() +
+                ", sweeps=" + getSweepCount() +
+                ", lastSweepDuration=" + this.lastSweepDuration +
+                ", lastSweepReclaimed=" + this.lastSweepReclaimed +
+                ", writes=" + getWriteCount() +
+                ", writeFailures=" + getWriteFailureCount() +
+                ", writeDrops=" + getWriteDropCount() +
+                ", hotKeys=" + getHotKeys() +
+                '}';
+    }
+
+    /**
+     * Returns the number of reads which found an object.
+     *
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of reads which found nothing.
+     *
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns the number of reads which found a confirmed absence.
+     * These reads are counted neither as hits nor as misses.
+     *
+     * @return The number of confirmed absence hits.
+     */
+    public long getNotFoundHitCount() {
+        return this.notFoundHits.sum();
+    }
+
+    /**
+     * Returns the ratio of hits to all reads.
+     *
+     * @return The hit rate from 0.0 to 1.0.
+     */
+    public double getHitRate() {
+        final long hits = getHitCount();
+        final long reads = hits + getMissCount() + getNotFoundHitCount();
+        return (reads > 0) ? (double) hits / reads : 1.0;
+    }
+
+    /**
+     * Returns the number of confirmed absences in the cache.
+     *
+     * @return The number of confirmed absences.
+     */
+    public long getNotFoundSize() {
+        return this.notFoundSize.sum();
+    }
+
+    /**
+     * Returns the number of objects removed because they were dead.
+     *
+     * @return The number of expired objects.
+     */
+    public long getExpirationCount() {
+        return this.expirations.sum();
+    }
+
+    /**
+     * Returns the number of objects removed because the cache was too big.
+     *
+     * @return The number of evicted objects.
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Returns the number of maintenance runs.
+     *
+     * @return The number of maintenance runs.
+     */
+    public long getSweepCount() {
+        return this.sweeps.sum();
+    }
+
+    /**
+     * Returns the number of objects written to the backing store,
+     * the removals included.
+     *
+     * @return The number of written objects.
+     */
+    public long getWriteCount() {
+        return this.writes.sum();
+    }
+
+    /**
+     * Returns the number of failed batches of the backing store writer,
+     * every failed retry is counted.
+     *
+     * @return The number of failed batches.
+     */
+    public long getWriteFailureCount() {
+        return this.writeFailures.sum();
+    }
+
+    /**
+     * Returns the number of objects which were not written
+     * to the backing store after all retries.
+     *
+     * @return The number of dropped objects.
+     */
+    public long getWriteDropCount() {
+        return this.writeDrops.sum();
+    }
+
+    /**
+     * Returns the most read keys from the most read one.
+     * The keys are detected from a sample of the reads,
+     * so the rarely read keys may be shown too.
+     *
+     * @return The hot keys, empty if the detection is disabled (newer null).
+     */
+    public List<Object> getHotKeys() {
+        return Validator.isNotNull(this.hotKeys) ?
+                this.hotKeys.getKeys() : Collections.emptyList();
+    }
+
+    /**
+     * Returns the duration of the last maintenance run.
+     *
+     * @return The duration of the last maintenance run (milliseconds).
+     */
+    public long getLastSweepDuration() {
+        return TimeUnit.NANOSECONDS.toMillis(this.lastSweepDuration);
+    }
+
+    /**
+     * Returns the number of objects reclaimed by the last maintenance run.
+     *
+     * @return The number of reclaimed objects.
+     */
+    public long getLastSweepReclaimed() {
+        return this.lastSweepReclaimed;
+    }
+
+    /**
+     * Returns the number of dead objects removed by the last maintenance run.
+     *
+     * @return The number of expired objects.
+     */
+    public long getLastSweepExpired() {
+        return this.lastSweepExpired;
+    }
+
+    /**
+     * Returns the throughput of the last maintenance run.
+     *
+     * @return The number of objects reclaimed per second.
+     */
+    public double getReclaimedPerSecond() {
+        final long duration = this.lastSweepDuration;
+        return (duration > 0) ?
+                this.lastSweepReclaimed * 1e9 / duration : 0.0;
+    }
+
+    /**
+     * Returns the latency histogram of the operation.
+     *
+     * @param operation the operation of the cache.
+     * @return The latency histogram or null if the latencies are not recorded.
+     */
+    public LatencyHistogram getLatency(final CacheOperation operation) {
+        return Validator.isNotNull(this.latencies) ?
+                this.latencies[operation.ordinal()] : null;
+    }
+
+    /**
+     * Returns the latency of the operation at the percentile.
+     *
+     * @param operation  the operation of the cache.
+     * @param percentile the percentile from 0 to 100.
+     * @return The latency (nanoseconds), 0 if the latencies are not recorded.
+     */
+    public long getLatencyPercentile(final CacheOperation operation, final double percentile) {
+        final LatencyHistogram histogram = getLatency(operation);
+        return Validator.isNotNull(histogram) ? histogram.getPercentile(percentile) : 0L;
+    }
+
+    /**
+     * Forgets the recorded latencies of all operations,
+     * so the histograms show only the next interval.
+     */
+    public void resetLatencies() {
+        if (Validator.isNotNull(this.latencies)) {
+            for (LatencyHistogram histogram : this.latencies) {
+                histogram.reset();
+            }
+        }
+    }
+
+    /**
+     * Starts the timing of an operation.
+     *
+     * @return The start time (nanoseconds), 0 if the latencies are not recorded.
+     */
+    long startTimer() {
+        return Validator.isNotNull(this.latencies) ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the latency of an operation which started at the time.
+     *
+     * @param operation the operation of the cache.
+     * @param start     the start time from {@link #startTimer()} (nanoseconds).
+     */
+    void recordLatency(final CacheOperation operation, final long start) {
+        if (start != 0L) {
+            this.latencies[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a read which found an object.
+     */
+    void recordHit() {
+        this.hits.increment();
+    }
+
+    /**
+     * Records a read which found nothing.
+     */
+    void recordMiss() {
+        this.misses.increment();
+    }
+
+    /**
+     * Records a read which found a confirmed absence.
+     */
+    void recordNotFoundHit() {
+        this.notFoundHits.increment();
+    }
+
+    /**
+     * Changes the number of confirmed absences in the cache.
+     *
+     * @param delta the change of the number.
+     */
+    void addNotFoundSize(final long delta) {
+        this.notFoundSize.add(delta);
+    }
+
+    /**
+     * Records the result of a maintenance run.
+     *
+     * @param expired  the number of expired objects.
+     * @param evicted  the number of evicted objects.
+     * @param duration the duration of the run (nanoseconds).
+     */
+    void recordSweep(final long expired, final long evicted, final long duration) {
+        this.expirations.add(expired);
+        this.evictions.add(evicted);
+        this.sweeps.increment();
+        this.lastSweepExpired = expired;
+        this.lastSweepReclaimed = expired + evicted;
+        this.lastSweepDuration = duration;
+        if (Validator.isNotNull(this.latencies)) {
+            this.latencies[CacheOperation.MAINTENANCE.ordinal()].record(duration);
+        }
+    }
+
+    /**
+     * Records the objects evicted by a write
+     * when the cache passed its maximum size.
+     *
+     * @param evicted the number of evicted objects.
+     */
+    void recordEviction(final long evicted) {
+        this.evictions.add(evicted);
+    }
+
+    /**
+     * Records a batch written to the backing store.
+     *
+     * @param size the number of objects in the batch.
+     */
+    void recordWrite(final int size) {
+        this.writes.add(size);
+    }
+
+    /**
+     * Records a failed batch of the backing store writer.
+     */
+    void recordWriteFailure() {
+        this.writeFailures.increment();
+    }
+
+    /**
+     * Records a batch dropped after all retries of the writer.
+     *
+     * @param size the number of objects in the batch.
+     */
+    void recordWriteDrop(final int size) {
+        this.writeDrops.add(size);
+    }
+
+    /**
+     * Creates the latency histograms of all operations.
+     *
+     * @return The histograms by the operation ordinal (newer null).
+     */
+    private static LatencyHistogram[] newHistograms() {
+        final CacheOperation[] operations = CacheOperation.values();
+        final LatencyHistogram[] result = new LatencyHistogram[operations.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new LatencyHistogram();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+package com.salimov.yurii.cache;
+
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The class implements a fork/join task that removes dead objects
+ * from one segment of the cache key set. The segment is split
+ * in halves until it is not bigger than the segment size,
+ * so segments are swept in parallel.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheSweepTask extends RecursiveTask<Long> {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The cache to sweep.
+     */
+    private final transient TemporaryCache cache;
+
+    /**
+     * The segment of the cache key set.
+     */
+    private final transient Spliterator<Key> segment;
+
+    /**
+     * The maximum number of keys swept by one task.
+     */
+    private final int segmentSize;
+
+    /**
+     * The time of the sweep (milliseconds).
+     */
+    private final long now;
+
+    /**
+     * Constructor.
+     *
+     * @param cache       the cache to sweep.
+     * @param segment     the segment of the cache key set.
+     * @param segmentSize the maximum number of keys swept by one task.
+     * @param now         the time of the sweep (milliseconds).
+     */
+    CacheSweepTask(
+            final TemporaryCache cache,
+            final Spliterator<Key> segment,
+            final int segmentSize,
+            final long now
+    ) {
+        this.cache = cache;
+        this.segment = segment;
+        this.segmentSize = segmentSize;
+        this.now = now;
+    }
+
+    /**
+     * Splits the segment or sweeps it.
+     *
+     * @return The number of removed dead objects.
+     */
+    @Override
+    protected Long compute() {
+        final Spliterator<Key> other = split();
+        long result;
+        if (Validator.isNotNull(other)) {
+            final CacheSweepTask task = new CacheSweepTask(
+                    this.cache, other, this.segmentSize, this.now
+            );
+            task.fork();
+            result = compute() + task.join();
+        } else {
+            result = sweep();
+        }
+        return result;
+    }
+
+    /**
+     * Splits the segment if it is too big.
+     *
+     * @return The other half of the segment or null.
+     */
+    private Spliterator<Key> split() {
+        Spliterator<Key> result = null;
+        if (this.segment.estimateSize() > this.segmentSize) {
+            result = this.segment.trySplit();
+        }
+        return result;
+    }
+
+    /**
+     * Removes dead objects of the segment.
+     *
+     * @return The number of removed dead objects.
+     */
+    private long sweep() {
+        final long[] result = {0L};
+        this.segment.forEachRemaining(
+                key -> {
+                    if (key.isDead(this.now) && this.cache.removeIfDead(key)) {
+                        result[0]++;
+                    }
+                }
+        );
+        return result[0];
+    }
+}
@@ -0,0 +1,55 @@
+package com.salimov.yurii.cache;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The class implements a set of methods for creating threads
+ * where the cache loads objects and runs its maintenance.
+ * On Java 8 these are daemon platform threads, the multi-release
+ * jar replaces this class on Java 21 to use virtual threads.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheThreads {
+
+    /**
+     * Private Constructor.
+     */
+    private CacheThreads() {
+    }
+
+    /**
+     * Creates a new threads factory for constructing a new thread-demand.
+     *
+     * @return The new threads factory (newer null).
+     */
+    static ThreadFactory newThreadFactory() {
+        return runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Creates a new executor where blocking tasks,
+     * such as loaders, are executed.
+     *
+     * @return The new executor (newer null).
+     */
+    static ExecutorService newExecutor() {
+        final ThreadFactory threadFactory = newThreadFactory();
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Checks if the threads are virtual.
+     *
+     * @return true if the threads are virtual, false otherwise.
+     */
+    static boolean isVirtual() {
+        return false;
+    }
+}
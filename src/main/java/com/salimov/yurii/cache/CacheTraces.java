@@ -0,0 +1,100 @@
+package com.salimov.yurii.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * The class implements a set of methods for creating traces
+ * of reads for the {@link CacheSimulator}. A trace is a supplier
+ * of a new stream of keys, so every replay streams the trace
+ * from the start and the whole trace is never held in memory.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public final class CacheTraces {
+
+    /**
+     * Private Constructor.
+     */
+    private CacheTraces() {
+    }
+
+    /**
+     * Returns the trace which is read from the file,
+     * one key per line, for example a logged key sequence.
+     *
+     * @param path the path of the trace file.
+     * @return The trace (newer null).
+     */
+    public static Supplier<Stream<Object>> file(final Path path) {
+        return () -> {
+            try {
+                return Files.lines(path).map(line -> (Object) line);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+    }
+
+    /**
+     * Returns the trace where the keys are read
+     * with the Zipf distribution.
+     *
+     * @param keys     the number of distinct keys.
+     * @param exponent the exponent of the distribution, about 1 for web traffic.
+     * @param events   the number of reads.
+     * @param seed     the seed of the random generator.
+     * @return The trace (newer null).
+     */
+    public static Supplier<Stream<Object>> zipf(
+            final int keys, final double exponent,
+            final long events, final long seed
+    ) {
+        final double[] distribution = new double[keys];
+        double sum = 0;
+        for (int i = 0; i < keys; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            distribution[i] = sum;
+        }
+        for (int i = 0; i < keys; i++) {
+            distribution[i] /= sum;
+        }
+        return () -> {
+            final Random random = new Random(seed);
+            return LongStream.range(0, events).mapToObj(
+                    event -> {
+                        final int index = Arrays.binarySearch(distribution, random.nextDouble());
+                        return (Object) ((index >= 0) ? index : Math.min(-index - 1, keys - 1));
+                    }
+            );
+        };
+    }
+
+    /**
+     * Returns the trace where the keys are read in a loop.
+     *
+     * @param keys   the number of keys in the loop.
+     * @param events the number of reads.
+     * @return The trace (newer null).
+     */
+    public static Supplier<Stream<Object>> loop(final int keys, final long events) {
+        return () -> LongStream.range(0, events).mapToObj(event -> (Object) (int) (event % keys));
+    }
+
+    /**
+     * Returns the trace where every key is read once.
+     *
+     * @param events the number of reads.
+     * @return The trace (newer null).
+     */
+    public static Supplier<Stream<Object>> scan(final long events) {
+        return () -> LongStream.range(0, events).mapToObj(event -> (Object) event);
+    }
+}
@@ -0,0 +1,386 @@
+package com.salimov.yurii.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The class implements the progress of a warm-up of the cache,
+ * see {@link AsyncTemporaryCache#warmUp(Collection, java.util.function.Function)}.
+ * The keys of the manifest are taken by the workers one by one,
+ * at most so many keys per second as the rate allows.
+ * The counters can be read while the warm-up is running.
+ * <p>
+ * A manifest is a file with one key per line, for example
+ * the hot keys which were written at the previous shutdown:
+ * <pre>
+ * CacheWarmUp.writeManifest(path, cache.getStatistics().getHotKeys());
+ * ...
+ * asyncCache.warmUp(CacheWarmUp.readManifest(path), loader);
+ * </pre>
+ * The keys are written as their strings and read back as strings.
+ * The keys of other classes are written and read by a formatter
+ * and a parser which are the inverse of each other:
+ * <pre>
+ * CacheWarmUp.writeManifest(path, ids, String::valueOf);
+ * ...
+ * asyncCache.warmUp(CacheWarmUp.readManifest(path, Long::valueOf), loader);
+ * </pre>
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public final class CacheWarmUp {
+
+    /**
+     * The keys to load.
+     */
+    private final List<Object> keys;
+
+    /**
+     * The time between the starts of two loads (nanoseconds),
+     * 0 if the rate is not limited.
+     */
+    private final long interval;
+
+    /**
+     * The index of the next key to load.
+     */
+    private final AtomicInteger index;
+
+    /**
+     * The number of running workers.
+     */
+    private final AtomicInteger workers;
+
+    /**
+     * The number of loaded objects.
+     */
+    private final LongAdder loaded;
+
+    /**
+     * The number of keys which were in the cache already.
+     */
+    private final LongAdder skipped;
+
+    /**
+     * The number of keys which were not loaded.
+     */
+    private final LongAdder failed;
+
+    /**
+     * The future which completes when all workers are finished.
+     */
+    private final CompletableFuture<CacheWarmUp> future;
+
+    /**
+     * The time when the next load may start (nanoseconds).
+     * Guarded by this object.
+     */
+    private long next;
+
+    /**
+     * The warm-up is cancelled.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Constructor.
+     *
+     * @param keys the keys to load.
+     * @param rate the maximum number of loads per second,
+     *             not positive if the rate is not limited.
+     */
+    CacheWarmUp(final Collection<Object> keys, final int rate) {
+        this.keys = new ArrayList<>();
+        if (Validator.isNotEmpty(keys)) {
+            for (Object key : keys) {
+                if (Validator.isNotNull(key)) {
+                    this.keys.add(key);
+                }
+            }
+        }
+        this.interval = (rate > 0) ? TimeUnit.SECONDS.toNanos(1) / rate : 0L;
+        this.index = new AtomicInteger();
+        this.workers = new AtomicInteger();
+        this.loaded = new LongAdder();
+        this.skipped = new LongAdder();
+        this.failed = new LongAdder();
+        this.future = new CompletableFuture<>();
+        this.next = System.nanoTime();
+    }
+
+    /**
+     * Returns the keys which are read from the manifest,
+     * one key per line. The empty lines are skipped.
+     *
+     * @param path the path of the manifest.
+     * @return The keys as strings (newer null).
+     */
+    public static List<Object> readManifest(final Path path) {
+        return readManifest(path, Function.identity());
+    }
+
+    /**
+     * Returns the keys which are read from the manifest,
+     * one key per line. The empty lines are skipped, every
+     * other line is turned into a key by the parser.
+     * The lines which the parser turns into null are skipped.
+     *
+     * @param path   the path of the manifest.
+     * @param parser the function which turns a line into a key.
+     * @return The keys (newer null).
+     */
+    public static List<Object> readManifest(
+            final Path path,
+            final Function<String, ?> parser
+    ) {
+        try (Stream<String> lines = Files.lines(path, StandardCharsets.UTF_8)) {
+            return lines.filter(line -> !line.isEmpty())
+                    .map(parser)
+                    .filter(Validator::isNotNull)
+                    .collect(Collectors.toList());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Writes the keys to the manifest, one key per line.
+     * The keys are written as {@link String#valueOf(Object)},
+     * so only the string keys are read back as they are,
+     * see {@link #readManifest(Path, Function)} for the others.
+     *
+     * @param path the path of the manifest.
+     * @param keys the keys to write.
+     * @throws IllegalArgumentException if a key is null, empty
+     *                                  or contains a line break.
+     */
+    public static void writeManifest(final Path path, final Collection<?> keys) {
+        writeManifest(path, keys, String::valueOf);
+    }
+
+    /**
+     * Writes the keys to the manifest, one key per line.
+     * The keys are written as the formatter turns them into strings.
+     *
+     * @param path      the path of the manifest.
+     * @param keys      the keys to write.
+     * @param formatter the function which turns a key into a line.
+     * @param <T>       the type of the keys.
+     * @throws IllegalArgumentException if a key is null or the formatter
+     *                                  turns it into an empty line
+     *                                  or a line break.
+     */
+    public static <T> void writeManifest(
+            final Path path,
+            final Collection<? extends T> keys,
+            final Function<? super T, String> formatter
+    ) {
+        final List<String> lines = new ArrayList<>(keys.size());
+        String line;
+        for (T key : keys) {
+            line = Validator.isNotNull(key) ? formatter.apply(key) : null;
+            if (Validator.isNull(line) || line.isEmpty() ||
+                    (line.indexOf('\n') >= 0) || (line.indexOf('\r') >= 0)) {
+                throw new IllegalArgumentException(
+                        "The key can not be written to the manifest: " + key
+                );
+            }
+            lines.add(line);
+        }
+        try {
+            Files.write(path, lines, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns a string representation of the object.
+     *
+     * @return A string representation of the object.
+     */
+    @Override
+    public String toString() {
+        return "CacheWarmUp{" +
+                "total=" + getTotal() +
+                ", loaded=" + getLoaded() +
+                ", skipped=" + getSkipped() +
+                ", failed=" + getFailed() +
+                ", done=" + isDone() +
+                '}';
+    }
+
+    /**
+     * Returns the number of keys to load.
+     *
+     * @return The number of keys in the manifest.
+     */
+    public int getTotal() {
+        return this.keys.size();
+    }
+
+    /**
+     * Returns the number of loaded objects.
+     *
+     * @return The number of loaded objects.
+     */
+    public long getLoaded() {
+        return this.loaded.sum();
+    }
+
+    /**
+     * Returns the number of keys which were in the cache
+     * or loaded by a reader already.
+     *
+     * @return The number of skipped keys.
+     */
+    public long getSkipped() {
+        return this.skipped.sum();
+    }
+
+    /**
+     * Returns the number of keys which were loaded
+     * with an exception or as null.
+     *
+     * @return The number of failed keys.
+     */
+    public long getFailed() {
+        return this.failed.sum();
+    }
+
+    /**
+     * Returns the part of the keys which are processed.
+     *
+     * @return The progress from 0 to 1.
+     */
+    public double getProgress() {
+        final int total = getTotal();
+        return (total > 0) ?
+                (double) (getLoaded() + getSkipped() + getFailed()) / total : 1.0;
+    }
+
+    /**
+     * Checks if the warm-up is finished or cancelled
+     * and its workers are stopped.
+     *
+     * @return true if the warm-up is done, false otherwise.
+     */
+    public boolean isDone() {
+        return this.future.isDone();
+    }
+
+    /**
+     * Returns the future which completes when the warm-up is done.
+     *
+     * @return The future of this warm-up (newer null).
+     */
+    public CompletableFuture<CacheWarmUp> getFuture() {
+        return this.future;
+    }
+
+    /**
+     * Stops the warm-up. The loads which are in-flight
+     * are finished, the next keys are not loaded.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Registers the workers before they start.
+     * Completes the warm-up at once if there are no workers.
+     *
+     * @param count the number of workers.
+     */
+    void start(final int count) {
+        this.workers.set(count);
+        if (count == 0) {
+            this.future.complete(this);
+        }
+    }
+
+    /**
+     * Returns the next key to load. Waits for the rate limit.
+     * Called by the workers.
+     *
+     * @return The key or null if there are no more keys to load.
+     */
+    Object next() {
+        Object result = null;
+        final int index = this.index.getAndIncrement();
+        if (!this.cancelled && (index < this.keys.size())) {
+            if (this.interval > 0) {
+                pause();
+            }
+            if (!this.cancelled) {
+                result = this.keys.get(index);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the loaded object.
+     */
+    void onLoaded() {
+        this.loaded.increment();
+    }
+
+    /**
+     * Counts the key which was in the cache already.
+     */
+    void onSkipped() {
+        this.skipped.increment();
+    }
+
+    /**
+     * Counts the key which was not loaded.
+     */
+    void onFailed() {
+        this.failed.increment();
+    }
+
+    /**
+     * Counts the stopped worker. The last one completes the warm-up.
+     */
+    void onWorkerDone() {
+        if (this.workers.decrementAndGet() == 0) {
+            this.future.complete(this);
+        }
+    }
+
+    /**
+     * Waits until the next load may start.
+     * Cancels the warm-up if the worker is interrupted.
+     */
+    private void pause() {
+        final long delay;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            final long start = Math.max(this.next, now);
+            this.next = start + this.interval;
+            delay = start - now;
+        }
+        if (delay > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException ex) {
+                cancel();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
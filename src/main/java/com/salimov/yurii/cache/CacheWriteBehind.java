@@ -0,0 +1,382 @@
+package com.salimov.yurii.cache;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The class implements the write-behind of the saved and removed
+ * objects to a backing store. The writes wait in a queue where
+ * a later write of a key replaces the earlier one, so only the last
+ * write of a key within the delay reaches the store. The queue is
+ * flushed in batches in its own thread after the delay or at once
+ * when a batch is full, so a slow store does not delay the callers
+ * and the maintenance of the cache.
+ * <p>
+ * The callers which write a new key are blocked while the queue
+ * is full. A failed batch is kept aside and retried after growing
+ * delays before the queued batches, except the keys which were
+ * written again meanwhile. The batch is dropped after
+ * {@link CacheConstants#WRITER_RETRIES} retries of its own.
+ * The batches are written by one thread in the order they
+ * were taken, so a key is never overwritten by its older write.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheWriteBehind {
+
+    /**
+     * The removal of a key in the queue.
+     */
+    private static final Object DELETE = new Object();
+
+    /**
+     * The maximum power of two of the retry delay.
+     */
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    /**
+     * The backing store.
+     */
+    private final CacheWriter writer;
+
+    /**
+     * The maximum number of objects in one batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The delay between the batches (milliseconds).
+     */
+    private final long delay;
+
+    /**
+     * The maximum number of keys in the queue.
+     */
+    private final int maxPending;
+
+    /**
+     * The statistics where the writes are counted.
+     */
+    private final CacheStatistics statistics;
+
+    /**
+     * The objects or removals by key in the order they were queued.
+     * Guarded by the lock.
+     */
+    private final Map<Object, Object> pending;
+
+    /**
+     * The lock of the queue.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * The condition the blocked callers wait on until the queue has room.
+     */
+    private final Condition notFull;
+
+    /**
+     * The thread where the batches are written.
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * The flush of a full batch is scheduled.
+     */
+    private final AtomicBoolean triggered;
+
+    /**
+     * The failed batch which waits for its retry or null.
+     * Confined to the writer thread.
+     */
+    private Map<Object, Object> failed;
+
+    /**
+     * The number of failures of the failed batch.
+     * Confined to the writer thread.
+     */
+    private int failures;
+
+    /**
+     * The time when the failed batch is retried (nanoseconds).
+     * Confined to the writer thread.
+     */
+    private long retryAt;
+
+    /**
+     * The write-behind is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param writer     the backing store.
+     * @param batchSize  the maximum number of objects in one batch.
+     * @param delay      the delay between the batches (milliseconds).
+     * @param maxPending the maximum number of keys in the queue.
+     * @param statistics the statistics where the writes are counted.
+     */
+    CacheWriteBehind(
+            final CacheWriter writer,
+            final int batchSize,
+            final long delay,
+            final int maxPending,
+            final CacheStatistics statistics
+    ) {
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.delay = delay;
+        this.maxPending = maxPending;
+        this.statistics = statistics;
+        this.pending = new LinkedHashMap<>();
+        this.lock = new ReentrantLock();
+        this.notFull = this.lock.newCondition();
+        this.triggered = new AtomicBoolean();
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                CacheThreads.newThreadFactory()
+        );
+        this.executor.scheduleWithFixedDelay(
+                this::flush, delay, delay, TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Blocks the caller while the queue is full, unless the key
+     * is already queued and its write is coalesced.
+     * Called before the lock of the key is taken.
+     *
+     * @param key the object key in the cache.
+     */
+    void awaitCapacity(final Object key) {
+        this.lock.lock();
+        try {
+            while (!this.closed && (this.pending.size() >= this.maxPending) &&
+                    !this.pending.containsKey(key)) {
+                this.notFull.await();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Queues the write of the object. Does not block,
+     * so it can be called under the lock of the key.
+     *
+     * @param key    the object key in the cache.
+     * @param object the saved object.
+     */
+    void write(final Object key, final Object object) {
+        offer(key, object);
+    }
+
+    /**
+     * Queues the removal of the object. Does not block,
+     * so it can be called under the lock of the key.
+     *
+     * @param key the object key in the cache.
+     */
+    void delete(final Object key) {
+        offer(key, DELETE);
+    }
+
+    /**
+     * Returns the number of keys which wait for the writer.
+     *
+     * @return The number of pending keys.
+     */
+    int getPendingSize() {
+        final int result;
+        this.lock.lock();
+        try {
+            result = this.pending.size();
+        } finally {
+            this.lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Writes the queued objects once more and stops the writer thread.
+     * Waits for the last batches to be written. The objects which
+     * are queued after that are not written.
+     * Does nothing if the write-behind is already closed.
+     */
+    void close() {
+        final boolean closing;
+        this.lock.lock();
+        try {
+            closing = !this.closed;
+            this.closed = true;
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+        if (closing) {
+            this.executor.execute(this::flush);
+            this.executor.shutdown();
+            awaitTermination();
+        }
+    }
+
+    /**
+     * Waits for the writer thread to write the last batches.
+     */
+    private void awaitTermination() {
+        try {
+            this.executor.awaitTermination(
+                    CacheConstants.WRITER_SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS
+            );
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues the object or the removal by the key. A queued key keeps
+     * its place, only its object is replaced. Schedules a flush
+     * at once if a batch is full.
+     *
+     * @param key    the object key in the cache.
+     * @param object the saved object or the removal.
+     */
+    private void offer(final Object key, final Object object) {
+        final int size;
+        this.lock.lock();
+        try {
+            this.pending.put(key, object);
+            size = this.pending.size();
+        } finally {
+            this.lock.unlock();
+        }
+        if ((size >= this.batchSize) && this.triggered.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(
+                        () -> {
+                            this.triggered.set(false);
+                            flush();
+                        }
+                );
+            } catch (RejectedExecutionException ex) {
+                this.triggered.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writes the failed batch and then the queued objects in batches
+     * until the queue is empty or a batch fails. Does nothing while
+     * a failed batch waits for its retry, unless the write-behind is closed.
+     */
+    private void flush() {
+        if (Validator.isNull(this.failed) || this.closed ||
+                (System.nanoTime() - this.retryAt >= 0)) {
+            Map<Object, Object> batch = Validator.isNotNull(this.failed) ? retake() : take();
+            while (!batch.isEmpty() && write(batch)) {
+                batch = take();
+            }
+        }
+    }
+
+    /**
+     * Takes the failed batch for its retry. The keys which
+     * were written again meanwhile keep the newer write,
+     * so they are removed from the batch.
+     *
+     * @return The failed batch (newer null).
+     */
+    private Map<Object, Object> retake() {
+        final Map<Object, Object> result = this.failed;
+        this.failed = null;
+        this.lock.lock();
+        try {
+            result.keySet().removeIf(this.pending::containsKey);
+        } finally {
+            this.lock.unlock();
+        }
+        if (result.isEmpty()) {
+            this.failures = 0;
+        }
+        return result;
+    }
+
+    /**
+     * Takes the oldest batch from the queue
+     * and wakes up the blocked callers.
+     *
+     * @return The batch in the order it was queued (newer null).
+     */
+    private Map<Object, Object> take() {
+        final Map<Object, Object> result = new LinkedHashMap<>();
+        this.lock.lock();
+        try {
+            final Iterator<Map.Entry<Object, Object>> iterator =
+                    this.pending.entrySet().iterator();
+            Map.Entry<Object, Object> entry;
+            while (iterator.hasNext() && (result.size() < this.batchSize)) {
+                entry = iterator.next();
+                result.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+            if (!result.isEmpty()) {
+                this.notFull.signalAll();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Writes the batch to the store. A failed batch is kept aside
+     * and retried later or dropped after all its retries.
+     *
+     * @param batch the objects or removals by key.
+     * @return true if the next batch can be written, false otherwise.
+     */
+    private boolean write(final Map<Object, Object> batch) {
+        boolean result = true;
+        final Map<Object, Object> objects = new LinkedHashMap<>();
+        final Collection<Object> keys = new ArrayList<>();
+        for (Map.Entry<Object, Object> entry : batch.entrySet()) {
+            if (entry.getValue() == DELETE) {
+                keys.add(entry.getKey());
+            } else {
+                objects.put(entry.getKey(), entry.getValue());
+            }
+        }
+        try {
+            if (!objects.isEmpty()) {
+                this.writer.write(objects);
+            }
+            if (!keys.isEmpty()) {
+                this.writer.delete(keys);
+            }
+            this.statistics.recordWrite(batch.size());
+            this.failures = 0;
+        } catch (Exception ex) {
+            this.statistics.recordWriteFailure();
+            if (this.failures < CacheConstants.WRITER_RETRIES) {
+                this.failures++;
+                this.retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+                        this.delay << Math.min(this.failures, MAX_BACKOFF_SHIFT)
+                );
+                this.failed = batch;
+                result = false;
+            } else {
+                this.statistics.recordWriteDrop(batch.size());
+                this.failures = 0;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package com.salimov.yurii.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The interface of the backing store where the cache writes
+ * the saved and removed objects behind the callers,
+ * see {@link CacheConfig#setWriter(CacheWriter)}.
+ * The writes are coalesced per key and passed in batches
+ * from one thread, a batch which throws is retried.
+ * The objects which are evicted or expired from the cache
+ * are not removed from the store.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public interface CacheWriter {
+
+    /**
+     * Writes the objects to the store.
+     *
+     * @param objects the objects by key in the order they were saved.
+     * @throws Exception if the objects were not written.
+     */
+    void write(Map<Object, Object> objects) throws Exception;
+
+    /**
+     * Removes the objects from the store.
+     *
+     * @param keys the keys of the objects in the order they were removed.
+     * @throws Exception if the objects were not removed.
+     */
+    void delete(Collection<Object> keys) throws Exception;
+}
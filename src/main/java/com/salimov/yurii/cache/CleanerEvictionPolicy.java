@@ -0,0 +1,87 @@
+package com.salimov.yurii.cache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.salimov.yurii.cache.CacheConstants.CACHE_LOAD_FACTOR;
+import static com.salimov.yurii.cache.CacheConstants.KEY_TIMEOUT;
+
+/**
+ * The class implements the eviction policy of the {@link CacheCleaner}:
+ * when the cache passes its maximum size, the keys are sorted
+ * by the {@link KeyComparator} and removed in that order until
+ * the cache is back to the normal size. The time is the number
+ * of the read, so the replay does not depend on the clock.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CleanerEvictionPolicy implements EvictionPolicy {
+
+    /**
+     * The keys of the simulated cache.
+     */
+    private final Map<Object, Key> keys;
+
+    /**
+     * The maximum size of the simulated cache.
+     */
+    private final int maxSize;
+
+    /**
+     * The size to which the cache is cleaned.
+     */
+    private final int normalSize;
+
+    /**
+     * The number of reads.
+     */
+    private long time;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize the maximum size of the simulated cache.
+     */
+    CleanerEvictionPolicy(final int maxSize) {
+        this.keys = new HashMap<>();
+        this.maxSize = maxSize;
+        this.normalSize = (int) (maxSize * CACHE_LOAD_FACTOR);
+    }
+
+    /**
+     * Reads the key and cleans the cache if it is too big.
+     *
+     * @param key the object key in the cache.
+     * @return true if the key was in the cache, false otherwise.
+     */
+    @Override
+    public boolean access(final Object key) {
+        this.time++;
+        final boolean result = this.keys.containsKey(key);
+        if (!result) {
+            final Key node = new Key(key, KEY_TIMEOUT);
+            node.setLifetime(KEY_TIMEOUT, this.time);
+            this.keys.put(key, node);
+            if (this.keys.size() > this.maxSize) {
+                clean();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the keys in the order of the cleaner
+     * until the cache is back to the normal size.
+     */
+    private void clean() {
+        final Key[] sorted = this.keys.values().toArray(new Key[0]);
+        Arrays.sort(sorted, new KeyComparator());
+        for (Key key : sorted) {
+            if (this.keys.size() <= this.normalSize) {
+                break;
+            }
+            this.keys.remove(key.getValue());
+        }
+    }
+}
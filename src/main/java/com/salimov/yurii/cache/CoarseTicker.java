@@ -0,0 +1,76 @@
+package com.salimov.yurii.cache;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.salimov.yurii.cache.CacheConstants.TICKER_RESOLUTION;
+
+/**
+ * The class implements a ticker which caches the system time.
+ * The time is updated by a daemon thread every
+ * {@link CacheConstants#TICKER_RESOLUTION} milliseconds,
+ * so the lookups and expiry checks do not read the system clock.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CoarseTicker implements Ticker {
+
+    /**
+     * The cached time (milliseconds).
+     */
+    private volatile long time;
+
+    /**
+     * Constructor.
+     */
+    private CoarseTicker() {
+        this.time = System.currentTimeMillis();
+        final ScheduledExecutorService service =
+                Executors.newSingleThreadScheduledExecutor(
+                        CacheThreads.newThreadFactory()
+                );
+        service.scheduleAtFixedRate(
+                this::tick, TICKER_RESOLUTION,
+                TICKER_RESOLUTION, TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Returns the single instance of the ticker,
+     * its thread is started on the first call.
+     *
+     * @return The coarse ticker (newer null).
+     */
+    static CoarseTicker getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the cached time.
+     *
+     * @return The current time (milliseconds).
+     */
+    @Override
+    public long read() {
+        return this.time;
+    }
+
+    /**
+     * Caches the system time.
+     */
+    private void tick() {
+        this.time = System.currentTimeMillis();
+    }
+
+    /**
+     * Holds the instance, which is created on the first access.
+     */
+    private static final class Holder {
+
+        /**
+         * The single instance of the ticker.
+         */
+        private static final CoarseTicker INSTANCE = new CoarseTicker();
+    }
+}
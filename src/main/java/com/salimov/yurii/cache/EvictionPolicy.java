@@ -0,0 +1,21 @@
+package com.salimov.yurii.cache;
+
+/**
+ * The eviction policy of a simulated cache. The policy holds
+ * the keys of a cache with a fixed maximum size and decides
+ * which keys are evicted, the {@link CacheSimulator} replays
+ * a trace of reads through it and counts the hits.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public interface EvictionPolicy {
+
+    /**
+     * Reads the key. A missing key is saved,
+     * as if it was loaded after the miss.
+     *
+     * @param key the object key in the cache.
+     * @return true if the key was in the cache, false otherwise.
+     */
+    boolean access(Object key);
+}
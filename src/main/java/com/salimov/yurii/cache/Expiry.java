@@ -0,0 +1,112 @@
+package com.salimov.yurii.cache;
+
+/**
+ * The function which computes the lifetime of an object
+ * when it is created, updated or read in the cache.
+ * Every method returns the new lifetime starting from now,
+ * a read can return the remaining lifetime to keep it.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public interface Expiry {
+
+    /**
+     * Returns the lifetime of a new object.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the saved object.
+     * @param milliseconds the lifetime requested by the put (milliseconds).
+     * @return The lifetime of object (milliseconds).
+     */
+    long expireAfterCreate(Object key, Object object, long milliseconds);
+
+    /**
+     * Returns the lifetime of an object which replaces the saved one.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the new object.
+     * @param milliseconds the lifetime requested by the put (milliseconds).
+     * @param remaining    the remaining lifetime of the saved object (milliseconds).
+     * @return The lifetime of object (milliseconds).
+     */
+    long expireAfterUpdate(Object key, Object object, long milliseconds, long remaining);
+
+    /**
+     * Returns the lifetime of an object after a read.
+     *
+     * @param key       the object key in the cache.
+     * @param object    the read object.
+     * @param lifetime  the lifetime of object (milliseconds).
+     * @param remaining the remaining lifetime of object (milliseconds).
+     * @return The lifetime of object (milliseconds).
+     */
+    long expireAfterRead(Object key, Object object, long lifetime, long remaining);
+
+    /**
+     * Returns the expiry where the lifetime starts
+     * when the object is saved or replaced.
+     *
+     * @return The expire-after-write expiry (newer null).
+     */
+    static Expiry afterWrite() {
+        return new Expiry() {
+            @Override
+            public long expireAfterCreate(
+                    final Object key, final Object object,
+                    final long milliseconds
+            ) {
+                return milliseconds;
+            }
+
+            @Override
+            public long expireAfterUpdate(
+                    final Object key, final Object object,
+                    final long milliseconds, final long remaining
+            ) {
+                return milliseconds;
+            }
+
+            @Override
+            public long expireAfterRead(
+                    final Object key, final Object object,
+                    final long lifetime, final long remaining
+            ) {
+                return remaining;
+            }
+        };
+    }
+
+    /**
+     * Returns the expiry where the lifetime starts
+     * when the object is saved, replaced or read.
+     *
+     * @return The expire-after-access expiry (newer null).
+     */
+    static Expiry afterAccess() {
+        return new Expiry() {
+            @Override
+            public long expireAfterCreate(
+                    final Object key, final Object object,
+                    final long milliseconds
+            ) {
+                return milliseconds;
+            }
+
+            @Override
+            public long expireAfterUpdate(
+                    final Object key, final Object object,
+                    final long milliseconds, final long remaining
+            ) {
+                return milliseconds;
+            }
+
+            @Override
+            public long expireAfterRead(
+                    final Object key, final Object object,
+                    final long lifetime, final long remaining
+            ) {
+                return lifetime;
+            }
+        };
+    }
+}
@@ -1,10 +1,15 @@
 package com.salimov.yurii.cache;
 
+import static com.salimov.yurii.cache.CacheConstants.KEY_ACCESS_GRANULARITY;
 import static com.salimov.yurii.cache.CacheConstants.KEY_TIMEOUT;
 
 /**
  * The class implements a set of methods
  * for working with Key object in the cache.
+ * The key stored in the cache also holds the saved object
+ * and its lifetime, which can be changed in place,
+ * so a read does not rewrite the entry. The key is the node
+ * of the {@link KeyTable}, so it caches the hash of the value.
  *
  * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
  */
@@ -16,20 +21,64 @@ final class Key implements Comparable {
     private final Object value;
 
     /**
-     * The lifetime of object.
+     * The hash code of the value, cached for the table probes.
      */
-    private final long timeout;
+    private final int hash;
 
     /**
-     * Constructor.
+     * The next key in the bin of the key table.
+     */
+    private volatile Key next;
+
+    /**
+     * The time when the object dies (milliseconds).
+     */
+    private volatile long timeout;
+
+    /**
+     * The lifetime of object (milliseconds). The lifetime is
+     * inverted if it is extended on every read, so the key
+     * does not need a separate flag and stays within its size.
+     */
+    private volatile long lifetime;
+
+    /**
+     * The time of the last access in units of the access granularity.
+     * Read and written without synchronization, a stale value
+     * only changes the order of the sampled eviction.
+     */
+    private int accessed;
+
+    /**
+     * The saved object.
+     */
+    private volatile Object object;
+
+    /**
+     * The version of the saved object, changed on every write.
+     * Written under the table lock after the object,
+     * so a read of the version first never pairs
+     * a newer version with an older object.
+     */
+    private volatile int version;
+
+    /**
+     * The tags of the saved object or null.
+     * Guarded by the map lock of the key.
+     */
+    private String[] tags;
+
+    /**
+     * Constructor. The lifetime starts
+     * when the key is saved in the cache.
      *
      * @param value        the object key in the cache.
      * @param milliseconds the lifetime of objects (milliseconds).
      */
     Key(final Object value, final long milliseconds) {
         this.value = value;
-        this.timeout = System.currentTimeMillis() +
-                (milliseconds > 0 ? milliseconds : KEY_TIMEOUT);
+        this.hash = Validator.isNotNull(value) ? value.hashCode() : 0;
+        this.lifetime = (milliseconds > 0) ? milliseconds : KEY_TIMEOUT;
     }
 
     /**
@@ -86,7 +135,7 @@ final class Key implements Comparable {
      */
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return this.hash;
     }
 
     /**
@@ -104,27 +153,29 @@ final class Key implements Comparable {
             result = -1;
         } else {
             final Key other = (Key) object;
-            result = (int) (other.timeout - this.timeout);
+            result = Long.compare(other.timeout, this.timeout);
         }
         return result;
     }
 
     /**
-     * Checks whether the object is dead.
+     * Checks whether the object is dead at the time.
      *
+     * @param now the current time (milliseconds).
      * @return Returns true if object is dead, otherwise returns false.
      */
-    boolean isDead() {
-        return (System.currentTimeMillis() > this.timeout);
+    boolean isDead(final long now) {
+        return (now > this.timeout);
     }
 
     /**
-     * Checks whether the object is alive.
+     * Checks whether the object is alive at the time.
      *
+     * @param now the current time (milliseconds).
      * @return Returns true if object is alive, otherwise returns false.
      */
-    boolean isLive() {
-        return !isDead();
+    boolean isLive(final long now) {
+        return !isDead(now);
     }
 
     /**
@@ -136,6 +187,39 @@ final class Key implements Comparable {
         return this.value;
     }
 
+    /**
+     * Returns a copy of the key with the current lifetime.
+     * The copy does not change when the key is updated,
+     * so the copies can be sorted while the cache is written.
+     *
+     * @return The copy of the key (newer null).
+     */
+    Key snapshot() {
+        final Key result = new Key(this.value);
+        result.lifetime = this.lifetime;
+        result.timeout = this.timeout;
+        result.accessed = this.accessed;
+        return result;
+    }
+
+    /**
+     * Returns the next key in the bin of the key table.
+     *
+     * @return The next key or null.
+     */
+    Key getNext() {
+        return this.next;
+    }
+
+    /**
+     * Sets the next key in the bin of the key table.
+     *
+     * @param next the next key or null.
+     */
+    void setNext(final Key next) {
+        this.next = next;
+    }
+
     /**
      * Returns a object lifetime.
      *
@@ -144,4 +228,152 @@ final class Key implements Comparable {
     long getTimeout() {
         return this.timeout;
     }
+
+    /**
+     * Returns the lifetime of object.
+     *
+     * @return The lifetime of object (milliseconds).
+     */
+    long getLifetime() {
+        final long lifetime = this.lifetime;
+        return (lifetime < 0) ? ~lifetime : lifetime;
+    }
+
+    /**
+     * Sets the lifetime of object starting from the time.
+     * The key stays sliding if it was.
+     *
+     * @param lifetime the lifetime of object (milliseconds).
+     * @param now      the current time (milliseconds).
+     */
+    void setLifetime(final long lifetime, final long now) {
+        this.lifetime = isSliding() ? ~lifetime : lifetime;
+        this.timeout = now + lifetime;
+    }
+
+    /**
+     * Extends the lifetime of object after a read.
+     * The time is written only if it moves forward further than
+     * the access granularity or a quarter of the lifetime,
+     * whichever is smaller, so short lifetimes still slide.
+     *
+     * @param lifetime the lifetime of object from now (milliseconds).
+     * @param now      the current time (milliseconds).
+     */
+    void touch(final long lifetime, final long now) {
+        final long timeout = now + lifetime;
+        final long granularity = Math.min(KEY_ACCESS_GRANULARITY, lifetime / 4);
+        if (Math.abs(timeout - this.timeout) > granularity) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * Checks whether the lifetime is extended on every read.
+     *
+     * @return true if the lifetime is extended on reads, false otherwise.
+     */
+    boolean isSliding() {
+        return (this.lifetime < 0);
+    }
+
+    /**
+     * Sets whether the lifetime is extended on every read.
+     *
+     * @param sliding true if the lifetime is extended on reads.
+     */
+    void setSliding(final boolean sliding) {
+        final long lifetime = getLifetime();
+        this.lifetime = sliding ? ~lifetime : lifetime;
+    }
+
+    /**
+     * Records the access of the key. The time is written
+     * only if it moves to the next unit of the access granularity.
+     *
+     * @param now the current time (milliseconds).
+     */
+    void access(final long now) {
+        final int accessed = (int) (now / KEY_ACCESS_GRANULARITY);
+        if (accessed != this.accessed) {
+            this.accessed = accessed;
+        }
+    }
+
+    /**
+     * Checks whether the key was accessed before the other one.
+     * The times are compared by their difference,
+     * so the order survives the overflow of the units.
+     *
+     * @param other the other key.
+     * @return true if the key was accessed earlier, false otherwise.
+     */
+    boolean isAccessedBefore(final Key other) {
+        return (this.accessed - other.accessed < 0);
+    }
+
+    /**
+     * Returns the saved object.
+     *
+     * @return The saved object.
+     */
+    Object getObject() {
+        return this.object;
+    }
+
+    /**
+     * Sets the saved object and moves the version forward.
+     * Called under the table lock of the key.
+     *
+     * @param object the saved object.
+     */
+    void setObject(final Object object) {
+        this.object = object;
+        this.version = this.version + 1;
+    }
+
+    /**
+     * Returns the version of the saved object.
+     *
+     * @return The version of the saved object.
+     */
+    int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Sets the version of the saved object.
+     *
+     * @param version the version of the saved object.
+     */
+    void setVersion(final int version) {
+        this.version = version;
+    }
+
+    /**
+     * Checks whether the key holds a confirmed absence.
+     *
+     * @return true if the saved object is not found, false otherwise.
+     */
+    boolean isNotFound() {
+        return (this.object == NotFound.INSTANCE);
+    }
+
+    /**
+     * Returns the tags of the saved object.
+     *
+     * @return The tags or null.
+     */
+    String[] getTags() {
+        return this.tags;
+    }
+
+    /**
+     * Sets the tags of the saved object.
+     *
+     * @param tags the tags or null.
+     */
+    void setTags(final String[] tags) {
+        this.tags = tags;
+    }
 }
@@ -0,0 +1,95 @@
+package com.salimov.yurii.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The class implements a set of methods for indexing
+ * the String keys of the cache by prefix.
+ * The keys are stored in a concurrent sorted set,
+ * so the keys with the same prefix are neighbours and
+ * a prefix lookup costs O(log n + matches).
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class KeyPrefixIndex {
+
+    /**
+     * The sorted String keys.
+     */
+    private final NavigableSet<String> keys;
+
+    /**
+     * Constructor.
+     */
+    KeyPrefixIndex() {
+        this.keys = new ConcurrentSkipListSet<>();
+    }
+
+    /**
+     * Adds the key to the index if it is a String.
+     *
+     * @param key the object key in the cache.
+     */
+    void add(final Object key) {
+        if (key instanceof String) {
+            this.keys.add((String) key);
+        }
+    }
+
+    /**
+     * Removes the key from the index if it is a String.
+     *
+     * @param key the object key in the cache.
+     */
+    void remove(final Object key) {
+        if (key instanceof String) {
+            this.keys.remove(key);
+        }
+    }
+
+    /**
+     * Returns the keys which start with the prefix.
+     *
+     * @param prefix the prefix of keys.
+     * @return The keys with the prefix (newer null).
+     */
+    Collection<String> find(final String prefix) {
+        final Collection<String> result = new ArrayList<>();
+        for (String key : this.keys.tailSet(prefix, true)) {
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            result.add(key);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of keys which start with the prefix.
+     *
+     * @param prefix the prefix of keys.
+     * @return The number of keys with the prefix.
+     */
+    int count(final String prefix) {
+        int result = 0;
+        for (String key : this.keys.tailSet(prefix, true)) {
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of indexed keys.
+     *
+     * @return The number of indexed keys.
+     */
+    int size() {
+        return this.keys.size();
+    }
+}
@@ -0,0 +1,736 @@
+package com.salimov.yurii.cache;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import static com.salimov.yurii.cache.CacheConstants.KEY_TABLE_CAPACITY;
+import static com.salimov.yurii.cache.CacheConstants.KEY_TABLE_SAMPLE_ATTEMPTS;
+import static com.salimov.yurii.cache.CacheConstants.KEY_TABLE_SAMPLE_DEPTH;
+import static com.salimov.yurii.cache.CacheConstants.KEY_TABLE_SEGMENTS;
+
+/**
+ * The class implements the concurrent hash table of the cache keys.
+ * Every key is the node of the table: it holds the cached hash,
+ * the link to the next key of its bin, the saved object and
+ * its lifetime, so an entry costs one object and one table slot.
+ * <p>
+ * The table is split into segments by the low bits of the hash.
+ * The writes lock one segment, the reads do not lock.
+ * A segment is resized by relinking its keys into a new table,
+ * a read which could miss a key during the relinking is repeated
+ * under the lock of the segment.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class KeyTable {
+
+    /**
+     * The number of the low bits of the hash which select the segment,
+     * the bin in the segment is selected by the other bits.
+     */
+    private static final int SEGMENT_BITS =
+            Integer.numberOfTrailingZeros(KEY_TABLE_SEGMENTS);
+
+    /**
+     * The segments of the table.
+     */
+    private final Segment[] segments;
+
+    /**
+     * The view of the keys.
+     */
+    private final Set<Key> keySet;
+
+    /**
+     * Constructor.
+     */
+    KeyTable() {
+        this.segments = new Segment[KEY_TABLE_SEGMENTS];
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i] = new Segment();
+        }
+        this.keySet = new KeySet();
+    }
+
+    /**
+     * Returns the saved key which is equal to the key.
+     *
+     * @param key the key to find.
+     * @return The saved key or null.
+     */
+    Key get(final Key key) {
+        final int hash = spread(key.hashCode());
+        return segmentFor(hash).get(key, hash);
+    }
+
+    /**
+     * Computes the saved key under the lock of its segment.
+     * The function gets the key and the saved key or null,
+     * it returns the key to save or null to remove the saved one.
+     *
+     * @param key      the key to compute.
+     * @param function the function which computes the saved key.
+     * @return The saved key or null.
+     */
+    Key compute(final Key key, final BiFunction<Key, Key, Key> function) {
+        final int hash = spread(key.hashCode());
+        return segmentFor(hash).compute(key, hash, function, false);
+    }
+
+    /**
+     * Computes the saved key under the lock of its segment
+     * if the key is saved.
+     *
+     * @param key      the key to compute.
+     * @param function the function which computes the saved key.
+     * @return The saved key or null.
+     */
+    Key computeIfPresent(final Key key, final BiFunction<Key, Key, Key> function) {
+        final int hash = spread(key.hashCode());
+        return segmentFor(hash).compute(key, hash, function, true);
+    }
+
+    /**
+     * Removes the saved key which is equal to the key.
+     *
+     * @param key the key to remove.
+     * @return The removed key or null.
+     */
+    Key remove(final Key key) {
+        final Key[] result = {null};
+        computeIfPresent(
+                key,
+                (_key, node) -> {
+                    result[0] = node;
+                    return null;
+                }
+        );
+        return result[0];
+    }
+
+    /**
+     * Returns the number of saved keys.
+     *
+     * @return The number of saved keys.
+     */
+    int size() {
+        long result = 0;
+        for (Segment segment : this.segments) {
+            result += segment.count;
+        }
+        return (int) Math.min(result, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Checks if the table is empty.
+     *
+     * @return true if there are no saved keys, false otherwise.
+     */
+    boolean isEmpty() {
+        boolean result = true;
+        for (Segment segment : this.segments) {
+            if (segment.count > 0) {
+                result = false;
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a saved key at random without the lock and without
+     * copying the keys. A random position of a random segment is read,
+     * the bin and the place in the bin, as if all segments had the
+     * largest table, and the empty positions are tried again, so every
+     * key is sampled with the same chance. If the table is too sparse,
+     * the bins of the segments are probed after a random one, then
+     * the keys after the empty bins are sampled more often.
+     *
+     * @param random the source of random numbers.
+     * @return The sampled key or null if the table is empty.
+     */
+    Key sample(final Random random) {
+        Key result = null;
+        int length = 0;
+        for (Segment segment : this.segments) {
+            length = Math.max(length, segment.table.length());
+        }
+        for (int i = 0; Validator.isNull(result) && (i < KEY_TABLE_SAMPLE_ATTEMPTS); i++) {
+            result = this.segments[random.nextInt(KEY_TABLE_SEGMENTS)].get(
+                    random.nextInt(length), random.nextInt(KEY_TABLE_SAMPLE_DEPTH)
+            );
+        }
+        final int start = random.nextInt(KEY_TABLE_SEGMENTS);
+        for (int i = 0; Validator.isNull(result) && (i < KEY_TABLE_SEGMENTS); i++) {
+            result = this.segments[(start + i) & (KEY_TABLE_SEGMENTS - 1)].probe(random);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the view of the saved keys. The view reads every segment
+     * at once, so it returns every key which was saved during
+     * the whole iteration once and does not fail on the writes.
+     *
+     * @return The view of the keys (newer null).
+     */
+    Set<Key> keySet() {
+        return this.keySet;
+    }
+
+    /**
+     * Returns the segment of the hash.
+     *
+     * @param hash the spread hash of a key.
+     * @return The segment (newer null).
+     */
+    private Segment segmentFor(final int hash) {
+        return this.segments[hash & (KEY_TABLE_SEGMENTS - 1)];
+    }
+
+    /**
+     * Returns the bin of the hash in the table of a segment.
+     *
+     * @param hash   the spread hash of a key.
+     * @param length the number of bins, a power of two.
+     * @return The index of the bin.
+     */
+    private static int indexFor(final int hash, final int length) {
+        return (hash >>> SEGMENT_BITS) & (length - 1);
+    }
+
+    /**
+     * Spreads the higher bits of the hash to the lower ones,
+     * so the bins are selected by all bits of the hash.
+     *
+     * @param hash the hash of a key.
+     * @return The spread hash.
+     */
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The segment of the table, the writes are synchronized on it.
+     */
+    private static final class Segment {
+
+        /**
+         * The bins of the segment.
+         */
+        private volatile AtomicReferenceArray<Key> table;
+
+        /**
+         * The number of keys in the segment.
+         */
+        private volatile int count;
+
+        /**
+         * The number of relinkings of the segment, odd while
+         * the keys are relinked into a new table.
+         */
+        private volatile int resizes;
+
+        /**
+         * Constructor.
+         */
+        private Segment() {
+            this.table = new AtomicReferenceArray<>(KEY_TABLE_CAPACITY);
+        }
+
+        /**
+         * Returns the saved key. The bin is read without the lock,
+         * the read is repeated under the lock if the key was not found
+         * while the segment was resized.
+         *
+         * @param key  the key to find.
+         * @param hash the spread hash of the key.
+         * @return The saved key or null.
+         */
+        private Key get(final Key key, final int hash) {
+            final int resizes = this.resizes;
+            Key result = find(this.table, key, hash);
+            if (Validator.isNull(result) && (((resizes & 1) != 0) || (resizes != this.resizes))) {
+                synchronized (this) {
+                    result = find(this.table, key, hash);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns the key at the position without the lock.
+         *
+         * @param bin   the index of the bin.
+         * @param depth the place of the key in the bin.
+         * @return The key or null if the position is empty.
+         */
+        private Key get(final int bin, final int depth) {
+            final AtomicReferenceArray<Key> table = this.table;
+            Key result = (bin < table.length()) ? table.get(bin) : null;
+            for (int i = 0; Validator.isNotNull(result) && (i < depth); i++) {
+                result = result.getNext();
+            }
+            return result;
+        }
+
+        /**
+         * Returns a key of the first bin which is not empty after
+         * a random one and chooses the key in the bin at random.
+         * Reads without the lock.
+         *
+         * @param random the source of random numbers.
+         * @return The sampled key or null if the segment is empty.
+         */
+        private Key probe(final Random random) {
+            Key result = null;
+            if (this.count > 0) {
+                final AtomicReferenceArray<Key> table = this.table;
+                final int length = table.length();
+                final int start = random.nextInt(length);
+                for (int i = 0; Validator.isNull(result) && (i < length); i++) {
+                    result = table.get((start + i) & (length - 1));
+                }
+                int seen = 1;
+                for (Key node = Validator.isNotNull(result) ? result.getNext() : null;
+                     Validator.isNotNull(node); node = node.getNext()) {
+                    if (random.nextInt(++seen) == 0) {
+                        result = node;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Computes the saved key under the lock of the segment.
+         *
+         * @param key       the key to compute.
+         * @param hash      the spread hash of the key.
+         * @param function  the function which computes the saved key.
+         * @param ifPresent the function is applied only to a saved key.
+         * @return The saved key or null.
+         */
+        private synchronized Key compute(
+                final Key key,
+                final int hash,
+                final BiFunction<Key, Key, Key> function,
+                final boolean ifPresent
+        ) {
+            final AtomicReferenceArray<Key> table = this.table;
+            final int index = indexFor(hash, table.length());
+            Key previous = null;
+            Key node = table.get(index);
+            while (Validator.isNotNull(node) && !matches(node, key, hash)) {
+                previous = node;
+                node = node.getNext();
+            }
+            Key result = node;
+            if (Validator.isNotNull(node) || !ifPresent) {
+                result = function.apply(key, node);
+                if (Validator.isNull(node)) {
+                    if (Validator.isNotNull(result)) {
+                        result.setNext(table.get(index));
+                        table.set(index, result);
+                        this.count++;
+                        resizeIfFull();
+                    }
+                } else if (result != node) {
+                    final Key next = node.getNext();
+                    if (Validator.isNotNull(result)) {
+                        result.setNext(next);
+                    }
+                    final Key link = Validator.isNotNull(result) ? result : next;
+                    if (Validator.isNull(previous)) {
+                        table.set(index, link);
+                    } else {
+                        previous.setNext(link);
+                    }
+                    if (Validator.isNull(result)) {
+                        this.count--;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns the keys of the segment. The bins are read
+         * without the lock, the keys are read again under the lock
+         * if the segment was resized meanwhile.
+         *
+         * @return The keys of the segment (newer null).
+         */
+        private Key[] snapshot() {
+            final int resizes = this.resizes;
+            Key[] result = collect();
+            if (((resizes & 1) != 0) || (resizes != this.resizes)) {
+                synchronized (this) {
+                    result = collect();
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Collects the keys of the bins of the segment.
+         *
+         * @return The keys of the segment (newer null).
+         */
+        private Key[] collect() {
+            final AtomicReferenceArray<Key> table = this.table;
+            Key[] result = new Key[this.count];
+            int size = 0;
+            for (int i = 0; i < table.length(); i++) {
+                for (Key node = table.get(i); Validator.isNotNull(node); node = node.getNext()) {
+                    if (size == result.length) {
+                        result = Arrays.copyOf(result, Math.max(size << 1, 16));
+                    }
+                    result[size++] = node;
+                }
+            }
+            return (size == result.length) ? result : Arrays.copyOf(result, size);
+        }
+
+        /**
+         * Doubles the table if the segment is full. The keys are
+         * relinked into the new table in place, so they are not copied.
+         * A relinked key links only to the keys which are relinked
+         * before it, so the reads of the old table never loop.
+         */
+        private void resizeIfFull() {
+            final AtomicReferenceArray<Key> table = this.table;
+            final int length = table.length();
+            if ((this.count > length - (length >>> 2)) && (length < (1 << 30))) {
+                final AtomicReferenceArray<Key> newTable = new AtomicReferenceArray<>(length << 1);
+                this.resizes++;
+                for (int i = 0; i < length; i++) {
+                    Key node = table.get(i);
+                    while (Validator.isNotNull(node)) {
+                        final Key next = node.getNext();
+                        final int index = indexFor(spread(node.hashCode()), newTable.length());
+                        node.setNext(newTable.get(index));
+                        newTable.set(index, node);
+                        node = next;
+                    }
+                }
+                this.table = newTable;
+                this.resizes++;
+            }
+        }
+
+        /**
+         * Finds the key in the bin of the table.
+         *
+         * @param table the table of the segment.
+         * @param key   the key to find.
+         * @param hash  the spread hash of the key.
+         * @return The saved key or null.
+         */
+        private static Key find(
+                final AtomicReferenceArray<Key> table,
+                final Key key,
+                final int hash
+        ) {
+            Key node = table.get(indexFor(hash, table.length()));
+            while (Validator.isNotNull(node) && !matches(node, key, hash)) {
+                node = node.getNext();
+            }
+            return node;
+        }
+
+        /**
+         * Checks if the saved key is equal to the key.
+         * The cached hashes are compared first.
+         *
+         * @param node the saved key.
+         * @param key  the key to find.
+         * @param hash the spread hash of the key.
+         * @return true if the keys are equal, false otherwise.
+         */
+        private static boolean matches(final Key node, final Key key, final int hash) {
+            return (node == key) ||
+                    ((spread(node.hashCode()) == hash) && node.equals(key));
+        }
+    }
+
+    /**
+     * The view of the keys of the table.
+     */
+    private final class KeySet extends AbstractSet<Key> {
+
+        /**
+         * Returns the iterator of the keys.
+         *
+         * @return The iterator (newer null).
+         */
+        @Override
+        public Iterator<Key> iterator() {
+            return new KeyIterator();
+        }
+
+        /**
+         * Returns the number of keys.
+         *
+         * @return The number of keys.
+         */
+        @Override
+        public int size() {
+            return KeyTable.this.size();
+        }
+
+        /**
+         * Checks if the table is empty.
+         *
+         * @return true if there are no keys, false otherwise.
+         */
+        @Override
+        public boolean isEmpty() {
+            return KeyTable.this.isEmpty();
+        }
+
+        /**
+         * Checks if the key is saved.
+         *
+         * @param object the key to check.
+         * @return true if the key is saved, false otherwise.
+         */
+        @Override
+        public boolean contains(final Object object) {
+            return (object instanceof Key) && Validator.isNotNull(get((Key) object));
+        }
+
+        /**
+         * Removes the key.
+         *
+         * @param object the key to remove.
+         * @return true if the key was removed, false otherwise.
+         */
+        @Override
+        public boolean remove(final Object object) {
+            return (object instanceof Key) && Validator.isNotNull(KeyTable.this.remove((Key) object));
+        }
+
+        /**
+         * Returns the spliterator of the keys, which is split
+         * by segments first and then within a segment.
+         *
+         * @return The spliterator (newer null).
+         */
+        @Override
+        public Spliterator<Key> spliterator() {
+            return new KeySpliterator(0, KeyTable.this.segments.length);
+        }
+    }
+
+    /**
+     * The iterator of the keys, which reads one segment at once.
+     */
+    private final class KeyIterator implements Iterator<Key> {
+
+        /**
+         * The index of the next segment.
+         */
+        private int segment;
+
+        /**
+         * The keys of the current segment.
+         */
+        private Key[] keys;
+
+        /**
+         * The index of the next key of the current segment.
+         */
+        private int index;
+
+        /**
+         * The last returned key.
+         */
+        private Key last;
+
+        /**
+         * Constructor.
+         */
+        private KeyIterator() {
+            this.keys = new Key[0];
+        }
+
+        /**
+         * Checks if there are more keys.
+         *
+         * @return true if there are more keys, false otherwise.
+         */
+        @Override
+        public boolean hasNext() {
+            while ((this.index >= this.keys.length) &&
+                    (this.segment < KeyTable.this.segments.length)) {
+                this.keys = KeyTable.this.segments[this.segment++].snapshot();
+                this.index = 0;
+            }
+            return (this.index < this.keys.length);
+        }
+
+        /**
+         * Returns the next key.
+         *
+         * @return The next key (newer null).
+         */
+        @Override
+        public Key next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.keys[this.index++];
+            return this.last;
+        }
+
+        /**
+         * Removes the last returned key.
+         */
+        @Override
+        public void remove() {
+            if (Validator.isNull(this.last)) {
+                throw new IllegalStateException();
+            }
+            KeyTable.this.remove(this.last);
+            this.last = null;
+        }
+    }
+
+    /**
+     * The spliterator of the keys of a range of segments.
+     */
+    private final class KeySpliterator implements Spliterator<Key> {
+
+        /**
+         * The characteristics of the spliterators.
+         */
+        private static final int CHARACTERISTICS =
+                Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.CONCURRENT;
+
+        /**
+         * The index of the first segment.
+         */
+        private int from;
+
+        /**
+         * The index after the last segment.
+         */
+        private final int to;
+
+        /**
+         * The spliterator of the keys of the current segment or null.
+         */
+        private Spliterator<Key> current;
+
+        /**
+         * Constructor.
+         *
+         * @param from the index of the first segment.
+         * @param to   the index after the last segment.
+         */
+        private KeySpliterator(final int from, final int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Performs the action for the next key.
+         *
+         * @param action the action to perform.
+         * @return true if there was a key, false otherwise.
+         */
+        @Override
+        public boolean tryAdvance(final Consumer<? super Key> action) {
+            boolean result = false;
+            while (!result && Validator.isNotNull(nextSegment())) {
+                result = this.current.tryAdvance(action);
+                if (!result) {
+                    this.current = null;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Performs the action for every remaining key.
+         *
+         * @param action the action to perform.
+         */
+        @Override
+        public void forEachRemaining(final Consumer<? super Key> action) {
+            while (Validator.isNotNull(nextSegment())) {
+                this.current.forEachRemaining(action);
+                this.current = null;
+            }
+        }
+
+        /**
+         * Splits the range of segments in halves, a single segment
+         * is split by its keys.
+         *
+         * @return The spliterator of the other part or null.
+         */
+        @Override
+        public Spliterator<Key> trySplit() {
+            Spliterator<Key> result = null;
+            if (this.to - this.from > 1) {
+                final int middle = (this.from + this.to) >>> 1;
+                result = new KeySpliterator(this.from, middle);
+                this.from = middle;
+            } else if (Validator.isNotNull(nextSegment())) {
+                result = this.current.trySplit();
+            }
+            return result;
+        }
+
+        /**
+         * Returns the estimated number of the remaining keys.
+         *
+         * @return The estimated number of keys.
+         */
+        @Override
+        public long estimateSize() {
+            long result = Validator.isNotNull(this.current) ?
+                    this.current.estimateSize() : 0L;
+            for (int i = this.from; i < this.to; i++) {
+                result += KeyTable.this.segments[i].count;
+            }
+            return result;
+        }
+
+        /**
+         * Returns the characteristics of the spliterator.
+         *
+         * @return The characteristics.
+         */
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+
+        /**
+         * Returns the spliterator of the current segment,
+         * reads the next segment if there is no current one.
+         *
+         * @return The spliterator of the current segment or null.
+         */
+        private Spliterator<Key> nextSegment() {
+            if (Validator.isNull(this.current) && (this.from < this.to)) {
+                this.current = Spliterators.spliterator(
+                        KeyTable.this.segments[this.from++].snapshot(), CHARACTERISTICS
+                );
+            }
+            return this.current;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.salimov.yurii.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class implements a set of methods for indexing
+ * the keys of the cache by tags. A tag is removed from
+ * the index when its last key is removed, so the index
+ * cleans itself when the objects die or are evicted.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class KeyTagIndex {
+
+    /**
+     * The keys of every tag.
+     */
+    private final Map<String, Set<Key>> tags;
+
+    /**
+     * Constructor.
+     */
+    KeyTagIndex() {
+        this.tags = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds the key to the index of its tags.
+     * Costs O(number of the key tags).
+     *
+     * @param key the key in the cache.
+     */
+    void add(final Key key) {
+        final String[] tags = key.getTags();
+        if (Validator.isNotEmpty(tags)) {
+            for (String tag : tags) {
+                this.tags.compute(
+                        tag,
+                        (_tag, keys) -> {
+                            final Set<Key> result = Validator.isNotNull(keys) ?
+                                    keys : ConcurrentHashMap.newKeySet();
+                            result.add(key);
+                            return result;
+                        }
+                );
+            }
+        }
+    }
+
+    /**
+     * Removes the key from the index of its tags.
+     * Costs O(number of the key tags).
+     *
+     * @param key the key in the cache.
+     */
+    void remove(final Key key) {
+        final String[] tags = key.getTags();
+        if (Validator.isNotEmpty(tags)) {
+            for (String tag : tags) {
+                this.tags.computeIfPresent(
+                        tag,
+                        (_tag, keys) -> {
+                            keys.remove(key);
+                            return keys.isEmpty() ? null : keys;
+                        }
+                );
+            }
+        }
+    }
+
+    /**
+     * Removes the tag from the index.
+     *
+     * @param tag the tag of keys.
+     * @return The keys which had the tag (newer null).
+     */
+    Collection<Key> removeTag(final String tag) {
+        final Set<Key> keys = this.tags.remove(tag);
+        return Validator.isNotNull(keys) ? keys : Collections.emptySet();
+    }
+
+    /**
+     * Returns the number of keys with the tag.
+     *
+     * @param tag the tag of keys.
+     * @return The number of keys with the tag.
+     */
+    int count(final String tag) {
+        final Set<Key> keys = this.tags.get(tag);
+        return Validator.isNotNull(keys) ? keys.size() : 0;
+    }
+}
@@ -0,0 +1,177 @@
+package com.salimov.yurii.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.salimov.yurii.cache.CacheConstants.HISTOGRAM_STRIPES;
+import static com.salimov.yurii.cache.CacheConstants.HISTOGRAM_SUB_BUCKET_BITS;
+
+/**
+ * The class implements a lock-free histogram of latencies.
+ * The buckets are log-linear: every power of two is split into
+ * 2^{@link CacheConstants#HISTOGRAM_SUB_BUCKET_BITS} linear buckets,
+ * so a percentile is reported with a relative error of 1/16 from
+ * nanoseconds to hours. The counts are striped by thread,
+ * a record is one atomic increment and does not allocate.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of linear buckets in one power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << HISTOGRAM_SUB_BUCKET_BITS;
+
+    /**
+     * The number of buckets in one stripe.
+     */
+    private static final int BUCKETS = (Long.SIZE - HISTOGRAM_SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /**
+     * The counts of all stripes, one stripe after another.
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * The mask of a stripe index.
+     */
+    private final int mask;
+
+    /**
+     * Constructor.
+     */
+    LatencyHistogram() {
+        final int stripes = Integer.highestOneBit(2 * HISTOGRAM_STRIPES - 1);
+        this.counts = new AtomicLongArray(stripes * BUCKETS);
+        this.mask = stripes - 1;
+    }
+
+    /**
+     * Returns a string representation of the object.
+     *
+     * @return A string representation of the object.
+     */
+    @Override
+    public String toString() {
+        return "LatencyHistogram{" +
+                "count=" + getCount() +
+                ", p50=" + getPercentile(50.0) +
+                ", p99=" + getPercentile(99.0) +
+                ", p99.9=" + getPercentile(99.9) +
+                '}';
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return The number of recorded latencies.
+     */
+    public long getCount() {
+        final long[] buckets = merge();
+        long result = 0;
+        for (long count : buckets) {
+            result += count;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the latency at the percentile.
+     * The latency is the upper bound of its bucket.
+     *
+     * @param percentile the percentile from 0 to 100.
+     * @return The latency (nanoseconds), 0 if nothing is recorded.
+     */
+    public long getPercentile(final double percentile) {
+        final long[] buckets = merge();
+        long total = 0;
+        for (long count : buckets) {
+            total += count;
+        }
+        long result = 0;
+        if (total > 0) {
+            final double bounded = Math.min(Math.max(percentile, 0.0), 100.0);
+            final long rank = Math.max((long) Math.ceil(bounded / 100.0 * total), 1L);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    result = upperBound(i);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forgets the recorded latencies, so the histogram
+     * shows only the next interval. The latencies which
+     * are recorded meanwhile may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < this.counts.length(); i++) {
+            this.counts.set(i, 0L);
+        }
+    }
+
+    /**
+     * Records the latency.
+     *
+     * @param nanoseconds the latency (nanoseconds).
+     */
+    void record(final long nanoseconds) {
+        final int stripe = (int) Thread.currentThread().getId() & this.mask;
+        this.counts.incrementAndGet(stripe * BUCKETS + index(nanoseconds));
+    }
+
+    /**
+     * Sums the counts of all stripes.
+     *
+     * @return The counts of buckets.
+     */
+    private long[] merge() {
+        final long[] result = new long[BUCKETS];
+        for (int i = 0; i < this.counts.length(); i++) {
+            result[i % BUCKETS] += this.counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bucket of the latency.
+     *
+     * @param value the latency (nanoseconds).
+     * @return The index of the bucket.
+     */
+    static int index(final long value) {
+        final int result;
+        if (value < SUB_BUCKETS) {
+            result = (int) Math.max(value, 0L);
+        } else {
+            final int shift = Long.SIZE - Long.numberOfLeadingZeros(value)
+                    - 1 - HISTOGRAM_SUB_BUCKET_BITS;
+            result = ((shift + 1) << HISTOGRAM_SUB_BUCKET_BITS) +
+                    (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the largest latency of the bucket.
+     *
+     * @param index the index of the bucket.
+     * @return The upper bound of the bucket (nanoseconds).
+     */
+    static long upperBound(final int index) {
+        final long result;
+        if (index < SUB_BUCKETS) {
+            result = index;
+        } else {
+            final int shift = (index >>> HISTOGRAM_SUB_BUCKET_BITS) - 1;
+            final long base = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+            result = base + (1L << shift) - 1;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+package com.salimov.yurii.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The class implements the least recently used eviction policy,
+ * the reference which the other policies are compared with.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class LruEvictionPolicy implements EvictionPolicy {
+
+    /**
+     * The keys of the simulated cache in the order of access.
+     */
+    private final Map<Object, Boolean> keys;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize the maximum size of the simulated cache.
+     */
+    LruEvictionPolicy(final int maxSize) {
+        this.keys = new LinkedHashMap<Object, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Reads the key, the least recently used key
+     * is evicted if the cache is full.
+     *
+     * @param key the object key in the cache.
+     * @return true if the key was in the cache, false otherwise.
+     */
+    @Override
+    public boolean access(final Object key) {
+        return (this.keys.put(key, Boolean.TRUE) != null);
+    }
+}
@@ -0,0 +1,31 @@
+package com.salimov.yurii.cache;
+
+/**
+ * The object which is saved in the cache in place of
+ * an object that the backend confirmed as not found.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class NotFound {
+
+    /**
+     * The single instance of the class.
+     */
+    static final NotFound INSTANCE = new NotFound();
+
+    /**
+     * Private Constructor.
+     */
+    private NotFound() {
+    }
+
+    /**
+     * Returns a string representation of the object.
+     *
+     * @return A string representation of the object.
+     */
+    @Override
+    public String toString() {
+        return "NotFound";
+    }
+}
@@ -0,0 +1,106 @@
+package com.salimov.yurii.cache;
+
+/**
+ * The class implements the result of one replay
+ * of a trace through an eviction policy.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public final class SimulationResult {
+
+    /**
+     * The name of the eviction policy.
+     */
+    private final String policy;
+
+    /**
+     * The maximum size of the simulated cache.
+     */
+    private final int maxSize;
+
+    /**
+     * The number of reads.
+     */
+    private final long events;
+
+    /**
+     * The number of reads which found the key.
+     */
+    private final long hits;
+
+    /**
+     * Constructor.
+     *
+     * @param policy  the name of the eviction policy.
+     * @param maxSize the maximum size of the simulated cache.
+     * @param events  the number of reads.
+     * @param hits    the number of reads which found the key.
+     */
+    SimulationResult(
+            final String policy, final int maxSize,
+            final long events, final long hits
+    ) {
+        this.policy = policy;
+        this.maxSize = maxSize;
+        this.events = events;
+        this.hits = hits;
+    }
+
+    /**
+     * Returns a string representation of the object.
+     *
+     * @return A string representation of the object.
+     */
+    @Override
+    public String toString() {
+        return String.format(
+                "%-10s size=%-8d events=%-12d hitRatio=%.4f",
+                this.policy, this.maxSize, this.events, getHitRatio()
+        );
+    }
+
+    /**
+     * Returns the name of the eviction policy.
+     *
+     * @return The name of the policy.
+     */
+    public String getPolicy() {
+        return this.policy;
+    }
+
+    /**
+     * Returns the maximum size of the simulated cache.
+     *
+     * @return The maximum size.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Returns the number of reads.
+     *
+     * @return The number of reads.
+     */
+    public long getEvents() {
+        return this.events;
+    }
+
+    /**
+     * Returns the number of reads which found the key.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the ratio of hits to all reads.
+     *
+     * @return The hit ratio from 0 to 1.
+     */
+    public double getHitRatio() {
+        return (this.events > 0) ? (double) this.hits / this.events : 0.0;
+    }
+}
@@ -1,11 +1,21 @@
 package com.salimov.yurii.cache;
 
+import java.util.Collection;
 import java.util.Map;
+import java.util.function.BiFunction;
 
 /**
+ * The cache is closed when it is not needed anymore,
+ * so its threads are stopped and its MBean is unregistered:
+ * <pre>
+ * try (TemporaryCache cache = TemporaryCache.newTemporaryCache(config)) {
+ *     ...
+ * }
+ * </pre>
+ *
  * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
  */
-public interface TemporaryCache extends Cache {
+public interface TemporaryCache extends Cache, AutoCloseable {
 
     /**
      * Saves object in the cache.
@@ -64,6 +74,183 @@ public interface TemporaryCache extends Cache {
             long seconds, long milliseconds
     );
 
+    /**
+     * Saves object in the cache with tags. The object is removed
+     * with all objects of a tag by {@link #invalidateTag(String)}.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save.
+     * @param milliseconds the lifetime of objects (milliseconds).
+     * @param tags         the tags of the object.
+     * @return The saving object.
+     */
+    Object put(Object key, Object object, long milliseconds, String... tags);
+
+    /**
+     * Saves the confirmed absence of object with key
+     * with the default lifetime of absences. A read of the key
+     * returns null, but {@link #isNotFound(Object)} returns true,
+     * so the caller does not have to ask the backend again.
+     *
+     * @param key the object key in the cache.
+     */
+    void putNotFound(Object key);
+
+    /**
+     * Saves the confirmed absence of object with key.
+     * The absences are bounded separately from the objects,
+     * see {@link CacheConfig#setNotFoundMaxSize(int)}.
+     *
+     * @param key          the object key in the cache.
+     * @param milliseconds the lifetime of the absence (milliseconds).
+     */
+    void putNotFound(Object key, long milliseconds);
+
+    /**
+     * Checks if the cache holds the confirmed absence of object with key.
+     *
+     * @param key the object key in the cache.
+     * @return true if the object is confirmed as not found, false otherwise.
+     */
+    boolean isNotFound(Object key);
+
+    /**
+     * Saves object in the cache. The lifetime of the object
+     * is extended on every read.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save.
+     * @param milliseconds the lifetime of objects after
+     *                     the last read (milliseconds).
+     * @return The saving object.
+     */
+    Object putExpireAfterAccess(Object key, Object object, long milliseconds);
+
+    /**
+     * Saves object in the cache with default lifetime
+     * if there is no live object with the key.
+     *
+     * @param key    the object key in the cache.
+     * @param object the object to save.
+     * @return The live object with the key or null if the object was saved.
+     */
+    Object putIfAbsent(Object key, Object object);
+
+    /**
+     * Saves object in the cache if there is no live object with
+     * the key. The check and the save are atomic, a dead object
+     * and a confirmed absence are replaced.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save.
+     * @param milliseconds the lifetime of objects (milliseconds).
+     * @return The live object with the key or null if the object was saved.
+     */
+    Object putIfAbsent(Object key, Object object, long milliseconds);
+
+    /**
+     * Replaces the live object with key if it is equal to
+     * the expected one. The lifetime of the object restarts
+     * with the lifetime it was saved with.
+     *
+     * @param key      the object key in the cache.
+     * @param expected the expected saved object.
+     * @param object   the object to save.
+     * @return true if the object was replaced, false otherwise.
+     */
+    boolean replace(Object key, Object expected, Object object);
+
+    /**
+     * Computes the object with key atomically. The function gets
+     * the key and the live object or null, it returns the object
+     * to save or null to remove the saved one. A new object gets
+     * the default lifetime, a replaced one restarts its lifetime.
+     *
+     * @param key      the object key in the cache.
+     * @param function the function which computes the object.
+     * @return The computed object or null.
+     */
+    Object compute(Object key, BiFunction<Object, Object, Object> function);
+
+    /**
+     * Computes the object with key atomically. The function gets
+     * the key and the live object or null, it returns the object
+     * to save or null to remove the saved one. The function
+     * must not use the cache, it runs under the lock of the key.
+     *
+     * @param key          the object key in the cache.
+     * @param function     the function which computes the object.
+     * @param milliseconds the lifetime of the computed object (milliseconds),
+     *                     if it is not positive, a new object gets the default
+     *                     lifetime and a replaced one restarts its lifetime.
+     * @return The computed object or null.
+     */
+    Object compute(
+            Object key,
+            BiFunction<Object, Object, Object> function,
+            long milliseconds
+    );
+
+    /**
+     * Saves object in the cache if there is no live object with key,
+     * otherwise saves the result of the function of the live
+     * and the given objects. A new object gets the default lifetime,
+     * a replaced one restarts its lifetime.
+     *
+     * @param key      the object key in the cache.
+     * @param object   the object to save or merge.
+     * @param function the function of the live and the given objects,
+     *                 it returns the object to save or null to remove.
+     * @return The saved object or null if it was removed.
+     */
+    Object merge(
+            Object key, Object object,
+            BiFunction<Object, Object, Object> function
+    );
+
+    /**
+     * Saves object in the cache if there is no live object with key,
+     * otherwise saves the result of the function of the live
+     * and the given objects. The merge is atomic.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save or merge.
+     * @param function     the function of the live and the given objects,
+     *                     it returns the object to save or null to remove.
+     * @param milliseconds the lifetime of the saved object (milliseconds),
+     *                     if it is not positive, a new object gets the default
+     *                     lifetime and a replaced one restarts its lifetime.
+     * @return The saved object or null if it was removed.
+     */
+    Object merge(
+            Object key, Object object,
+            BiFunction<Object, Object, Object> function,
+            long milliseconds
+    );
+
+    /**
+     * Returns the live object with key and its version.
+     * The read does not lock, so it can be used for optimistic
+     * updates with {@link #compareAndSet(Object, int, Object)}.
+     *
+     * @param key the object key in the cache.
+     * @return The object with its version or null.
+     */
+    VersionedObject getVersioned(Object key);
+
+    /**
+     * Replaces the live object with key if its version was not
+     * changed since it was read by {@link #getVersioned(Object)}.
+     * Every write of an object changes its version. The lifetime
+     * of the object restarts with the lifetime it was saved with.
+     *
+     * @param key     the object key in the cache.
+     * @param version the version of the read object.
+     * @param object  the object to save.
+     * @return true if the object was replaced, false otherwise.
+     */
+    boolean compareAndSet(Object key, int version, Object object);
+
     /**
      * Saves objects in the cache.
      * Saves objects if map is not empty.
@@ -114,6 +301,67 @@ public interface TemporaryCache extends Cache {
             long seconds, long milliseconds
     );
 
+    /**
+     * Sets the function which computes the lifetime of objects
+     * when they are created, updated or read.
+     * The default expiry starts the lifetime when
+     * the object is saved, see {@link Expiry#afterWrite()}.
+     *
+     * @param expiry the function which computes the lifetime of objects.
+     */
+    void setExpiry(Expiry expiry);
+
+    /**
+     * Removes all objects with the tag from the cache.
+     * Costs O(number of the tag objects), the other
+     * objects are not touched.
+     *
+     * @param tag the tag of objects.
+     * @return The number of removed objects.
+     */
+    int invalidateTag(String tag);
+
+    /**
+     * Returns all objects from cache whose String key
+     * starts with the prefix.
+     *
+     * @param prefix the prefix of keys.
+     * @return The objects with the prefix or empty list (newer null).
+     */
+    Collection<Object> getAllByPrefix(String prefix);
+
+    /**
+     * Returns the number of objects whose String key
+     * starts with the prefix. The dead objects and the confirmed
+     * absences are not counted, as by {@link #getAllByPrefix(String)}.
+     *
+     * @param prefix the prefix of keys.
+     * @return The number of objects with the prefix.
+     */
+    int countByPrefix(String prefix);
+
+    /**
+     * Removes all objects from cache whose String key
+     * starts with the prefix. Costs O(matches) if the prefix
+     * index is enabled, see {@link CacheConfig#setPrefixIndex(boolean)}.
+     *
+     * @param prefix the prefix of keys.
+     * @return The number of removed objects.
+     */
+    int removeByPrefix(String prefix);
+
+    /**
+     * Stops the maintenance of the cache and unregisters its MBean.
+     * The objects stay in the cache, but they are not removed
+     * when they die. A region of a {@link CacheManager} is
+     * destroyed in the manager. If the cache returned by
+     * {@link #getTemporaryCache()} is closed, the next call
+     * of that method returns a new cache.
+     * Does nothing if the cache is already closed.
+     */
+    @Override
+    void close();
+
     /**
      *
      * @return
@@ -121,4 +369,16 @@ public interface TemporaryCache extends Cache {
     static TemporaryCache getTemporaryCache() {
         return TemporaryCacheImpl.getInstance();
     }
+
+    /**
+     * Creates a new cache with the configuration.
+     *
+     * @param config the configuration of the cache.
+     * @return The new cache (newer null).
+     */
+    static TemporaryCache newTemporaryCache(final CacheConfig config) {
+        return new TemporaryCacheImpl(
+                Validator.isNotNull(config) ? config : new CacheConfig()
+        );
+    }
 }
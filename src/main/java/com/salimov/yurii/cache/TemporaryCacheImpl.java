@@ -1,7 +1,18 @@
 package com.salimov.yurii.cache;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static com.salimov.yurii.cache.Validator.isNull;
 
@@ -12,38 +23,357 @@ import static com.salimov.yurii.cache.Validator.isNull;
  */
 final class TemporaryCacheImpl implements TemporaryCache {
 
-    private static TemporaryCacheImpl cache;
+    private static volatile TemporaryCacheImpl cache;
 
     /**
-     * The map where can be stored some objects.
+     * The result of a computation which keeps the saved object.
      */
-    private volatile Map<Key, Object> map;
+    private static final Object UNCHANGED = new Object();
 
     /**
-     * Сache is modified.
+     * The table where can be stored some objects.
+     * Every key is the node of the table, the key holds
+     * the saved object and its lifetime.
      */
-    private volatile boolean modified;
+    private final KeyTable map;
 
     /**
-     * Private constructor.
+     * The number of modifications of the cache.
      */
-    private TemporaryCacheImpl() {
-        this.map = new ConcurrentHashMap<>();
-        this.modified = true;
-        final CacheCleaner cleaner = new CacheCleaner(this);
-        final CacheScheduledExecutor executor = new CacheScheduledExecutor(cleaner);
-        executor.go();
+    private final LongAdder modifications;
+
+    /**
+     * The last built information about objects in cache.
+     */
+    private final AtomicReference<Entries> entries;
+
+    /**
+     * The statistics about the cache and its maintenance.
+     */
+    private final CacheStatistics statistics;
+
+    /**
+     * The executor which runs the cache maintenance.
+     */
+    private final CacheScheduledExecutor executor;
+
+    /**
+     * The cleaner of the cache.
+     */
+    private final CacheCleaner cleaner;
+
+    /**
+     * The shadow entries of the evicted keys or null if the cache
+     * is not a region of a manager with a memory budget.
+     */
+    private final CacheGhosts ghosts;
+
+    /**
+     * The write-behind to the backing store or null if there is no writer.
+     */
+    private final CacheWriteBehind writeBehind;
+
+    /**
+     * The function which computes the lifetime of objects.
+     */
+    private volatile Expiry expiry;
+
+    /**
+     * The index of String keys by prefix or null if it is disabled.
+     */
+    private final KeyPrefixIndex index;
+
+    /**
+     * The index of keys by tags.
+     */
+    private final KeyTagIndex tags;
+
+    /**
+     * The default lifetime of a confirmed absence (milliseconds).
+     */
+    private final long notFoundTimeout;
+
+    /**
+     * The maximum number of confirmed absences.
+     */
+    private final int notFoundMaxSize;
+
+    /**
+     * The keys of confirmed absences in the order they were saved.
+     */
+    private final Queue<Key> notFoundKeys;
+
+    /**
+     * The number of keys in the queue of confirmed absences.
+     */
+    private final AtomicInteger notFoundQueued;
+
+    /**
+     * The doorkeeper which admits new keys or null if it is disabled.
+     */
+    private final CacheDoorkeeper doorkeeper;
+
+    /**
+     * The detection of the most read keys or null if it is disabled.
+     */
+    private final CacheHotKeys hotKeys;
+
+    /**
+     * The read copies of the hot objects or null if they are disabled.
+     */
+    private final CacheReplicas replicas;
+
+    /**
+     * The hot keys are being detected.
+     */
+    private final AtomicBoolean detecting;
+
+    /**
+     * The source of time for the lifetime of objects.
+     */
+    private final Ticker ticker;
+
+    /**
+     * The lifetime of objects which are saved without a lifetime (milliseconds).
+     */
+    private volatile long defaultTimeout;
+
+    /**
+     * The management interface of the cache.
+     */
+    private final CacheMXBeanImpl mbean;
+
+    /**
+     * The manager of the cache or null if the cache is not a region.
+     */
+    private final CacheManager manager;
+
+    /**
+     * The name of the cache.
+     */
+    private final String name;
+
+    /**
+     * The cache is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructor. The cache is maintained in its own threads.
+     *
+     * @param config the configuration of the cache.
+     */
+    TemporaryCacheImpl(final CacheConfig config) {
+        this(config, null);
+    }
+
+    /**
+     * Constructor. The cache is a region of the manager, it is maintained
+     * in the services of the manager which are shared with the other
+     * regions and it is closed through the manager. The evicted keys
+     * are tracked if the manager has a memory budget, so the manager
+     * can estimate the gain of more memory for the cache.
+     *
+     * @param config  the configuration of the cache.
+     * @param manager the manager of the cache or null
+     *                to maintain the cache in its own threads.
+     */
+    TemporaryCacheImpl(final CacheConfig config, final CacheManager manager) {
+        final ScheduledExecutorService scheduler = Validator.isNotNull(manager) ?
+                manager.getScheduler() : null;
+        final ForkJoinPool pool = Validator.isNotNull(manager) ? manager.getPool() : null;
+        this.manager = manager;
+        this.name = config.getName();
+        this.map = new KeyTable();
+        this.modifications = new LongAdder();
+        this.entries = new AtomicReference<>();
+        this.hotKeys = (config.getHotKeys() > 0) ?
+                new CacheHotKeys(config.getHotKeys()) : null;
+        this.replicas = (Validator.isNotNull(this.hotKeys) && config.isHotKeyReplicas()) ?
+                new CacheReplicas() : null;
+        this.detecting = new AtomicBoolean();
+        this.statistics = new CacheStatistics(config.isLatencyHistograms(), this.hotKeys);
+        this.ticker = config.getTicker();
+        this.defaultTimeout = config.getDefaultTimeout();
+        this.expiry = Expiry.afterWrite();
+        this.index = config.isPrefixIndex() ? new KeyPrefixIndex() : null;
+        this.tags = new KeyTagIndex();
+        this.notFoundTimeout = config.getNotFoundTimeout();
+        this.notFoundMaxSize = config.getNotFoundMaxSize();
+        this.notFoundKeys = new ConcurrentLinkedQueue<>();
+        this.notFoundQueued = new AtomicInteger();
+        this.doorkeeper = (config.getDoorkeeperWindow() > 0) ?
+                new CacheDoorkeeper(config.getDoorkeeperWindow()) : null;
+        this.ghosts = (Validator.isNotNull(manager) && (manager.getMemoryBudget() > 0)) ?
+                new CacheGhosts(getGhostWindow(config.getMaxSize())) : null;
+        this.writeBehind = Validator.isNotNull(config.getWriter()) ?
+                new CacheWriteBehind(
+                        config.getWriter(), config.getWriterBatchSize(),
+                        config.getWriterDelay(), config.getWriterMaxPending(),
+                        this.statistics
+                ) : null;
+        final CacheCleaner cleaner = new CacheCleaner(
+                this, config.getMaxSize(), this.ticker, pool, this.ghosts,
+                new CacheEvictionSampler(
+                        this.map, config.getEviction(), config.getEvictionSamples()
+                )
+        );
+        this.cleaner = cleaner;
+        this.executor = new CacheScheduledExecutor(
+                () -> maintain(cleaner), this.statistics, cleaner.getMaxSize()
+        );
+        this.mbean = new CacheMXBeanImpl(
+                config.getName(), this, cleaner, this.executor
+        );
+        this.mbean.register();
+        if (Validator.isNotNull(scheduler)) {
+            this.executor.go(scheduler);
+        } else {
+            this.executor.go();
+        }
+    }
+
+    /**
+     * Stops the maintenance of the cache and unregisters its MBean.
+     * A region is destroyed in its manager, see
+     * {@link CacheManager#destroyRegion(String)}. A closed shared
+     * cache is replaced by a new one in {@link #getInstance()}.
+     * Does nothing if the cache is already closed.
+     */
+    @Override
+    public void close() {
+        if (Validator.isNotNull(this.manager)) {
+            this.manager.destroyRegion(this.name, this);
+        } else {
+            shutdown();
+        }
+    }
+
+    /**
+     * Stops the maintenance of the cache and unregisters its MBean.
+     * The own threads of the cache are shut down, the shared ones
+     * are not. The objects stay in the cache, but they are
+     * not removed when they die. The queued writes are written
+     * to the backing store, the later ones are not.
+     * Does nothing if the cache is already closed.
+     */
+    synchronized void shutdown() {
+        if (!this.closed) {
+            this.closed = true;
+            this.executor.shutdown();
+            this.cleaner.close();
+            this.mbean.unregister();
+            if (Validator.isNotNull(this.writeBehind)) {
+                this.writeBehind.close();
+            }
+        }
+    }
+
+    /**
+     * Checks if the cache is closed.
+     *
+     * @return true if the cache is closed, false otherwise.
+     */
+    boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Returns the live object with key without counting the read
+     * and without extending the lifetime of the object.
+     *
+     * @param key the object key in the cache.
+     * @return The object with key or null.
+     */
+    Object peek(final Object key) {
+        Object result = null;
+        if (Validator.isNotNull(key)) {
+            final Key node = this.map.get(new Key(key));
+            if (Validator.isNotNull(node) && !node.isNotFound() &&
+                    !node.isDead(this.ticker.read())) {
+                result = node.getObject();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the object of the key is copied for the readers.
+     *
+     * @param key the object key in the cache.
+     * @return true if the object is copied, false otherwise.
+     */
+    boolean isReplicated(final Object key) {
+        return Validator.isNotNull(this.replicas) && this.replicas.contains(key);
+    }
+
+    /**
+     * Returns the estimated memory which the cache can take.
+     *
+     * @return The memory limit (bytes).
+     */
+    long getMemoryLimit() {
+        return this.cleaner.getMaxSize() * CacheConstants.ENTRY_MEMORY_OVERHEAD;
+    }
+
+    /**
+     * Sets the estimated memory which the cache can take.
+     * The maximum size of objects is set from the memory
+     * and the maintenance is triggered to clean the cache to it.
+     *
+     * @param memoryLimit the memory limit (bytes).
+     */
+    void setMemoryLimit(final long memoryLimit) {
+        final int maxSize = (int) Math.min(
+                Math.max(memoryLimit / CacheConstants.ENTRY_MEMORY_OVERHEAD, 1L),
+                Integer.MAX_VALUE
+        );
+        this.mbean.setMaxSize(maxSize);
+        if (Validator.isNotNull(this.ghosts)) {
+            this.ghosts.setWindow(getGhostWindow(maxSize));
+        }
+    }
+
+    /**
+     * Returns the number of misses of the evicted keys since
+     * the last call, which would be hits if the cache were bigger.
+     *
+     * @return The number of misses of the evicted keys.
+     */
+    long takeGhostHits() {
+        return Validator.isNotNull(this.ghosts) ? this.ghosts.takeHits() : 0L;
+    }
+
+    /**
+     * Returns the number of evicted keys which are tracked in one window.
+     *
+     * @return The number of evicted keys, 0 if they are not tracked.
+     */
+    int getGhostWindow() {
+        return Validator.isNotNull(this.ghosts) ? this.ghosts.getWindow() : 0;
     }
 
+    /**
+     * Returns the shared cache, a new one
+     * if the previous one was closed.
+     *
+     * @return The shared cache (newer null).
+     */
     static TemporaryCacheImpl getInstance() {
-        if (isNull(cache)) {
-            cache = new TemporaryCacheImpl();
+        if (isNull(cache) || cache.isClosed()) {
+            synchronized (TemporaryCacheImpl.class) {
+                if (isNull(cache) || cache.isClosed()) {
+                    cache = new TemporaryCacheImpl(new CacheConfig());
+                }
+            }
         }
         return cache;
     }
 
     /**
      * Saves object in the cache with default lifetime.
+     * The key can be the cache key itself,
+     * then the lifetime of the key is used.
      *
      * @param key    the object key in the cache.
      * @param object the object to save.
@@ -51,8 +381,14 @@ final class TemporaryCacheImpl implements TemporaryCache {
      */
     @Override
     public Object put(final Object key, final Object object) {
-        final long milliseconds = -1L;
-        return put(key, object, milliseconds);
+        final Object result;
+        if (key instanceof Key) {
+            result = put((Key) key, object);
+        } else {
+            final long milliseconds = -1L;
+            result = put(key, object, milliseconds);
+        }
+        return result;
     }
 
     /**
@@ -65,328 +401,1464 @@ final class TemporaryCacheImpl implements TemporaryCache {
      */
     @Override
     public Object put(final Object key, final Object object, final long milliseconds) {
-        final Key keyObject = new Key(key, milliseconds);
+        final Key keyObject = newKey(key, milliseconds);
+        return put(keyObject, object);
+    }
+
+    /**
+     * Saves object in the cache.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save.
+     * @param seconds      the lifetime of objects (seconds).
+     * @param milliseconds the lifetime of objects (milliseconds).
+     * @return The saving object.
+     */
+    @Override
+    public Object put(
+            final Object key, final Object object,
+            final long seconds, final long milliseconds
+    ) {
+        final long _milliseconds = milliseconds + 1000 * seconds;
+        return put(key, object, _milliseconds);
+    }
+
+    /**
+     * Saves object in the cache.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save.
+     * @param minutes      the lifetime of objects (minutes).
+     * @param seconds      the lifetime of objects (seconds).
+     * @param milliseconds the lifetime of objects (milliseconds).
+     * @return The saving object.
+     */
+    @Override
+    public Object put(
+            final Object key, final Object object,
+            final long minutes, final long seconds,
+            final long milliseconds
+    ) {
+        final long _seconds = seconds + 60 * minutes;
+        return put(key, object, _seconds, milliseconds);
+    }
+
+    /**
+     * Saves object in the cache.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save.
+     * @param hours        the lifetime of objects (hours).
+     * @param minutes      the lifetime of objects (minutes).
+     * @param seconds      the lifetime of objects (seconds).
+     * @param milliseconds the lifetime of objects (milliseconds).
+     * @return The saving object.
+     */
+    @Override
+    public Object put(
+            final Object key, final Object object,
+            final long hours, final long minutes,
+            final long seconds, final long milliseconds
+    ) {
+        final long _minutes = minutes + 60 * hours;
+        return put(key, object, _minutes, seconds, milliseconds);
+    }
+
+    /**
+     * Saves object in the cache with tags. The object is removed
+     * with all objects of a tag by {@link #invalidateTag(String)}.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save.
+     * @param milliseconds the lifetime of objects (milliseconds).
+     * @param tags         the tags of the object.
+     * @return The saving object.
+     */
+    @Override
+    public Object put(
+            final Object key, final Object object,
+            final long milliseconds, final String... tags
+    ) {
+        final Key keyObject = newKey(key, milliseconds);
+        if (Validator.isNotEmpty(tags)) {
+            keyObject.setTags(tags.clone());
+        }
+        return put(keyObject, object);
+    }
+
+    /**
+     * Saves the confirmed absence of object with key
+     * with the default lifetime of absences.
+     *
+     * @param key the object key in the cache.
+     */
+    @Override
+    public void putNotFound(final Object key) {
+        putNotFound(key, this.notFoundTimeout);
+    }
+
+    /**
+     * Saves the confirmed absence of object with key. The absences
+     * are bounded separately from the objects, the oldest
+     * absence is removed when there are too many of them.
+     *
+     * @param key          the object key in the cache.
+     * @param milliseconds the lifetime of the absence (milliseconds).
+     */
+    @Override
+    public void putNotFound(final Object key, final long milliseconds) {
+        if (Validator.isNotNull(key)) {
+            final Key keyObject = new Key(
+                    key, (milliseconds > 0) ? milliseconds : this.notFoundTimeout
+            );
+            put(keyObject, NotFound.INSTANCE);
+            trimNotFound();
+        }
+    }
+
+    /**
+     * Checks if the cache holds the confirmed absence of object with key.
+     *
+     * @param key the object key in the cache.
+     * @return true if the object is confirmed as not found, false otherwise.
+     */
+    @Override
+    public boolean isNotFound(final Object key) {
+        boolean result = false;
+        if (Validator.isNotNull(key)) {
+            final Key node = this.map.get(new Key(key));
+            result = Validator.isNotNull(node) && node.isNotFound() &&
+                    !node.isDead(this.ticker.read());
+        }
+        return result;
+    }
+
+    /**
+     * Saves object in the cache. The lifetime of the object
+     * is extended on every read.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save.
+     * @param milliseconds the lifetime of objects after
+     *                     the last read (milliseconds).
+     * @return The saving object.
+     */
+    @Override
+    public Object putExpireAfterAccess(
+            final Object key, final Object object,
+            final long milliseconds
+    ) {
+        final Key keyObject = newKey(key, milliseconds);
+        keyObject.setSliding(true);
         return put(keyObject, object);
     }
 
     /**
-     * Saves object in the cache.
+     * Saves object in the cache with default lifetime
+     * if there is no live object with the key.
+     *
+     * @param key    the object key in the cache.
+     * @param object the object to save.
+     * @return The live object with the key or null if the object was saved.
+     */
+    @Override
+    public Object putIfAbsent(final Object key, final Object object) {
+        final long milliseconds = -1L;
+        return putIfAbsent(key, object, milliseconds);
+    }
+
+    /**
+     * Saves object in the cache if there is no live object with
+     * the key. The check and the save are atomic, a dead object
+     * and a confirmed absence are replaced.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save.
+     * @param milliseconds the lifetime of objects (milliseconds).
+     * @return The live object with the key or null if the object was saved.
+     */
+    @Override
+    public Object putIfAbsent(
+            final Object key, final Object object,
+            final long milliseconds
+    ) {
+        final Object[] result = {null};
+        if (Validator.isNotNull(key) && Validator.isNotNull(object)) {
+            compute(
+                    new Key(key), milliseconds,
+                    node -> {
+                        result[0] = Validator.isNotNull(node) ? node.getObject() : null;
+                        return Validator.isNotNull(node) ? UNCHANGED : object;
+                    }
+            );
+        }
+        return result[0];
+    }
+
+    /**
+     * Saves object in the cache if the condition holds.
+     * The condition is checked under the lock of the key,
+     * so the check and the save are atomic.
+     * The condition must not use the cache.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save.
+     * @param milliseconds the lifetime of objects (milliseconds).
+     * @param condition    the condition of the save.
+     */
+    void putIf(
+            final Object key, final Object object,
+            final long milliseconds, final BooleanSupplier condition
+    ) {
+        if (Validator.isNotNull(key) && Validator.isNotNull(object)) {
+            compute(
+                    new Key(key), milliseconds,
+                    node -> condition.getAsBoolean() ? object : UNCHANGED
+            );
+        }
+    }
+
+    /**
+     * Replaces the live object with key if it is equal to
+     * the expected one. The lifetime of the object restarts
+     * with the lifetime it was saved with.
+     *
+     * @param key      the object key in the cache.
+     * @param expected the expected saved object.
+     * @param object   the object to save.
+     * @return true if the object was replaced, false otherwise.
+     */
+    @Override
+    public boolean replace(final Object key, final Object expected, final Object object) {
+        final boolean[] result = {false};
+        if (Validator.isNotNull(key) && Validator.isNotNull(expected) &&
+                Validator.isNotNull(object)) {
+            compute(
+                    new Key(key), -1L,
+                    node -> {
+                        result[0] = Validator.isNotNull(node) &&
+                                expected.equals(node.getObject());
+                        return result[0] ? object : UNCHANGED;
+                    }
+            );
+        }
+        return result[0];
+    }
+
+    /**
+     * Computes the object with key atomically. A new object gets
+     * the default lifetime, a replaced one restarts its lifetime.
+     *
+     * @param key      the object key in the cache.
+     * @param function the function which computes the object.
+     * @return The computed object or null.
+     */
+    @Override
+    public Object compute(
+            final Object key,
+            final BiFunction<Object, Object, Object> function
+    ) {
+        final long milliseconds = -1L;
+        return compute(key, function, milliseconds);
+    }
+
+    /**
+     * Computes the object with key atomically. The function gets
+     * the key and the live object or null, it returns the object
+     * to save or null to remove the saved one.
+     *
+     * @param key          the object key in the cache.
+     * @param function     the function which computes the object.
+     * @param milliseconds the lifetime of the computed object (milliseconds).
+     * @return The computed object or null.
+     */
+    @Override
+    public Object compute(
+            final Object key,
+            final BiFunction<Object, Object, Object> function,
+            final long milliseconds
+    ) {
+        Object result = null;
+        if (Validator.isNotNull(key) && Validator.isNotNull(function)) {
+            result = compute(
+                    new Key(key), milliseconds,
+                    node -> function.apply(
+                            key, Validator.isNotNull(node) ? node.getObject() : null
+                    )
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Saves object in the cache or merges it with the live object.
+     * A new object gets the default lifetime, a replaced one
+     * restarts its lifetime.
+     *
+     * @param key      the object key in the cache.
+     * @param object   the object to save or merge.
+     * @param function the function of the live and the given objects.
+     * @return The saved object or null if it was removed.
+     */
+    @Override
+    public Object merge(
+            final Object key, final Object object,
+            final BiFunction<Object, Object, Object> function
+    ) {
+        final long milliseconds = -1L;
+        return merge(key, object, function, milliseconds);
+    }
+
+    /**
+     * Saves object in the cache if there is no live object with key,
+     * otherwise saves the result of the function of the live
+     * and the given objects.
+     *
+     * @param key          the object key in the cache.
+     * @param object       the object to save or merge.
+     * @param function     the function of the live and the given objects.
+     * @param milliseconds the lifetime of the saved object (milliseconds).
+     * @return The saved object or null if it was removed.
+     */
+    @Override
+    public Object merge(
+            final Object key, final Object object,
+            final BiFunction<Object, Object, Object> function,
+            final long milliseconds
+    ) {
+        Object result = null;
+        if (Validator.isNotNull(key) && Validator.isNotNull(object) &&
+                Validator.isNotNull(function)) {
+            result = compute(
+                    new Key(key), milliseconds,
+                    node -> Validator.isNotNull(node) ?
+                            function.apply(node.getObject(), object) : object
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Returns the live object with key and its version.
+     * The version is read before the object, so the pair
+     * is never newer than the version.
+     *
+     * @param key the object key in the cache.
+     * @return The object with its version or null.
+     */
+    @Override
+    public VersionedObject getVersioned(final Object key) {
+        VersionedObject result = null;
+        if (Validator.isNotNull(key)) {
+            final Key node = getNode(new Key(key));
+            if (Validator.isNotNull(node)) {
+                final int version = node.getVersion();
+                result = new VersionedObject(node.getObject(), version);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the live object with key if its version
+     * was not changed since it was read.
+     *
+     * @param key     the object key in the cache.
+     * @param version the version of the read object.
+     * @param object  the object to save.
+     * @return true if the object was replaced, false otherwise.
+     */
+    @Override
+    public boolean compareAndSet(final Object key, final int version, final Object object) {
+        final boolean[] result = {false};
+        if (Validator.isNotNull(key) && Validator.isNotNull(object)) {
+            compute(
+                    new Key(key), -1L,
+                    node -> {
+                        result[0] = Validator.isNotNull(node) &&
+                                (node.getVersion() == version);
+                        return result[0] ? object : UNCHANGED;
+                    }
+            );
+        }
+        return result[0];
+    }
+
+    /**
+     * Saves objects in the cache.
+     * Saves objects if map is not empty.
+     *
+     * @param map          the map with objects to save.
+     * @param milliseconds the lifetime of objects (milliseconds).
+     */
+    @Override
+    public void putAll(final Map<Object, Object> map, final long milliseconds) {
+        if (Validator.isNotEmpty(map)) {
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue(), milliseconds);
+            }
+        }
+    }
+
+    /**
+     * Saves objects in the cache.
+     *
+     * @param map          the map with objects to save.
+     * @param seconds      the lifetime of objects (seconds).
+     * @param milliseconds the lifetime of objects (milliseconds).
+     */
+    @Override
+    public void putAll(
+            final Map<Object, Object> map,
+            final long seconds, final long milliseconds
+    ) {
+        final long _milliseconds = milliseconds + 1000 * seconds;
+        putAll(map, _milliseconds);
+    }
+
+    /**
+     * Saves objects in the cache.
+     *
+     * @param map          the map with objects to save.
+     * @param minutes      the lifetime of objects (minutes).
+     * @param seconds      the lifetime of objects (seconds).
+     * @param milliseconds the lifetime of objects (milliseconds).
+     */
+    @Override
+    public void putAll(
+            final Map<Object, Object> map,
+            final long minutes, final long seconds,
+            final long milliseconds
+    ) {
+        final long _seconds = seconds + 60 * minutes;
+        putAll(map, _seconds, milliseconds);
+    }
+
+    /**
+     * Saves objects in the cache.
+     *
+     * @param map          the map with objects to save.
+     * @param hours        the lifetime of objects (hours).
+     * @param minutes      the lifetime of objects (minutes).
+     * @param seconds      the lifetime of objects (seconds).
+     * @param milliseconds the lifetime of objects (milliseconds).
+     */
+    @Override
+    public void putAll(
+            final Map<Object, Object> map,
+            final long hours, final long minutes,
+            final long seconds, final long milliseconds
+    ) {
+        final long _minutes = minutes + 60 * hours;
+        putAll(map, _minutes, seconds, milliseconds);
+    }
+
+    /**
+     * Saves objects in the cache with default lifetime.
+     *
+     * @param map the map with objects to save.
+     */
+    @Override
+    public void putAll(final Map<Object, Object> map) {
+        final long milliseconds = -1L;
+        putAll(map, milliseconds);
+    }
+
+    /**
+     * Returns object from cache with key.
+     * Returns null if key is null.
+     *
+     * @param key the object key in the cache.
+     * @return The object with key or null.
+     */
+    @Override
+    public Object get(final Object key) {
+        Object object = null;
+        if (Validator.isNotNull(key)) {
+            final Object event = CacheEvents.beginOperation();
+            final long start = this.statistics.startTimer();
+            final Key _key = new Key(key);
+            object = get(_key);
+            this.statistics.recordLatency(
+                    Validator.isNotNull(object) ?
+                            CacheOperation.GET_HIT : CacheOperation.GET_MISS,
+                    start
+            );
+            CacheEvents.endOperation(event, "get", key);
+        }
+        return object;
+    }
+
+    /**
+     * Returns all objects from cache with subKey.
+     *
+     * @return The objects with key or empty list (newer null).
+     */
+    @Override
+    public Collection<Object> getAll() {
+        final long now = this.ticker.read();
+        final Collection<Object> values = new ArrayList<>();
+        for (Key key : this.map.keySet()) {
+            if (!key.isDead(now) && !key.isNotFound()) {
+                values.add(key.getObject());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Removes object from cache with key.
+     * Removes object if key is not null.
+     * The key can be the cache key itself,
+     * as returned by the {@link #keySet()}, then the object
+     * is removed from the cache only, as the maintenance does.
+     * Otherwise the object is also removed from the backing store.
+     *
+     * @param key the object key in the cache.
+     */
+    @Override
+    public void remove(final Object key) {
+        final long start = this.statistics.startTimer();
+        if (key instanceof Key) {
+            remove((Key) key);
+        } else if (Validator.isNotNull(key)) {
+            final Key _key = new Key(key);
+            delete(_key);
+        }
+        this.statistics.recordLatency(CacheOperation.REMOVE, start);
+    }
+
+    /**
+     * Removes object from cache with key if the object is dead.
+     *
+     * @param key the object key in the cache.
+     * @return true if the object was removed, false otherwise.
+     */
+    @Override
+    public boolean removeIfDead(final Object key) {
+        boolean result = false;
+        if (Validator.isNotNull(key)) {
+            final Key _key = (key instanceof Key) ? (Key) key : new Key(key);
+            final long now = this.ticker.read();
+            result = removeIf(_key, node -> node.isDead(now));
+        }
+        return result;
+    }
+
+    /**
+     * Removes the objects with the keys from the cache one by one
+     * in the calling thread, as {@link #remove(Object)} does.
+     * The keys are also removed from the prefix and tag indexes,
+     * and the objects are removed from the backing store, except
+     * the ones whose key is the cache key itself.
+     * Does nothing if the keys are null or empty.
+     *
+     * @param keys the object keys in the cache.
+     */
+    @Override
+    public void removeAll(final Collection<Object> keys) {
+        if (Validator.isNotEmpty(keys)) {
+            keys.forEach(this::remove);
+        }
+    }
+
+    /**
+     * Removes all objects with the tag from the cache.
+     * Costs O(number of the tag objects), the other
+     * objects are not touched. The objects are also
+     * removed from the backing store.
+     *
+     * @param tag the tag of objects.
+     * @return The number of removed objects.
+     */
+    @Override
+    public int invalidateTag(final String tag) {
+        int result = 0;
+        if (Validator.isNotNull(tag)) {
+            for (Key key : this.tags.removeTag(tag)) {
+                if (delete(key, node -> (node == key) && hasTag(node, tag))) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all objects from cache whose String key
+     * starts with the prefix.
+     *
+     * @param prefix the prefix of keys.
+     * @return The objects with the prefix or empty list (newer null).
+     */
+    @Override
+    public Collection<Object> getAllByPrefix(final String prefix) {
+        final Collection<Object> result = new ArrayList<>();
+        if (Validator.isNotNull(prefix)) {
+            Object object;
+            for (String key : findByPrefix(prefix)) {
+                object = get(key);
+                if (Validator.isNotNull(object)) {
+                    result.add(object);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of objects whose String key
+     * starts with the prefix. The dead objects and the confirmed
+     * absences are not counted, as by {@link #getAllByPrefix(String)}.
+     *
+     * @param prefix the prefix of keys.
+     * @return The number of objects with the prefix.
+     */
+    @Override
+    public int countByPrefix(final String prefix) {
+        int result = 0;
+        if (Validator.isNotNull(prefix)) {
+            for (String key : findByPrefix(prefix)) {
+                if (exist(new Key(key))) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all objects from cache whose String key
+     * starts with the prefix. The objects are also
+     * removed from the backing store.
+     *
+     * @param prefix the prefix of keys.
+     * @return The number of removed objects.
+     */
+    @Override
+    public int removeByPrefix(final String prefix) {
+        int result = 0;
+        if (Validator.isNotNull(prefix)) {
+            for (String key : findByPrefix(prefix)) {
+                if (delete(new Key(key), node -> true)) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets map with objects.
+     *
+     * @param map the map with objects.
+     */
+    @Override
+    public void setAll(final Map<Object, Object> map) {
+        clear();
+        if (Validator.isNotEmpty(map)) {
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Clears the cache.
+     */
+    @Override
+    public void clear() {
+        for (Key key : this.map.keySet()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Clears objects by class. The objects are also
+     * removed from the backing store.
+     *
+     * @param objectsClass the objects class to remove.
+     */
+    @Override
+    public void remove(final Class objectsClass) {
+        if (Validator.isNotNull(objectsClass)) {
+            for (Key key : this.map.keySet()) {
+                if (filterByClass(key, objectsClass)) {
+                    delete(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if exist object with the key in the cache.
+     *
+     * @param key the object key in the cache.
+     * @return true if object is exist, false otherwise.
+     */
+    @Override
+    public boolean exist(final Object key) {
+        final Key _key = new Key(key);
+        return Validator.isNotNull(key) && exist(_key);
+    }
+
+    /**
+     * Returns information about objects in cache.
+     * Information about cache saved in cache too.
+     * The information is built with the number of modifications
+     * counted before the build, so it is rebuilt if the cache was
+     * modified since then, and an older build never replaces a newer one.
+     * Saving the information is not counted as a modification.
+     *
+     * @return The maps with entries (newer null).
+     */
+    @Override
+    public Map<String, String> getEntriesToString() {
+        final String key = "Cache information";
+        final long version = this.modifications.sum();
+        Entries result = this.entries.get();
+        if (isNull(result) || (result.version != version)) {
+            final Object event = CacheEvents.beginRebuild();
+            result = new Entries(version, getNewEntriesToString(key));
+            CacheEvents.endRebuild(event, result.map.size());
+            this.entries.accumulateAndGet(
+                    result,
+                    (last, built) -> (isNull(last) || (last.version < built.version)) ?
+                            built : last
+            );
+            put(newKey(key, -1L), result.map, false);
+        }
+        return result.map;
+    }
+
+    /**
+     * @return
+     */
+    @Override
+    public Set<Key> keySet() {
+        return this.map.keySet();
+    }
+
+    /**
+     * @return
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.map.isEmpty();
+    }
+
+    /**
+     * Sets the function which computes the lifetime of objects.
+     *
+     * @param expiry the function which computes the lifetime of objects.
+     */
+    @Override
+    public void setExpiry(final Expiry expiry) {
+        if (Validator.isNotNull(expiry)) {
+            this.expiry = expiry;
+        }
+    }
+
+    /**
+     * Gets size of objects which storing in the cache.
+     * The confirmed absences are not counted, they are
+     * bounded separately.
+     *
+     * @return The size of objects which storing in the cache.
+     */
+    public int getSize() {
+        final long notFoundSize = this.statistics.getNotFoundSize();
+        return (int) Math.max(this.map.size() - notFoundSize, 0);
+    }
+
+    /**
+     * Returns the lifetime of objects which are saved without a lifetime.
+     *
+     * @return The default lifetime of objects (milliseconds).
+     */
+    long getDefaultTimeout() {
+        return this.defaultTimeout;
+    }
+
+    /**
+     * Sets the lifetime of objects which are saved without a lifetime.
+     * Sets the default lifetime if it is not positive.
+     *
+     * @param defaultTimeout the default lifetime of objects (milliseconds).
+     */
+    void setDefaultTimeout(final long defaultTimeout) {
+        this.defaultTimeout = (defaultTimeout > 0) ?
+                defaultTimeout : CacheConstants.KEY_TIMEOUT;
+    }
+
+    /**
+     * Returns statistics about the cache and its maintenance.
+     *
+     * @return The cache statistics (newer null).
+     */
+    @Override
+    public CacheStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Removes object from cache with key.
+     * Removes object if key is not null.
+     *
+     * @param key the object key in the cache.
+     * @return true if the object was removed, false otherwise.
+     */
+    boolean remove(final Key key) {
+        return Validator.isNotNull(key) && removeIf(key, node -> true);
+    }
+
+    /**
+     * Removes object from cache with key to free the space.
+     * A confirmed absence is not removed, it is not counted
+     * in the size of the cache and has its own limit.
+     *
+     * @param key the object key in the cache.
+     * @return true if the object was removed, false otherwise.
+     */
+    boolean evict(final Key key) {
+        return Validator.isNotNull(key) && removeIf(key, node -> !node.isNotFound());
+    }
+
+    /**
+     * Saves object in the cache.
+     * If the key is already in the cache, its saved object
+     * and lifetime are replaced in place. A new key is not saved
+     * if the doorkeeper does not admit it.
+     *
+     * @param key    the object key in the cache.
+     * @param object the object to save.
+     * @return The saving object.
+     */
+    private Object put(final Key key, final Object object) {
+        return put(key, object, true);
+    }
+
+    /**
+     * Saves object in the cache. The object is written
+     * to the backing store if the write is a modification,
+     * even if the doorkeeper does not admit the key.
+     * The write of a key which is not admitted is queued
+     * under the map lock of the key too, so it is ordered
+     * with the other writes of the key.
+     * The confirmed absences are not written, and they are
+     * saved even if the doorkeeper has not seen the key,
+     * so the first miss of a key is already cached.
+     *
+     * @param key    the object key in the cache.
+     * @param object the object to save.
+     * @param modify the write is counted as a modification.
+     * @return The saving object.
+     */
+    private Object put(final Key key, final Object object, final boolean modify) {
+        final Object[] savingObject = {null};
+        if (Validator.isNotNull(key) && Validator.isNotNull(object)) {
+            final boolean write = modify && (object != NotFound.INSTANCE);
+            if (write) {
+                awaitWriteBehind(key);
+            }
+            final boolean admitted = admit(key) || (object == NotFound.INSTANCE);
+            if (admitted || write) {
+                savingObject[0] = put(key, object, modify, write, admitted);
+            }
+        }
+        return Validator.isNotNull(savingObject[0]) ? savingObject[0] : object;
+    }
+
+    /**
+     * Saves the object in the cache. A key which is not admitted
+     * is not added, but it is updated if another writer has added
+     * it meanwhile, so the cache does not keep an older object
+     * than the backing store.
+     *
+     * @param key      the object key in the cache.
+     * @param object   the object to save.
+     * @param modify   the write is counted as a modification.
+     * @param write    the object is written to the backing store.
+     * @param admitted the key is admitted by the doorkeeper.
+     * @return The replaced live object or null.
+     */
+    private Object put(
+            final Key key, final Object object,
+            final boolean modify, final boolean write,
+            final boolean admitted
+    ) {
+        final Object[] savingObject = {null};
+        final Object event = CacheEvents.beginOperation();
+        final long start = this.statistics.startTimer();
+        final long now = this.ticker.read();
+        this.map.compute(
+                key,
+                (_key, node) -> {
+                    final Key result;
+                    final boolean notFound;
+                    if (isNull(node) && !admitted) {
+                        result = null;
+                        notFound = false;
+                    } else if (isNull(node)) {
+                        result = key;
+                        notFound = false;
+                        insert(result, object, key.getLifetime(), now);
+                    } else if (node.isDead(now)) {
+                        result = node;
+                        notFound = result.isNotFound();
+                        result.setSliding(key.isSliding());
+                        retag(result, key.getTags());
+                        create(result, object, key.getLifetime(), now);
+                    } else {
+                        result = node;
+                        notFound = result.isNotFound();
+                        if (!notFound) {
+                            savingObject[0] = result.getObject();
+                        }
+                        result.setSliding(key.isSliding());
+                        retag(result, key.getTags());
+                        update(result, object, key.getLifetime(), now);
+                    }
+                    if (Validator.isNotNull(result)) {
+                        countNotFound(result, notFound);
+                    }
+                    if (write) {
+                        writeBehind(key, object);
+                    }
+                    return result;
+                }
+        );
+        if (modify) {
+            modify();
+        }
+        onWrite();
+        this.statistics.recordLatency(CacheOperation.PUT, start);
+        CacheEvents.endOperation(event, "put", key.getValue());
+        return savingObject[0];
+    }
+
+    /**
+     * Computes the object with key atomically under the table lock
+     * of the key. The function gets the live key or null, it returns
+     * the object to save, null to remove the saved key or
+     * {@link #UNCHANGED} to keep it. The key is shown to the doorkeeper,
+     * but it is always admitted, the callers rely on the outcome.
+     * The computed object or the removal is written to the backing store.
+     *
+     * @param key          the object key in the cache.
+     * @param milliseconds the lifetime of the saved object (milliseconds),
+     *                     if it is not positive, a new object gets the default
+     *                     lifetime and a replaced one restarts its lifetime.
+     * @param function     the function which computes the object.
+     * @return The live object after the computation or null.
+     */
+    private Object compute(
+            final Key key, final long milliseconds,
+            final Function<Key, Object> function
+    ) {
+        final Object[] result = {null};
+        final boolean[] modified = {false};
+        final Object event = CacheEvents.beginOperation();
+        final long start = this.statistics.startTimer();
+        awaitWriteBehind(key);
+        admit(key);
+        final long now = this.ticker.read();
+        this.map.compute(
+                key,
+                (_key, node) -> {
+                    final boolean live = Validator.isNotNull(node) &&
+                            !node.isDead(now) && !node.isNotFound();
+                    final Object object = function.apply(live ? node : null);
+                    Key saved = node;
+                    if (object != UNCHANGED) {
+                        writeBehind(key, object);
+                    }
+                    if (object == UNCHANGED) {
+                        result[0] = live ? node.getObject() : null;
+                    } else if (isNull(object)) {
+                        if (Validator.isNotNull(node)) {
+                            unindex(node);
+                            saved = null;
+                            modified[0] = true;
+                        }
+                    } else {
+                        final long lifetime = (milliseconds > 0) ? milliseconds :
+                                (live ? node.getLifetime() : this.defaultTimeout);
+                        if (isNull(node)) {
+                            saved = key;
+                            insert(saved, object, lifetime, now);
+                        } else if (live) {
+                            update(node, object, lifetime, now);
+                        } else {
+                            final boolean notFound = node.isNotFound();
+                            node.setSliding(key.isSliding());
+                            retag(node, key.getTags());
+                            create(node, object, lifetime, now);
+                            countNotFound(node, notFound);
+                        }
+                        result[0] = object;
+                        modified[0] = true;
+                    }
+                    return saved;
+                }
+        );
+        if (modified[0]) {
+            modify();
+            onWrite();
+        }
+        this.statistics.recordLatency(CacheOperation.PUT, start);
+        CacheEvents.endOperation(event, "compute", key.getValue());
+        return result[0];
+    }
+
+    /**
+     * Removes object from the cache and from the backing store.
+     * The removal is queued under the map lock of the key,
+     * so it is ordered with the writes of the key.
+     *
+     * @param key the object key in the cache.
+     */
+    private void delete(final Key key) {
+        if (isNull(this.writeBehind)) {
+            remove(key);
+        } else {
+            awaitWriteBehind(key);
+            final boolean[] removed = {false};
+            this.map.compute(
+                    key,
+                    (_key, node) -> {
+                        if (Validator.isNotNull(node)) {
+                            unindex(node);
+                            removed[0] = true;
+                        }
+                        writeBehind(key, null);
+                        return null;
+                    }
+            );
+            if (removed[0]) {
+                modify();
+            }
+        }
+    }
+
+    /**
+     * Removes the saved key from the cache and from the backing store
+     * if it matches the condition. The condition is checked and
+     * the removal is queued under the map lock of the key.
+     *
+     * @param key       the object key in the cache.
+     * @param condition the condition of the saved key.
+     * @return true if the key was removed, false otherwise.
+     */
+    private boolean delete(final Key key, final Predicate<Key> condition) {
+        final boolean result;
+        if (isNull(this.writeBehind)) {
+            result = removeIf(key, condition);
+        } else {
+            awaitWriteBehind(key);
+            final boolean[] removed = {false};
+            this.map.computeIfPresent(
+                    key,
+                    (_key, node) -> {
+                        removed[0] = condition.test(node);
+                        if (removed[0]) {
+                            unindex(node);
+                            writeBehind(node, null);
+                        }
+                        return removed[0] ? null : node;
+                    }
+            );
+            if (removed[0]) {
+                modify();
+            }
+            result = removed[0];
+        }
+        return result;
+    }
+
+    /**
+     * Blocks the caller while the queue of the backing store is full.
+     * Called before the map lock of the key is taken.
      *
-     * @param key          the object key in the cache.
-     * @param object       the object to save.
-     * @param seconds      the lifetime of objects (seconds).
-     * @param milliseconds the lifetime of objects (milliseconds).
-     * @return The saving object.
+     * @param key the object key in the cache.
      */
-    @Override
-    public Object put(
-            final Object key, final Object object,
-            final long seconds, final long milliseconds
-    ) {
-        final long _milliseconds = milliseconds + 1000 * seconds;
-        return put(key, object, _milliseconds);
+    private void awaitWriteBehind(final Key key) {
+        if (Validator.isNotNull(this.writeBehind)) {
+            this.writeBehind.awaitCapacity(key.getValue());
+        }
     }
 
     /**
-     * Saves object in the cache.
+     * Queues the write of the object to the backing store
+     * if there is a writer. Called under the map lock of the key,
+     * so the writes of a key are queued in the order they are saved.
      *
-     * @param key          the object key in the cache.
-     * @param object       the object to save.
-     * @param minutes      the lifetime of objects (minutes).
-     * @param seconds      the lifetime of objects (seconds).
-     * @param milliseconds the lifetime of objects (milliseconds).
-     * @return The saving object.
+     * @param key    the object key in the cache.
+     * @param object the saved object or null if it was removed.
      */
-    @Override
-    public Object put(
-            final Object key, final Object object,
-            final long minutes, final long seconds,
-            final long milliseconds
-    ) {
-        final long _seconds = seconds + 60 * minutes;
-        return put(key, object, _seconds, milliseconds);
+    private void writeBehind(final Key key, final Object object) {
+        if (Validator.isNotNull(this.writeBehind)) {
+            if (Validator.isNotNull(object)) {
+                this.writeBehind.write(key.getValue(), object);
+            } else {
+                this.writeBehind.delete(key.getValue());
+            }
+        }
     }
 
     /**
-     * Saves object in the cache.
+     * Creates a new key with the lifetime or
+     * with the default lifetime if it is not positive.
      *
      * @param key          the object key in the cache.
-     * @param object       the object to save.
-     * @param hours        the lifetime of objects (hours).
-     * @param minutes      the lifetime of objects (minutes).
-     * @param seconds      the lifetime of objects (seconds).
      * @param milliseconds the lifetime of objects (milliseconds).
-     * @return The saving object.
+     * @return The new key (newer null).
      */
-    @Override
-    public Object put(
-            final Object key, final Object object,
-            final long hours, final long minutes,
-            final long seconds, final long milliseconds
-    ) {
-        final long _minutes = minutes + 60 * hours;
-        return put(key, object, _minutes, seconds, milliseconds);
+    private Key newKey(final Object key, final long milliseconds) {
+        return new Key(key, (milliseconds > 0) ? milliseconds : this.defaultTimeout);
     }
 
     /**
-     * Saves objects in the cache.
-     * Saves objects if map is not empty.
-     *
-     * @param map          the map with objects to save.
-     * @param milliseconds the lifetime of objects (milliseconds).
+     * Keeps the cache within its maximum size after a write.
+     * The writer evicts a few objects if the cache passed
+     * the maximum size and signals the maintenance if the cache
+     * is under pressure. Called outside the map lock.
      */
-    @Override
-    public void putAll(final Map<Object, Object> map, final long milliseconds) {
-        if (Validator.isNotEmpty(map)) {
-            for (Map.Entry<Object, Object> entry : map.entrySet()) {
-                put(entry.getKey(), entry.getValue(), milliseconds);
-            }
+    private void onWrite() {
+        final long evicted = this.cleaner.evictOnWrite();
+        if (evicted > 0) {
+            this.statistics.recordEviction(evicted);
         }
+        this.executor.onWrite(getSize());
     }
 
     /**
-     * Saves objects in the cache.
+     * Records the sighting of the key by the doorkeeper.
+     * Starts a new window of the doorkeeper when the current
+     * one is over, so the filter does not wait for the maintenance.
      *
-     * @param map          the map with objects to save.
-     * @param seconds      the lifetime of objects (seconds).
-     * @param milliseconds the lifetime of objects (milliseconds).
+     * @param key the object key in the cache.
+     * @return true if the key is admitted, false otherwise.
      */
-    @Override
-    public void putAll(
-            final Map<Object, Object> map,
-            final long seconds, final long milliseconds
-    ) {
-        final long _milliseconds = milliseconds + 1000 * seconds;
-        putAll(map, _milliseconds);
+    private boolean admit(final Key key) {
+        boolean result = true;
+        if (Validator.isNotNull(this.doorkeeper)) {
+            result = this.doorkeeper.admit(key.getValue());
+            if (!result) {
+                this.doorkeeper.rotateIfFull(this.map.keySet());
+            }
+        }
+        return result;
     }
 
     /**
-     * Saves objects in the cache.
+     * Checks if the key might be in the cache.
+     * Answers without a map lookup if the doorkeeper
+     * has never seen the key.
      *
-     * @param map          the map with objects to save.
-     * @param minutes      the lifetime of objects (minutes).
-     * @param seconds      the lifetime of objects (seconds).
-     * @param milliseconds the lifetime of objects (milliseconds).
+     * @param key the object key in the cache.
+     * @return false if the key is surely not in the cache, true otherwise.
      */
-    @Override
-    public void putAll(
-            final Map<Object, Object> map,
-            final long minutes, final long seconds,
-            final long milliseconds
-    ) {
-        final long _seconds = seconds + 60 * minutes;
-        putAll(map, _seconds, milliseconds);
+    private boolean mightContain(final Key key) {
+        return isNull(this.doorkeeper) || this.doorkeeper.mightContain(key.getValue());
     }
 
     /**
-     * Saves objects in the cache.
+     * Returns the number of evicted keys which are tracked
+     * in one window for the maximum size of objects.
      *
-     * @param map          the map with objects to save.
-     * @param hours        the lifetime of objects (hours).
-     * @param minutes      the lifetime of objects (minutes).
-     * @param seconds      the lifetime of objects (seconds).
-     * @param milliseconds the lifetime of objects (milliseconds).
+     * @param maxSize the maximum size of objects.
+     * @return The number of evicted keys in one window.
      */
-    @Override
-    public void putAll(
-            final Map<Object, Object> map,
-            final long hours, final long minutes,
-            final long seconds, final long milliseconds
-    ) {
-        final long _minutes = minutes + 60 * hours;
-        putAll(map, _minutes, seconds, milliseconds);
+    private static int getGhostWindow(final int maxSize) {
+        return (int) (maxSize * CacheConstants.MANAGER_GHOST_RATIO);
     }
 
     /**
-     * Saves objects in the cache with default lifetime.
+     * Runs the cache maintenance: removes the dead objects,
+     * cleans the cache to the normal size, starts a new window
+     * of the doorkeeper if the current one is over, detects
+     * the hot keys and halves their counts.
      *
-     * @param map the map with objects to save.
+     * @param cleaner the cleaner of the cache.
      */
-    @Override
-    public void putAll(final Map<Object, Object> map) {
-        final long milliseconds = -1L;
-        putAll(map, milliseconds);
+    private void maintain(final CacheCleaner cleaner) {
+        cleaner.run();
+        if (Validator.isNotNull(this.doorkeeper)) {
+            this.doorkeeper.rotateIfFull(this.map.keySet());
+        }
+        if (Validator.isNotNull(this.hotKeys)) {
+            detect();
+            this.hotKeys.decay();
+        }
     }
 
     /**
-     * Returns object from cache with key.
-     * Returns null if key is null.
-     *
-     * @param key the object key in the cache.
-     * @return The object with key or null.
+     * Counts the sampled reads and copies the objects of the keys
+     * which became hot and drops the copies of the keys which
+     * are not hot anymore. Does nothing if another thread
+     * is detecting the hot keys.
      */
-    @Override
-    public Object get(final Object key) {
-        Object object = null;
-        if (Validator.isNotNull(key)) {
-            final Key _key = new Key(key);
-            object = get(_key);
+    private void detect() {
+        if (this.detecting.compareAndSet(false, true)) {
+            try {
+                final Collection<Object> hot = this.hotKeys.getKeys(CacheConstants.HOT_KEY_MIN_SAMPLES);
+                if (Validator.isNotNull(this.replicas)) {
+                    replicate(hot);
+                }
+            } finally {
+                this.detecting.set(false);
+            }
         }
-        return object;
     }
 
     /**
-     * Returns all objects from cache with subKey.
+     * Sets the object and the lifetime of a new key and indexes it.
+     * The version of the key starts at random, so a key which is
+     * saved again after a removal does not repeat the old versions.
+     * Called under the map lock of the key.
      *
-     * @return The objects with key or empty list (newer null).
+     * @param key          the key in the cache.
+     * @param object       the object to save.
+     * @param milliseconds the lifetime requested by the put (milliseconds).
+     * @param now          the current time (milliseconds).
      */
-    @Override
-    public Collection<Object> getAll() {
-        final Collection<Object> values = this.map.values();
-        return new ArrayList<>(values);
+    private void insert(
+            final Key key, final Object object,
+            final long milliseconds, final long now
+    ) {
+        key.setVersion(ThreadLocalRandom.current().nextInt());
+        create(key, object, milliseconds, now);
+        index(key);
     }
 
     /**
-     * Removes object from cache with key.
-     * Removes object if key is not null.
+     * Sets the object and the lifetime of a new key.
      *
-     * @param key the object key in the cache.
+     * @param key          the key in the cache.
+     * @param object       the object to save.
+     * @param milliseconds the lifetime requested by the put (milliseconds).
+     * @param now          the current time (milliseconds).
      */
-    @Override
-    public void remove(final Object key) {
-        if (Validator.isNotNull(key)) {
-            final Key _key = new Key(key);
-            remove(_key);
-        }
+    private void create(
+            final Key key, final Object object,
+            final long milliseconds, final long now
+    ) {
+        final long lifetime = this.expiry.expireAfterCreate(
+                key.getValue(), object, milliseconds
+        );
+        key.setObject(object);
+        key.setLifetime(lifetime, now);
+        key.access(now);
+        invalidate(key);
     }
 
     /**
-     * Removes all objects from the cache
-     * if they key contains the string subKey.
-     * Removes objects if subKey is not blank.
-     * The objects are removed in a parallel thread.
+     * Replaces the object and the lifetime of a saved key.
      *
-     * @param keys the key strings.
+     * @param key          the key in the cache.
+     * @param object       the object to save.
+     * @param milliseconds the lifetime requested by the put (milliseconds).
+     * @param now          the current time (milliseconds).
      */
-    @Override
-    public void removeAll(final Collection<Object> keys) {
-        if (Validator.isNotEmpty(keys)) {
-            keys.forEach(this::remove);
-        }
+    private void update(
+            final Key key, final Object object,
+            final long milliseconds, final long now
+    ) {
+        final long lifetime = this.expiry.expireAfterUpdate(
+                key.getValue(), object, milliseconds, key.getTimeout() - now
+        );
+        key.setObject(object);
+        key.setLifetime(lifetime, now);
+        key.access(now);
+        invalidate(key);
     }
 
     /**
-     * Sets map with objects.
+     * Extends the lifetime of a key after a read.
+     * Sliding keys are extended by their lifetime, the others
+     * by the lifetime the expiry computes. The time is not
+     * written if it does not change. The read is recorded
+     * as the last access of the key.
      *
-     * @param map the map with objects.
+     * @param key the key in the cache.
+     * @param now the current time (milliseconds).
      */
-    @Override
-    public void setAll(final Map<Object, Object> map) {
-        clear();
-        if (Validator.isNotEmpty(map)) {
-            for (Map.Entry<Object, Object> entry : map.entrySet()) {
-                put(entry.getKey(), entry.getValue());
+    private void touch(final Key key, final long now) {
+        key.access(now);
+        final long lifetime = key.getLifetime();
+        if (key.isSliding()) {
+            key.touch(lifetime, now);
+        } else {
+            final long remaining = key.getTimeout() - now;
+            final long result = this.expiry.expireAfterRead(
+                    key.getValue(), key.getObject(), lifetime, remaining
+            );
+            if (result != remaining) {
+                key.touch(result, now);
             }
         }
     }
 
     /**
-     * Clears the cache.
+     * Adds the key to the prefix index if it is enabled.
+     * Called under the map lock of the key.
+     *
+     * @param key the key in the cache.
      */
-    @Override
-    public void clear() {
-        this.map.clear();
+    private void index(final Key key) {
+        if (Validator.isNotNull(this.index)) {
+            this.index.add(key.getValue());
+        }
+        this.tags.add(key);
     }
 
     /**
-     * Clears objects by class.
+     * Removes the key from the prefix index if it is enabled.
+     * Called under the map lock of the key.
      *
-     * @param objectsClass the objects class to remove.
+     * @param key the key in the cache.
      */
-    @Override
-    public void remove(final Class objectsClass) {
-        if (Validator.isNotNull(objectsClass)) {
-            for (Map.Entry<Key, Object> entry : this.map.entrySet()) {
-                if (filterByClass(entry, objectsClass)) {
-                    remove(entry.getKey());
-                }
-            }
+    private void unindex(final Key key) {
+        if (Validator.isNotNull(this.index)) {
+            this.index.remove(key.getValue());
+        }
+        this.tags.remove(key);
+        if (key.isNotFound()) {
+            this.statistics.addNotFoundSize(-1);
         }
+        invalidate(key);
     }
 
     /**
-     * Checks if exist object with the key in the cache.
+     * Drops the read copies of the key if they are enabled.
+     * Called under the map lock of the key.
      *
-     * @param key the object key in the cache.
-     * @return true if object is exist, false otherwise.
+     * @param key the key in the cache.
      */
-    @Override
-    public boolean exist(final Object key) {
-        final Key _key = new Key(key);
-        return Validator.isNotNull(key) && exist(_key);
+    private void invalidate(final Key key) {
+        if (Validator.isNotNull(this.replicas)) {
+            this.replicas.invalidate(key.getValue());
+        }
     }
 
     /**
-     * Returns information about objects in cache.
-     * Information about cache saved in cache too.
+     * Copies the objects of the hot keys for the readers
+     * and drops the copies of the keys which are not hot anymore.
+     * A key is copied under its map lock if it holds a live object.
      *
-     * @return The maps with entries (newer null).
+     * @param hot the hot keys.
      */
-    @Override
-    @SuppressWarnings("unchecked")
-    public Map<String, String> getEntriesToString() {
-        final String key = "Cache information";
-        Map<String, String> result = (Map) get(key);
-        if (isModified()) {
-            result = getNewEntriesToString(key);
-            put(key, result);
-            noModify();
+    private void replicate(final Collection<Object> hot) {
+        this.replicas.retain(hot);
+        for (Object key : hot) {
+            if (!this.replicas.contains(key)) {
+                this.map.computeIfPresent(
+                        new Key(key),
+                        (_key, _node) -> {
+                            if (!_node.isNotFound() && !_node.isDead(this.ticker.read())) {
+                                this.replicas.put(_node);
+                            }
+                            return _node;
+                        }
+                );
+            }
         }
-        return result;
     }
 
     /**
-     * @return
+     * Counts the key if it became or stopped being
+     * a confirmed absence. Called under the map lock of the key.
+     *
+     * @param key      the key in the cache.
+     * @param notFound the key was a confirmed absence before.
      */
-    @Override
-    public Set<Key> keySet() {
-        return this.map.keySet();
+    private void countNotFound(final Key key, final boolean notFound) {
+        if (!notFound && key.isNotFound()) {
+            this.statistics.addNotFoundSize(1);
+            this.notFoundKeys.offer(key);
+            this.notFoundQueued.incrementAndGet();
+        } else if (notFound && !key.isNotFound()) {
+            this.statistics.addNotFoundSize(-1);
+        }
     }
 
     /**
-     * @return
+     * Removes the oldest confirmed absences while there are
+     * more of them than the maximum. Also drops the queued keys
+     * which are not absences any more, so the queue stays bounded.
      */
-    @Override
-    public boolean isEmpty() {
-        return this.map.isEmpty();
+    private void trimNotFound() {
+        final int maxSize = this.notFoundMaxSize;
+        int attempts = this.notFoundQueued.get();
+        Key key;
+        while ((attempts-- > 0) && isNotFoundOverflow(maxSize)) {
+            key = this.notFoundKeys.poll();
+            if (isNull(key)) {
+                break;
+            }
+            this.notFoundQueued.decrementAndGet();
+            if (this.statistics.getNotFoundSize() > maxSize) {
+                final Key _key = key;
+                removeIf(_key, node -> (node == _key) && node.isNotFound());
+            } else if ((this.map.get(key) == key) && key.isNotFound()) {
+                this.notFoundKeys.offer(key);
+                this.notFoundQueued.incrementAndGet();
+            }
+        }
     }
 
     /**
-     * Gets size of objects which storing in the cache.
+     * Checks if there are too many confirmed absences
+     * or too many keys in their queue.
      *
-     * @return The size of objects which storing in the cache.
+     * @param maxSize the maximum number of confirmed absences.
+     * @return true if the absences overflow, false otherwise.
      */
-    public int getSize() {
-        return this.map.size();
+    private boolean isNotFoundOverflow(final int maxSize) {
+        return (this.statistics.getNotFoundSize() > maxSize) ||
+                (this.notFoundQueued.get() > 2 * maxSize);
     }
 
     /**
-     * Removes object from cache with key.
-     * Removes object if key is not null.
+     * Replaces the tags of a saved key.
+     * Called under the map lock of the key.
      *
-     * @param key the object key in the cache.
+     * @param key  the key in the cache.
+     * @param tags the new tags or null.
      */
-    void remove(final Key key) {
-        if (Validator.isNotNull(key)) {
-            this.map.remove(key);
-            modify();
+    private void retag(final Key key, final String[] tags) {
+        if (Validator.isNotNull(key.getTags()) || Validator.isNotNull(tags)) {
+            this.tags.remove(key);
+            key.setTags(tags);
+            this.tags.add(key);
         }
     }
 
     /**
-     * Saves object in the cache.
+     * Removes the saved key if it matches the condition.
+     * The condition is checked atomically with the removal.
      *
-     * @param key    the object key in the cache.
-     * @param object the object to save.
-     * @return The saving object.
+     * @param key       the object key in the cache.
+     * @param condition the condition of the saved key.
+     * @return true if the key was removed, false otherwise.
      */
-    private Object put(final Key key, final Object object) {
-        Object savingObject = null;
-        if (Validator.isNotNull(key) && Validator.isNotNull(object)) {
-            savingObject = this.map.put(key, object);
+    private boolean removeIf(final Key key, final Predicate<Key> condition) {
+        final boolean[] result = {false};
+        this.map.computeIfPresent(
+                key,
+                (_key, node) -> {
+                    result[0] = condition.test(node);
+                    if (result[0]) {
+                        unindex(node);
+                    }
+                    return result[0] ? null : node;
+                }
+        );
+        if (result[0]) {
             modify();
         }
-        return Validator.isNotNull(savingObject) ? savingObject : object;
+        return result[0];
     }
 
     /**
@@ -396,22 +1868,86 @@ final class TemporaryCacheImpl implements TemporaryCache {
      * @return true if object is exist, false otherwise.
      */
     private boolean exist(final Key key) {
-        return Validator.isNotNull(key) && this.map.containsKey(key);
+        boolean result = false;
+        if (Validator.isNotNull(key) && mightContain(key)) {
+            final Key node = this.map.get(key);
+            result = Validator.isNotNull(node) && !node.isNotFound() &&
+                    !node.isDead(this.ticker.read());
+        }
+        return result;
     }
 
     /**
      * Returns object from cache with key.
-     * Returns null if key is null.
+     * Returns null if key is null, the object is dead
+     * or confirmed as not found.
+     * The read extends the lifetime of the object
+     * if it expires after access. The hot objects are read
+     * from their copies, except the sampled reads, which are
+     * recorded without a lock and read the saved key.
+     * The reader which fills its buffer of the samples
+     * detects the hot keys.
      *
      * @param key the object key in the cache.
      * @return The object with key or null.
      */
     private Object get(final Key key) {
-        Object object = null;
+        Object result = null;
+        final boolean sampled = Validator.isNotNull(this.hotKeys) && this.hotKeys.isSampled();
+        if (!sampled && Validator.isNotNull(this.replicas)) {
+            final long now = this.ticker.read();
+            final Key replica = this.replicas.get(key.getValue(), now);
+            if (Validator.isNotNull(replica)) {
+                touch(replica, now);
+                result = replica.getObject();
+                this.statistics.recordHit();
+            }
+        }
+        if (isNull(result)) {
+            final Key node = getNode(key);
+            if (Validator.isNotNull(node)) {
+                result = node.getObject();
+            }
+            if (sampled && this.hotKeys.offer(key.getValue())) {
+                detect();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the saved key which holds a live object.
+     * Returns null if key is null, the object is dead
+     * or confirmed as not found. The read is counted
+     * and extends the lifetime of the object
+     * if it expires after access.
+     *
+     * @param key the object key in the cache.
+     * @return The saved key or null.
+     */
+    private Key getNode(final Key key) {
+        Key result = null;
         if (Validator.isNotNull(key)) {
-            object = this.map.get(key);
+            final Key node = mightContain(key) ? this.map.get(key) : null;
+            final long now = this.ticker.read();
+            if (isNull(node)) {
+                this.statistics.recordMiss();
+                if (Validator.isNotNull(this.ghosts)) {
+                    this.ghosts.onMiss(key);
+                }
+            } else if (node.isDead(now)) {
+                removeIf(node, _node -> _node.isDead(now));
+                this.statistics.recordMiss();
+            } else if (node.isNotFound()) {
+                touch(node, now);
+                this.statistics.recordNotFoundHit();
+            } else {
+                touch(node, now);
+                result = node;
+                this.statistics.recordHit();
+            }
         }
-        return object;
+        return result;
     }
 
     /**
@@ -423,7 +1959,7 @@ final class TemporaryCacheImpl implements TemporaryCache {
         Map<String, String> result = new HashMap<>();
         String keyValueToString;
         String valueClassName;
-        for (Map.Entry<Key, Object> entry : this.map.entrySet()) {
+        for (Key entry : this.map.keySet()) {
             keyValueToString = getKeyValueToString(entry);
             valueClassName = getValueClassName(entry);
             result.put(keyValueToString, valueClassName);
@@ -436,9 +1972,8 @@ final class TemporaryCacheImpl implements TemporaryCache {
      * @param entry
      * @return
      */
-    private String getKeyValueToString(final Map.Entry<Key, Object> entry) {
-        final Key key = entry.getKey();
-        final Object value = key.getValue();
+    private String getKeyValueToString(final Key entry) {
+        final Object value = entry.getValue();
         return value.toString();
     }
 
@@ -446,22 +1981,58 @@ final class TemporaryCacheImpl implements TemporaryCache {
      * @param entry
      * @return
      */
-    private String getValueClassName(final Map.Entry<Key, Object> entry) {
-        final Object value = entry.getValue();
+    private String getValueClassName(final Key entry) {
+        final Object value = entry.getObject();
         final Class<?> valueClass = value.getClass();
         return valueClass.getName();
     }
 
     /**
-     * Checks if key contains subKey.
+     * Checks if the key has the tag.
+     *
+     * @param key the key in the cache.
+     * @param tag the tag of objects.
+     * @return true if the key has the tag, false otherwise.
+     */
+    private static boolean hasTag(final Key key, final String tag) {
+        final String[] tags = key.getTags();
+        return Validator.isNotEmpty(tags) && Arrays.asList(tags).contains(tag);
+    }
+
+    /**
+     * Returns the String keys which start with the prefix.
+     * Uses the prefix index if it is enabled,
+     * scans the whole cache otherwise.
+     *
+     * @param prefix the prefix of keys.
+     * @return The keys with the prefix (newer null).
+     */
+    private Collection<String> findByPrefix(final String prefix) {
+        final Collection<String> result;
+        if (Validator.isNotNull(this.index)) {
+            result = this.index.find(prefix);
+        } else {
+            result = new ArrayList<>();
+            Object value;
+            for (Key key : this.map.keySet()) {
+                value = key.getValue();
+                if (startsWith(value, prefix)) {
+                    result.add((String) value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if key is a String which starts with the prefix.
      *
      * @param key    the object key in the cache.
-     * @param subKey the object key in the cache.
-     * @return true if key contains subKey, false otherwise.
+     * @param prefix the prefix of keys.
+     * @return true if key starts with the prefix, false otherwise.
      */
-    private boolean containsKey(final Key key, final String subKey) {
-        final String keyValueToString = key.getValue().toString();
-        return keyValueToString.contains(subKey);
+    private static boolean startsWith(final Object key, final String prefix) {
+        return (key instanceof String) && ((String) key).startsWith(prefix);
     }
 
     /**
@@ -471,32 +2042,44 @@ final class TemporaryCacheImpl implements TemporaryCache {
      * @param object the class to equals.
      * @return true if entry class equals to object class, false otherwise.
      */
-    private boolean filterByClass(final Map.Entry<Key, Object> entry, final Class object) {
-        final Object value = entry.getValue();
+    private boolean filterByClass(final Key entry, final Class object) {
+        final Object value = entry.getObject();
         final Class valueClass = value.getClass();
         return valueClass.equals(object);
     }
 
     /**
-     * Сache is modified.
-     *
-     * @return true if cache is modified, false otherwise.
-     */
-    private boolean isModified() {
-        return this.modified;
-    }
-
-    /**
-     * Sets that the cache has been changed.
+     * Counts a modification of the cache.
      */
     private void modify() {
-        this.modified = true;
+        this.modifications.increment();
     }
 
     /**
-     * Sets that the cache has been not changed.
+     * The information about objects in cache
+     * and the number of modifications it was built at.
      */
-    private void noModify() {
-        this.modified = false;
+    private static final class Entries {
+
+        /**
+         * The number of modifications before the build.
+         */
+        private final long version;
+
+        /**
+         * The information about objects in cache.
+         */
+        private final Map<String, String> map;
+
+        /**
+         * Constructor.
+         *
+         * @param version the number of modifications before the build.
+         * @param map     the information about objects in cache.
+         */
+        private Entries(final long version, final Map<String, String> map) {
+            this.version = version;
+            this.map = map;
+        }
     }
 }
@@ -0,0 +1,39 @@
+package com.salimov.yurii.cache;
+
+/**
+ * The source of time for the cache. Every lifetime
+ * of objects in the cache is measured by the ticker,
+ * so the time can be read from a cheap coarse clock
+ * or moved by hand in tests.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public interface Ticker {
+
+    /**
+     * Returns the current time.
+     *
+     * @return The current time (milliseconds).
+     */
+    long read();
+
+    /**
+     * Returns the ticker which reads the system clock on every call.
+     *
+     * @return The system ticker (newer null).
+     */
+    static Ticker systemTicker() {
+        return System::currentTimeMillis;
+    }
+
+    /**
+     * Returns the ticker which reads the time cached by a background
+     * thread. The time is behind the system clock no more than
+     * by a few milliseconds, a read costs one volatile load.
+     *
+     * @return The coarse ticker (newer null).
+     */
+    static Ticker coarseTicker() {
+        return CoarseTicker.getInstance();
+    }
+}
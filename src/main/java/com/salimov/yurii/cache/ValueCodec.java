@@ -0,0 +1,64 @@
+package com.salimov.yurii.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The codec which writes the objects of the cache in binary form,
+ * for the tiers which can not keep the references to objects.
+ * The objects are written to and read from the buffers directly,
+ * without the intermediate arrays. An object takes the remaining
+ * bytes of the buffer when it is read, so the buffer holds one object.
+ *
+ * @param <V> the type of the objects.
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public interface ValueCodec<V> {
+
+    /**
+     * Returns the number of bytes of the written object.
+     *
+     * @param value the object to write.
+     * @return The number of bytes (not negative).
+     */
+    int size(V value);
+
+    /**
+     * Writes the object to the buffer from its position
+     * and moves the position past the written bytes.
+     *
+     * @param value  the object to write.
+     * @param buffer the buffer with at least {@link #size(Object)} remaining bytes.
+     */
+    void encode(V value, ByteBuffer buffer);
+
+    /**
+     * Reads the object from the remaining bytes of the buffer
+     * and moves the position past the read bytes.
+     *
+     * @param buffer the buffer with the written object.
+     * @return The read object (newer null).
+     */
+    V decode(ByteBuffer buffer);
+
+    /**
+     * Writes the object to a new array of the exact size.
+     *
+     * @param value the object to write.
+     * @return The array with the written object (newer null).
+     */
+    default byte[] toBytes(final V value) {
+        final byte[] result = new byte[size(value)];
+        encode(value, ByteBuffer.wrap(result));
+        return result;
+    }
+
+    /**
+     * Reads the object from the array.
+     *
+     * @param bytes the array with the written object.
+     * @return The read object (newer null).
+     */
+    default V fromBytes(final byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+}
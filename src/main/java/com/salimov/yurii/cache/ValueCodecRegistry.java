@@ -0,0 +1,177 @@
+package com.salimov.yurii.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class implements the registry of the codecs by class of objects.
+ * The codecs of the strings, arrays, buffers, primitives and boxed
+ * numbers are registered by default. A codec of a class is used
+ * for its subclasses too, if they do not have their own codec.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public final class ValueCodecRegistry {
+
+    /**
+     * The codecs by class of objects.
+     */
+    private final Map<Class<?>, ValueCodec<?>> codecs;
+
+    /**
+     * Constructor. Registers the built-in codecs.
+     */
+    public ValueCodecRegistry() {
+        this.codecs = new ConcurrentHashMap<>();
+        register(String.class, ValueCodecs.STRING);
+        register(byte[].class, ValueCodecs.BYTES);
+        register(ByteBuffer.class, ValueCodecs.BYTE_BUFFER);
+        register(Long.class, ValueCodecs.LONG);
+        register(Integer.class, ValueCodecs.INTEGER);
+        register(Short.class, ValueCodecs.SHORT);
+        register(Byte.class, ValueCodecs.BYTE);
+        register(Double.class, ValueCodecs.DOUBLE);
+        register(Float.class, ValueCodecs.FLOAT);
+        register(Character.class, ValueCodecs.CHARACTER);
+        register(Boolean.class, ValueCodecs.BOOLEAN);
+    }
+
+    /**
+     * Registers the codec of the class of objects,
+     * replaces the codec which is registered for the class.
+     *
+     * @param type  the class of objects.
+     * @param codec the codec of objects.
+     * @param <V>   the type of objects.
+     * @return This registry.
+     * @throws IllegalArgumentException if the class or codec is null.
+     */
+    public <V> ValueCodecRegistry register(
+            final Class<V> type,
+            final ValueCodec<? super V> codec
+    ) {
+        if (Validator.isNull(type) || Validator.isNull(codec)) {
+            throw new IllegalArgumentException("The class and codec must not be null");
+        }
+        this.codecs.put(type, codec);
+        return this;
+    }
+
+    /**
+     * Returns the codec of the class of objects. The codec of the nearest
+     * superclass or interface is returned if the class does not have its own.
+     *
+     * @param type the class of objects.
+     * @param <V>  the type of objects.
+     * @return The codec of objects (newer null).
+     * @throws IllegalArgumentException if there is no codec of the class.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> ValueCodec<V> get(final Class<V> type) {
+        ValueCodec<?> result = this.codecs.get(type);
+        if (Validator.isNull(result)) {
+            result = find(type);
+            if (Validator.isNull(result)) {
+                throw new IllegalArgumentException("There is no codec of " + type);
+            }
+            this.codecs.putIfAbsent(type, result);
+        }
+        return (ValueCodec<V>) result;
+    }
+
+    /**
+     * Returns the number of bytes of the written object.
+     *
+     * @param value the object to write.
+     * @return The number of bytes (not negative).
+     * @throws IllegalArgumentException if there is no codec of the object.
+     */
+    public int size(final Object value) {
+        return codecOf(value).size(value);
+    }
+
+    /**
+     * Writes the object to the buffer from its position.
+     *
+     * @param value  the object to write.
+     * @param buffer the buffer to write to.
+     * @throws IllegalArgumentException if there is no codec of the object.
+     */
+    public void encode(final Object value, final ByteBuffer buffer) {
+        codecOf(value).encode(value, buffer);
+    }
+
+    /**
+     * Writes the object to an array. The arrays are returned as is.
+     *
+     * @param value the object to write.
+     * @return The array with the written object (newer null).
+     * @throws IllegalArgumentException if there is no codec of the object.
+     */
+    public byte[] encode(final Object value) {
+        return codecOf(value).toBytes(value);
+    }
+
+    /**
+     * Reads the object of the class from the remaining bytes of the buffer.
+     *
+     * @param type   the class of the object.
+     * @param buffer the buffer with the written object.
+     * @param <V>    the type of the object.
+     * @return The read object (newer null).
+     * @throws IllegalArgumentException if there is no codec of the class.
+     */
+    public <V> V decode(final Class<V> type, final ByteBuffer buffer) {
+        return get(type).decode(buffer);
+    }
+
+    /**
+     * Reads the object of the class from the array.
+     *
+     * @param type  the class of the object.
+     * @param bytes the array with the written object.
+     * @param <V>   the type of the object.
+     * @return The read object (newer null).
+     * @throws IllegalArgumentException if there is no codec of the class.
+     */
+    public <V> V decode(final Class<V> type, final byte[] bytes) {
+        return get(type).fromBytes(bytes);
+    }
+
+    /**
+     * Returns the codec of the object.
+     *
+     * @param value the object to write.
+     * @return The codec of the object (newer null).
+     * @throws IllegalArgumentException if the object is null or has no codec.
+     */
+    @SuppressWarnings("unchecked")
+    private ValueCodec<Object> codecOf(final Object value) {
+        if (Validator.isNull(value)) {
+            throw new IllegalArgumentException("The object must not be null");
+        }
+        return (ValueCodec<Object>) get(value.getClass());
+    }
+
+    /**
+     * Finds the codec of the nearest superclass or interface.
+     *
+     * @param type the class of objects.
+     * @return The codec or null.
+     */
+    private ValueCodec<?> find(final Class<?> type) {
+        ValueCodec<?> result = null;
+        for (Class<?> _type = type; Validator.isNotNull(_type) && Validator.isNull(result);
+             _type = _type.getSuperclass()) {
+            result = this.codecs.get(_type);
+            for (Class<?> _interface : _type.getInterfaces()) {
+                if (Validator.isNotNull(result)) {
+                    break;
+                }
+                result = this.codecs.get(_interface);
+            }
+        }
+        return result;
+    }
+}
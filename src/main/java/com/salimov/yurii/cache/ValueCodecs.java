@@ -0,0 +1,357 @@
+package com.salimov.yurii.cache;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The built-in codecs of the strings, arrays, buffers,
+ * primitives and boxed numbers.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class ValueCodecs {
+
+    /**
+     * The UTF-8 codec of the strings.
+     */
+    static final ValueCodec<String> STRING = new StringCodec();
+
+    /**
+     * The codec of the arrays which are written as is,
+     * for the objects which are already serialized.
+     */
+    static final ValueCodec<byte[]> BYTES = new BytesCodec();
+
+    /**
+     * The codec of the buffers which are written as is,
+     * a read returns a view of the buffer without a copy.
+     */
+    static final ValueCodec<ByteBuffer> BYTE_BUFFER = new ByteBufferCodec();
+
+    /**
+     * The codec of the long numbers.
+     */
+    static final ValueCodec<Long> LONG = new FixedCodec<>(
+            Long.BYTES, (buffer, value) -> buffer.putLong(value), ByteBuffer::getLong
+    );
+
+    /**
+     * The codec of the int numbers.
+     */
+    static final ValueCodec<Integer> INTEGER = new FixedCodec<>(
+            Integer.BYTES, (buffer, value) -> buffer.putInt(value), ByteBuffer::getInt
+    );
+
+    /**
+     * The codec of the short numbers.
+     */
+    static final ValueCodec<Short> SHORT = new FixedCodec<>(
+            Short.BYTES, (buffer, value) -> buffer.putShort(value), ByteBuffer::getShort
+    );
+
+    /**
+     * The codec of the bytes.
+     */
+    static final ValueCodec<Byte> BYTE = new FixedCodec<>(
+            Byte.BYTES, (buffer, value) -> buffer.put(value), ByteBuffer::get
+    );
+
+    /**
+     * The codec of the double numbers.
+     */
+    static final ValueCodec<Double> DOUBLE = new FixedCodec<>(
+            Double.BYTES, (buffer, value) -> buffer.putDouble(value), ByteBuffer::getDouble
+    );
+
+    /**
+     * The codec of the float numbers.
+     */
+    static final ValueCodec<Float> FLOAT = new FixedCodec<>(
+            Float.BYTES, (buffer, value) -> buffer.putFloat(value), ByteBuffer::getFloat
+    );
+
+    /**
+     * The codec of the chars.
+     */
+    static final ValueCodec<Character> CHARACTER = new FixedCodec<>(
+            Character.BYTES, (buffer, value) -> buffer.putChar(value), ByteBuffer::getChar
+    );
+
+    /**
+     * The codec of the booleans.
+     */
+    static final ValueCodec<Boolean> BOOLEAN = new FixedCodec<>(
+            Byte.BYTES,
+            (buffer, value) -> buffer.put(value ? (byte) 1 : (byte) 0),
+            buffer -> buffer.get() != 0
+    );
+
+    /**
+     * Private Constructor.
+     */
+    private ValueCodecs() {
+    }
+
+    /**
+     * The UTF-8 codec of the strings. The strings are encoded
+     * into the buffer and decoded from the array of the buffer
+     * without the intermediate arrays.
+     */
+    private static final class StringCodec implements ValueCodec<String> {
+
+        /**
+         * Returns the number of bytes of the encoded string.
+         *
+         * @param value the string to write.
+         * @return The number of UTF-8 bytes.
+         */
+        @Override
+        public int size(final String value) {
+            int result = 0;
+            final int length = value.length();
+            for (int i = 0; i < length; i++) {
+                final char ch = value.charAt(i);
+                if (ch < 0x80) {
+                    result++;
+                } else if (ch < 0x800) {
+                    result += 2;
+                } else if (Character.isHighSurrogate(ch) && (i + 1 < length)
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    result += 4;
+                    i++;
+                } else if (Character.isSurrogate(ch)) {
+                    result++;
+                } else {
+                    result += 3;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Encodes the string into the buffer.
+         * The malformed surrogates are replaced by '?'.
+         *
+         * @param value  the string to write.
+         * @param buffer the buffer to write to.
+         */
+        @Override
+        public void encode(final String value, final ByteBuffer buffer) {
+            final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            final CoderResult result = encoder.encode(CharBuffer.wrap(value), buffer, true);
+            if (result.isOverflow() || encoder.flush(buffer).isOverflow()) {
+                throw new BufferOverflowException();
+            }
+        }
+
+        /**
+         * Decodes the string from the remaining bytes of the buffer.
+         *
+         * @param buffer the buffer with the string.
+         * @return The read string (newer null).
+         */
+        @Override
+        public String decode(final ByteBuffer buffer) {
+            final String result;
+            if (buffer.hasArray()) {
+                result = new String(
+                        buffer.array(),
+                        buffer.arrayOffset() + buffer.position(),
+                        buffer.remaining(),
+                        StandardCharsets.UTF_8
+                );
+                buffer.position(buffer.limit());
+            } else {
+                result = StandardCharsets.UTF_8.decode(buffer).toString();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The codec of the arrays which are written as is.
+     */
+    private static final class BytesCodec implements ValueCodec<byte[]> {
+
+        /**
+         * Returns the length of the array.
+         *
+         * @param value the array to write.
+         * @return The length of the array.
+         */
+        @Override
+        public int size(final byte[] value) {
+            return value.length;
+        }
+
+        /**
+         * Writes the array to the buffer.
+         *
+         * @param value  the array to write.
+         * @param buffer the buffer to write to.
+         */
+        @Override
+        public void encode(final byte[] value, final ByteBuffer buffer) {
+            buffer.put(value);
+        }
+
+        /**
+         * Reads the remaining bytes of the buffer.
+         *
+         * @param buffer the buffer with the array.
+         * @return The read array (newer null).
+         */
+        @Override
+        public byte[] decode(final ByteBuffer buffer) {
+            final byte[] result = new byte[buffer.remaining()];
+            buffer.get(result);
+            return result;
+        }
+
+        /**
+         * Returns the array itself.
+         *
+         * @param value the array to write.
+         * @return The same array.
+         */
+        @Override
+        public byte[] toBytes(final byte[] value) {
+            return value;
+        }
+
+        /**
+         * Returns the array itself.
+         *
+         * @param bytes the array with the written object.
+         * @return The same array.
+         */
+        @Override
+        public byte[] fromBytes(final byte[] bytes) {
+            return bytes;
+        }
+    }
+
+    /**
+     * The codec of the buffers which are written as is.
+     */
+    private static final class ByteBufferCodec implements ValueCodec<ByteBuffer> {
+
+        /**
+         * Returns the number of remaining bytes of the buffer.
+         *
+         * @param value the buffer to write.
+         * @return The number of remaining bytes.
+         */
+        @Override
+        public int size(final ByteBuffer value) {
+            return value.remaining();
+        }
+
+        /**
+         * Writes the remaining bytes of the buffer,
+         * the position of the written buffer is not moved.
+         *
+         * @param value  the buffer to write.
+         * @param buffer the buffer to write to.
+         */
+        @Override
+        public void encode(final ByteBuffer value, final ByteBuffer buffer) {
+            buffer.put(value.duplicate());
+        }
+
+        /**
+         * Returns a view of the remaining bytes of the buffer.
+         *
+         * @param buffer the buffer with the written bytes.
+         * @return The view of the bytes (newer null).
+         */
+        @Override
+        public ByteBuffer decode(final ByteBuffer buffer) {
+            final ByteBuffer result = buffer.slice();
+            buffer.position(buffer.limit());
+            return result;
+        }
+    }
+
+    /**
+     * The codec of the objects of a fixed size.
+     *
+     * @param <V> the type of the objects.
+     */
+    private static final class FixedCodec<V> implements ValueCodec<V> {
+
+        /**
+         * The number of bytes of an object.
+         */
+        private final int size;
+
+        /**
+         * Writes an object to a buffer.
+         */
+        private final BiConsumer<ByteBuffer, V> writer;
+
+        /**
+         * Reads an object from a buffer.
+         */
+        private final Function<ByteBuffer, V> reader;
+
+        /**
+         * Constructor.
+         *
+         * @param size   the number of bytes of an object.
+         * @param writer writes an object to a buffer.
+         * @param reader reads an object from a buffer.
+         */
+        private FixedCodec(
+                final int size,
+                final BiConsumer<ByteBuffer, V> writer,
+                final Function<ByteBuffer, V> reader
+        ) {
+            this.size = size;
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        /**
+         * Returns the number of bytes of an object.
+         *
+         * @param value the object to write.
+         * @return The number of bytes.
+         */
+        @Override
+        public int size(final V value) {
+            return this.size;
+        }
+
+        /**
+         * Writes the object to the buffer.
+         *
+         * @param value  the object to write.
+         * @param buffer the buffer to write to.
+         */
+        @Override
+        public void encode(final V value, final ByteBuffer buffer) {
+            this.writer.accept(buffer, value);
+        }
+
+        /**
+         * Reads the object from the buffer.
+         *
+         * @param buffer the buffer with the object.
+         * @return The read object (newer null).
+         */
+        @Override
+        public V decode(final ByteBuffer buffer) {
+            return this.reader.apply(buffer);
+        }
+    }
+}
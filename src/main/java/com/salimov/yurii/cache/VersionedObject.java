@@ -0,0 +1,65 @@
+package com.salimov.yurii.cache;
+
+/**
+ * The class implements a saved object with the version
+ * it was read at. The version is passed back to
+ * {@link TemporaryCache#compareAndSet(Object, int, Object)},
+ * which saves a new object only if the saved one
+ * was not written since the read.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public final class VersionedObject {
+
+    /**
+     * The saved object.
+     */
+    private final Object object;
+
+    /**
+     * The version of the saved object.
+     */
+    private final int version;
+
+    /**
+     * Constructor.
+     *
+     * @param object  the saved object.
+     * @param version the version of the saved object.
+     */
+    VersionedObject(final Object object, final int version) {
+        this.object = object;
+        this.version = version;
+    }
+
+    /**
+     * Returns a string representation of the object.
+     *
+     * @return A string representation of the object.
+     */
+    @Override
+    public String toString() {
+        return "VersionedObject{" +
+                "object=" + this.object +
+                ", version=" + this.version +
+                '}';
+    }
+
+    /**
+     * Returns the saved object.
+     *
+     * @return The saved object (newer null).
+     */
+    public Object getObject() {
+        return this.object;
+    }
+
+    /**
+     * Returns the version of the saved object.
+     *
+     * @return The version of the saved object.
+     */
+    public int getVersion() {
+        return this.version;
+    }
+}
@@ -0,0 +1,156 @@
+package com.salimov.yurii.cache;
+
+import jdk.jfr.EventType;
+
+/**
+ * The class implements a set of methods for emitting events
+ * about cache operations and maintenance. This is the Java 21
+ * version of the class, it emits Flight Recorder events,
+ * so a recording shows the cache next to the GC and threads.
+ * A disabled event costs one check and no allocation.
+ * <p>
+ * An event is started by a begin method, which returns
+ * the handle of the event or null if the event is disabled,
+ * and is committed by the matching end method.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheEvents {
+
+    private static final EventType OPERATION =
+            EventType.getEventType(CacheOperationEvent.class);
+
+    private static final EventType MAINTENANCE =
+            EventType.getEventType(CacheMaintenanceEvent.class);
+
+    private static final EventType REBUILD =
+            EventType.getEventType(CacheRebuildEvent.class);
+
+    private static final EventType LOAD_FAILURE =
+            EventType.getEventType(CacheLoadFailureEvent.class);
+
+    /**
+     * Private Constructor.
+     */
+    private CacheEvents() {
+    }
+
+    /**
+     * Starts the event of a get or put call.
+     *
+     * @return The handle of the event or null if it is disabled.
+     */
+    static Object beginOperation() {
+        CacheOperationEvent event = null;
+        if (OPERATION.isEnabled()) {
+            event = new CacheOperationEvent();
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Commits the event of a get or put call
+     * if the call was slower than the threshold.
+     *
+     * @param event     the handle of the event or null.
+     * @param operation the name of the call.
+     * @param key       the object key in the cache.
+     */
+    static void endOperation(final Object event, final String operation, final Object key) {
+        if (event instanceof CacheOperationEvent) {
+            final CacheOperationEvent _event = (CacheOperationEvent) event;
+            _event.end();
+            if (_event.shouldCommit()) {
+                _event.operation = operation;
+                _event.key = String.valueOf(key);
+                _event.commit();
+            }
+        }
+    }
+
+    /**
+     * Starts the event of a maintenance run.
+     *
+     * @return The handle of the event or null if it is disabled.
+     */
+    static Object beginMaintenance() {
+        CacheMaintenanceEvent event = null;
+        if (MAINTENANCE.isEnabled()) {
+            event = new CacheMaintenanceEvent();
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Commits the event of a maintenance run.
+     *
+     * @param event   the handle of the event or null.
+     * @param scanned the number of scanned objects.
+     * @param expired the number of removed dead objects.
+     * @param evicted the number of objects removed to the normal size.
+     */
+    static void endMaintenance(
+            final Object event, final long scanned,
+            final long expired, final long evicted
+    ) {
+        if (event instanceof CacheMaintenanceEvent) {
+            final CacheMaintenanceEvent _event = (CacheMaintenanceEvent) event;
+            _event.end();
+            if (_event.shouldCommit()) {
+                _event.scanned = scanned;
+                _event.expired = expired;
+                _event.evicted = evicted;
+                _event.commit();
+            }
+        }
+    }
+
+    /**
+     * Starts the event of a rebuild of the cache information.
+     *
+     * @return The handle of the event or null if it is disabled.
+     */
+    static Object beginRebuild() {
+        CacheRebuildEvent event = null;
+        if (REBUILD.isEnabled()) {
+            event = new CacheRebuildEvent();
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Commits the event of a rebuild of the cache information.
+     *
+     * @param event   the handle of the event or null.
+     * @param entries the number of entries in the information.
+     */
+    static void endRebuild(final Object event, final int entries) {
+        if (event instanceof CacheRebuildEvent) {
+            final CacheRebuildEvent _event = (CacheRebuildEvent) event;
+            _event.end();
+            if (_event.shouldCommit()) {
+                _event.entries = entries;
+                _event.commit();
+            }
+        }
+    }
+
+    /**
+     * Emits the event of a failed load.
+     *
+     * @param key       the object key in the cache.
+     * @param throwable the cause of the failure.
+     */
+    static void loadFailed(final Object key, final Throwable throwable) {
+        if (LOAD_FAILURE.isEnabled()) {
+            final CacheLoadFailureEvent event = new CacheLoadFailureEvent();
+            event.key = String.valueOf(key);
+            event.exception = throwable.getClass().getName();
+            event.message = throwable.getMessage();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.salimov.yurii.cache;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Flight Recorder event of a load of an object which failed.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+@Name("com.salimov.yurii.cache.LoadFailure")
+@Label("Cache Load Failure")
+@Category("Cache")
+@Description("A load of an object which failed.")
+final class CacheLoadFailureEvent extends Event {
+
+    @Label("Key")
+    String key;
+
+    @Label("Exception")
+    String exception;
+
+    @Label("Message")
+    String message;
+}
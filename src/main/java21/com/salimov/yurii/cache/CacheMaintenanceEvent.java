@@ -0,0 +1,28 @@
+package com.salimov.yurii.cache;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Flight Recorder event of a run of the cache cleaner.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+@Name("com.salimov.yurii.cache.Maintenance")
+@Label("Cache Maintenance")
+@Category("Cache")
+@Description("A run of the cache cleaner.")
+final class CacheMaintenanceEvent extends Event {
+
+    @Label("Scanned")
+    long scanned;
+
+    @Label("Expired")
+    long expired;
+
+    @Label("Evicted")
+    long evicted;
+}
@@ -0,0 +1,27 @@
+package com.salimov.yurii.cache;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * The Flight Recorder event of a get or put call slower than the threshold.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+@Name("com.salimov.yurii.cache.Operation")
+@Label("Cache Operation")
+@Category("Cache")
+@Description("A get or put call slower than the threshold.")
+@Threshold("1 ms")
+final class CacheOperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Key")
+    String key;
+}
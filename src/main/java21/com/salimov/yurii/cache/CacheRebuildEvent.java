@@ -0,0 +1,22 @@
+package com.salimov.yurii.cache;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Flight Recorder event of a rebuild of the cache information.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+@Name("com.salimov.yurii.cache.Rebuild")
+@Label("Cache Information Rebuild")
+@Category("Cache")
+@Description("A rebuild of the cache information.")
+final class CacheRebuildEvent extends Event {
+
+    @Label("Entries")
+    int entries;
+}
@@ -0,0 +1,51 @@
+package com.salimov.yurii.cache;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The class implements a set of methods for creating threads
+ * where the cache loads objects and runs its maintenance.
+ * This is the Java 21 version of the class, it creates virtual
+ * threads, so thousands of blocking loads do not hold
+ * thousands of platform threads.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class CacheThreads {
+
+    /**
+     * Private Constructor.
+     */
+    private CacheThreads() {
+    }
+
+    /**
+     * Creates a new threads factory for constructing a new thread-demand.
+     *
+     * @return The new threads factory (newer null).
+     */
+    static ThreadFactory newThreadFactory() {
+        return Thread.ofVirtual().factory();
+    }
+
+    /**
+     * Creates a new executor where blocking tasks,
+     * such as loaders, are executed.
+     *
+     * @return The new executor (newer null).
+     */
+    static ExecutorService newExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Checks if the threads are virtual.
+     *
+     * @return true if the threads are virtual, false otherwise.
+     */
+    static boolean isVirtual() {
+        return true;
+    }
+}
@@ -0,0 +1,283 @@
+package com.salimov.yurii.cache;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public final class AsyncTemporaryCacheImplTest {
+
+    private static String KEY;
+    private static Object OBJECT;
+    private static AsyncTemporaryCache cache;
+
+    @BeforeClass
+    public static void before() {
+        KEY = "async key";
+        OBJECT = new Object();
+        cache = Cache.getAsyncTemporaryCache();
+    }
+
+    @Test
+    public void whenLoadThenSaveInSynchronousView() {
+        final String key = KEY + 1;
+        final Object object = cache.get(key, _key -> OBJECT).join();
+        assertEquals(OBJECT, object);
+        assertEquals(OBJECT, cache.synchronous().get(key));
+        cache.synchronous().remove(key);
+    }
+
+    @Test
+    public void whenLoadInFlightThenReturnSameFuture() {
+        final String key = KEY + 2;
+        final CompletableFuture<Object> loading = new CompletableFuture<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final CompletableFuture<Object> first = cache.get(
+                key, (_key, executor) -> {
+                    loads.incrementAndGet();
+                    return loading;
+                }
+        );
+        final CompletableFuture<Object> second = cache.get(
+                key, (_key, executor) -> {
+                    loads.incrementAndGet();
+                    return loading;
+                }
+        );
+        assertSame(first, second);
+        assertSame(first, cache.get(key));
+        assertNull(cache.synchronous().get(key));
+        loading.complete(OBJECT);
+        assertEquals(OBJECT, first.join());
+        assertEquals(1, loads.get());
+        assertEquals(OBJECT, cache.synchronous().get(key));
+        cache.synchronous().remove(key);
+    }
+
+    @Test
+    public void whenLoadFailsThenRemoveFuture() {
+        final String key = KEY + 3;
+        final CompletableFuture<Object> future = cache.get(
+                key, _key -> {
+                    throw new IllegalStateException();
+                }
+        );
+        try {
+            future.join();
+            fail();
+        } catch (CompletionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        assertNull(cache.get(key));
+        assertNull(cache.synchronous().get(key));
+    }
+
+    @Test
+    public void whenPutInFlightFutureThenSaveOnCompletion() {
+        final String key = KEY + 4;
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        cache.put(key, future);
+        assertSame(future, cache.get(key));
+        assertNull(cache.synchronous().get(key));
+        future.complete(OBJECT);
+        assertEquals(OBJECT, cache.synchronous().get(key));
+        cache.synchronous().remove(key);
+    }
+
+    @Test
+    public void whenPutFailedFutureThenRemoveIt() {
+        final String key = KEY + 5;
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        cache.put(key, future);
+        future.completeExceptionally(new IllegalStateException());
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void whenGetAllThenLoadMissingObjects() {
+        final String key = KEY + 6;
+        cache.synchronous().put(key, OBJECT);
+        final Map<Object, Object> map = cache.getAll(
+                Arrays.asList(key, KEY + 7), _key -> _key
+        ).join();
+        assertEquals(2, map.size());
+        assertEquals(OBJECT, map.get(key));
+        assertEquals(KEY + 7, map.get(KEY + 7));
+        final Map<Object, Object> present = cache.getAll(
+                Arrays.asList(key, KEY + 7, KEY + 8)
+        ).join();
+        assertEquals(2, present.size());
+        cache.synchronous().remove(key);
+        cache.synchronous().remove(KEY + 7);
+    }
+
+    @Test
+    public void whenWarmUpFromManifestThenLoadWithBoundedParallelismAndRate() throws Exception {
+        final Path manifest = Files.createTempFile("cache-manifest", ".txt");
+        manifest.toFile().deleteOnExit();
+        final List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            keys.add(KEY + " warm " + i);
+        }
+        CacheWarmUp.writeManifest(manifest, keys);
+        cache.synchronous().put(KEY + " warm 0", OBJECT);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final long start = System.nanoTime();
+        final CacheWarmUp warmUp = cache.warmUp(
+                CacheWarmUp.readManifest(manifest),
+                _key -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(2L);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return _key;
+                },
+                executor, 3, 200
+        );
+        assertSame(warmUp, warmUp.getFuture().get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200L));
+        assertEquals(50, warmUp.getTotal());
+        assertEquals(49, warmUp.getLoaded());
+        assertEquals(1, warmUp.getSkipped());
+        assertEquals(1.0, warmUp.getProgress(), 0.0);
+        assertTrue(maxRunning.get() <= 3);
+        assertEquals(KEY + " warm 7", cache.synchronous().get(KEY + " warm 7"));
+        for (Object key : keys) {
+            cache.synchronous().remove(key);
+        }
+    }
+
+    @Test
+    public void whenWriteManifestOfNumbersThenReadThemBackByParser() throws Exception {
+        final Path manifest = Files.createTempFile("cache-manifest", ".txt");
+        manifest.toFile().deleteOnExit();
+        final List<Long> keys = Arrays.asList(1L, 20L, 300L);
+        CacheWarmUp.writeManifest(manifest, keys, String::valueOf);
+        assertEquals(keys, CacheWarmUp.readManifest(manifest, Long::valueOf));
+        assertEquals(Arrays.asList("1", "20", "300"), CacheWarmUp.readManifest(manifest));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenWriteKeyWithLineBreakToManifestThenThrowException() throws Exception {
+        final Path manifest = Files.createTempFile("cache-manifest", ".txt");
+        manifest.toFile().deleteOnExit();
+        CacheWarmUp.writeManifest(manifest, Collections.singletonList("two\nkeys"));
+    }
+
+    @Test
+    public void whenReadKeyWhichIsWarmingThenWaitForItsLoad() throws Exception {
+        final String key = KEY + 9;
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+        final CacheWarmUp warmUp = cache.warmUp(
+                Collections.singletonList(key),
+                _key -> {
+                    loads.incrementAndGet();
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return OBJECT;
+                }
+        );
+        entered.await();
+        final CompletableFuture<Object> read = cache.get(
+                key, _key -> {
+                    loads.incrementAndGet();
+                    return new Object();
+                }
+        );
+        assertFalse(read.isDone());
+        release.countDown();
+        assertEquals(OBJECT, read.join());
+        warmUp.getFuture().join();
+        assertEquals(1, loads.get());
+        cache.synchronous().remove(key);
+    }
+
+    @Test
+    public void whenGetByNullKeyThenReturnNull() {
+        assertNull(cache.get(null));
+    }
+
+    @Test
+    public void whenGetByNullKeyWithLoaderThenReturnNullFuture() {
+        assertNull(cache.get(null, _key -> OBJECT).join());
+        assertNull(cache.get(null, (_key, executor) -> new CompletableFuture<>()).join());
+    }
+
+    @Test
+    public void whenPutNewerFutureThenKeepItsObject() {
+        final String key = KEY + 10;
+        final CompletableFuture<Object> older = new CompletableFuture<>();
+        final CompletableFuture<Object> newer = new CompletableFuture<>();
+        cache.put(key, older);
+        cache.put(key, newer);
+        newer.complete("newer");
+        older.complete("older");
+        assertEquals("newer", cache.synchronous().get(key));
+        assertEquals("newer", cache.get(key).join());
+        cache.synchronous().remove(key);
+    }
+
+    @Test
+    public void whenLoadMissingObjectThenCountOneMiss() {
+        final String key = KEY + 11;
+        final CacheStatistics statistics = cache.synchronous().getStatistics();
+        final long misses = statistics.getMissCount();
+        assertEquals(OBJECT, cache.get(key, _key -> OBJECT).join());
+        assertEquals(1, statistics.getMissCount() - misses);
+        cache.synchronous().remove(key);
+    }
+
+    @Test
+    public void whenGetAllAndOneLoadFailsThenFailAndKeepOtherObjects() {
+        final String failed = KEY + 12;
+        final String loaded = KEY + 13;
+        final CompletableFuture<Map<Object, Object>> future = cache.getAll(
+                Arrays.asList(failed, loaded),
+                _key -> {
+                    if (failed.equals(_key)) {
+                        throw new IllegalStateException();
+                    }
+                    return _key;
+                }
+        );
+        try {
+            future.join();
+            fail();
+        } catch (CompletionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        assertNull(cache.synchronous().get(failed));
+        assertEquals(loaded, cache.synchronous().get(loaded));
+        cache.synchronous().remove(loaded);
+    }
+}
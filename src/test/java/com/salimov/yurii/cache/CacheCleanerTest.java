@@ -1,10 +1,9 @@
 package com.salimov.yurii.cache;
 
-import com.salimov.yurii.cache.temporary.CacheCleaner;
-import com.salimov.yurii.cache.temporary.Key;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -20,13 +19,13 @@ public class CacheCleanerTest {
 
     @BeforeClass
     public static void beforeClass() {
-        final TemporaryCache cache = createCache();
+        final TemporaryCacheImpl cache = createCache();
         cleaner = new CacheCleaner(cache, MAX_SIZE);
     }
 
     @Test
     public void whenAddNegativeMaxSizeThenGetPositiveDefaultSize() {
-        final TemporaryCache cache = createCache();
+        final TemporaryCacheImpl cache = createCache();
         final CacheCleaner cleaner = new CacheCleaner(cache, -MAX_SIZE);
         final int size = cleaner.getMaxSize();
         assertTrue(size > 0);
@@ -35,14 +34,77 @@ public class CacheCleanerTest {
     @Test
     public void whenRunThenDoIt() {
         cleaner.run();
-        try {
-            Thread.sleep(5000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        sleep(5000);
         cleaner.run();
     }
 
+    @Test
+    public void whenRunThenRemoveDeadObjectsAndRecordSweep() {
+        final TemporaryCache cache = createCache();
+        final Key key = new Key(new Object(), 1);
+        cache.put(key, new Object());
+        sleep(10);
+        final CacheStatistics statistics = cache.getStatistics();
+        final long sweeps = statistics.getSweepCount();
+        cleaner.run();
+        assertFalse(cache.exist(key.getValue()));
+        assertTrue(statistics.getSweepCount() > sweeps);
+        assertFalse(cache.keySet().contains(key));
+        assertTrue(statistics.getReclaimedPerSecond() >= 0);
+    }
+
+    @Test
+    public void whenEvictBySampledAccessThenKeepRecentlyReadKeys() throws InterruptedException {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCacheImpl cache = (TemporaryCacheImpl) TemporaryCache.newTemporaryCache(
+                new CacheConfig().setTicker(ticker)
+                        .setEviction(CacheEviction.SAMPLED_ACCESS)
+                        .setMaxSize(1000)
+        )) {
+            for (int i = 0; i < 200; i++) {
+                cache.put("key" + i, i);
+            }
+            ticker.advance(5000L);
+            for (int i = 0; i < 40; i++) {
+                cache.get("key" + i);
+            }
+            cache.setMemoryLimit(100 * CacheConstants.ENTRY_MEMORY_OVERHEAD);
+            final long deadline = System.currentTimeMillis() + 10000L;
+            while ((cache.getSize() > 75) && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(10L);
+            }
+            int hot = 0;
+            for (int i = 0; i < 40; i++) {
+                if (cache.exist("key" + i)) {
+                    hot++;
+                }
+            }
+            assertTrue(cache.getSize() <= 75);
+            assertTrue(hot >= 35);
+        }
+    }
+
+    @Test
+    public void whenCleanSortedThenKeepNotFoundKeys() {
+        try (TemporaryCacheImpl cache = (TemporaryCacheImpl) TemporaryCache.newTemporaryCache(
+                new CacheConfig().setMaxSize(1000)
+        )) {
+            for (int i = 0; i < 40; i++) {
+                cache.put("key" + i, i, 60000L);
+                cache.putNotFound("missing" + i, 3600000L);
+            }
+            final CacheStatistics statistics = cache.getStatistics();
+            final long evictions = statistics.getEvictionCount();
+            new CacheCleaner(cache, 20).run();
+            assertEquals(15, cache.getSize());
+            assertEquals(25, statistics.getEvictionCount() - evictions);
+            assertEquals(40, statistics.getNotFoundSize());
+            for (int i = 0; i < 40; i++) {
+                assertTrue(cache.isNotFound("missing" + i));
+            }
+        }
+    }
+
     @Test
     public void whenGetMaxSizeThenReturnValidNumber() {
         final int size = cleaner.getMaxSize();
@@ -55,8 +117,16 @@ public class CacheCleanerTest {
         assertFalse(cache.isEmpty());
     }
 
-    private static TemporaryCache createCache() {
-        final TemporaryCache cache = Cache.getTemporaryCache();
+    private static void sleep(final long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static TemporaryCacheImpl createCache() {
+        final TemporaryCacheImpl cache = (TemporaryCacheImpl) Cache.getTemporaryCache();
         Key key;
         Object object;
         for (int i = 0; i < 2 * MAX_SIZE; i++) {
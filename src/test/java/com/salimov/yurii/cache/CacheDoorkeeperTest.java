@@ -0,0 +1,120 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class CacheDoorkeeperTest {
+
+    @Test
+    public void whenSeenTwiceThenAdmit() {
+        final CacheDoorkeeper doorkeeper = new CacheDoorkeeper(100);
+        assertFalse(doorkeeper.mightContain("key"));
+        assertFalse(doorkeeper.admit("key"));
+        assertTrue(doorkeeper.mightContain("key"));
+        assertTrue(doorkeeper.admit("key"));
+    }
+
+    @Test
+    public void whenWindowIsOverThenIsFull() {
+        final int window = 10;
+        final CacheDoorkeeper doorkeeper = new CacheDoorkeeper(window);
+        for (int i = 0; i < window; i++) {
+            doorkeeper.admit(i);
+        }
+        assertTrue(doorkeeper.isFull());
+        doorkeeper.rotate(Collections.emptyList());
+        assertFalse(doorkeeper.isFull());
+    }
+
+    @Test
+    public void whenRotateThenKeepLiveKeys() {
+        final CacheDoorkeeper doorkeeper = new CacheDoorkeeper(100);
+        doorkeeper.admit("once");
+        doorkeeper.rotate(Collections.singletonList(new Key("live", 1000L)));
+        assertTrue(doorkeeper.mightContain("once"));
+        doorkeeper.rotate(Collections.singletonList(new Key("live", 1000L)));
+        assertFalse(doorkeeper.mightContain("once"));
+        assertTrue(doorkeeper.mightContain("live"));
+    }
+
+    @Test
+    public void whenPutNotFoundThenSaveOnFirstMiss() {
+        try (TemporaryCache cache = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setDoorkeeperWindow(100)
+        )) {
+            cache.put("once", new Object());
+            assertNull(cache.get("once"));
+            cache.putNotFound("missing");
+            assertTrue(cache.isNotFound("missing"));
+        }
+    }
+
+    @Test
+    public void whenRotateWithMoreLiveKeysThanWindowThenFewFalsePositives() {
+        final int window = 100;
+        final int size = 10000;
+        final CacheDoorkeeper doorkeeper = new CacheDoorkeeper(window);
+        final List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            keys.add(new Key("live" + i, 1000L));
+        }
+        doorkeeper.rotate(keys);
+        doorkeeper.rotate(keys);
+        for (Key key : keys) {
+            assertTrue(doorkeeper.mightContain(key.getValue()));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < size; i++) {
+            if (doorkeeper.mightContain("unseen" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < size / 20);
+    }
+
+    @Test
+    public void whenWindowIsOverOnPutThenRotateWithoutMaintenance() {
+        try (TemporaryCache cache = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setDoorkeeperWindow(100)
+        )) {
+            for (int i = 0; i < 10000; i++) {
+                cache.put("once" + i, i);
+            }
+            int admitted = 0;
+            for (int i = 0; i < 100; i++) {
+                cache.put("fresh" + i, i);
+                if (cache.exist("fresh" + i)) {
+                    admitted++;
+                }
+            }
+            assertTrue(admitted < 10);
+        }
+    }
+
+    @Test
+    public void whenFilterIsSizedThenFewFalsePositives() {
+        final int size = 10000;
+        final BloomFilter filter = new BloomFilter(size, 8, 4);
+        for (int i = 0; i < size; i++) {
+            filter.put(i);
+        }
+        int falsePositives = 0;
+        for (int i = size; i < 2 * size; i++) {
+            if (filter.mightContain(i)) {
+                falsePositives++;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            assertTrue(filter.mightContain(i));
+        }
+        assertTrue(falsePositives < size / 20);
+    }
+}
@@ -0,0 +1,50 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class CacheGhostsTest {
+
+    @Test
+    public void whenMissEvictedKeyThenCountHit() {
+        final CacheGhosts ghosts = new CacheGhosts(100);
+        ghosts.onEviction(new Key("evicted"));
+        ghosts.onMiss(new Key("evicted"));
+        ghosts.onMiss(new Key("never"));
+        assertEquals(1, ghosts.takeHits());
+        assertEquals(0, ghosts.takeHits());
+    }
+
+    @Test
+    public void whenEvictFromManyThreadsThenRememberLastWindows() throws InterruptedException {
+        final int window = 1000;
+        final CacheGhosts ghosts = new CacheGhosts(window);
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            final int thread = i;
+            threads[i] = new Thread(
+                    () -> {
+                        for (int j = 0; j < 10 * window; j++) {
+                            ghosts.onEviction(new Key(thread + ":" + j));
+                        }
+                    }
+            );
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            for (int j = 0; j < 10 * window; j++) {
+                ghosts.onMiss(new Key(i + ":" + j));
+            }
+        }
+        final long hits = ghosts.takeHits();
+        assertTrue(hits >= window);
+        assertTrue(hits < threads.length * window);
+    }
+}
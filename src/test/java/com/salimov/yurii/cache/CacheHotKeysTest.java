@@ -0,0 +1,74 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class CacheHotKeysTest {
+
+    @Test
+    public void whenFewKeysAreReadOftenThenDetectThem() {
+        final CacheHotKeys hotKeys = new CacheHotKeys(16);
+        final Random random = new Random(42L);
+        for (int i = 0; i < 100000; i++) {
+            if (i % 10 < 3) {
+                hotKeys.offer("hot" + random.nextInt(3));
+            } else {
+                hotKeys.offer("cold" + random.nextInt(10000));
+            }
+            if (i % 64 == 0) {
+                hotKeys.drain();
+            }
+        }
+        final List<Object> keys = hotKeys.getKeys();
+        assertTrue(keys.size() <= 16);
+        assertTrue(keys.subList(0, 3).containsAll(
+                Arrays.asList("hot0", "hot1", "hot2")
+        ));
+        assertEquals(3, hotKeys.getKeys(1000).size());
+    }
+
+    @Test
+    public void whenDecayThenDropRareKeys() {
+        final CacheHotKeys hotKeys = new CacheHotKeys(4);
+        hotKeys.offer("rare");
+        for (int i = 0; i < 10; i++) {
+            hotKeys.offer("hot");
+        }
+        hotKeys.drain();
+        hotKeys.decay();
+        assertEquals(1, hotKeys.getKeys().size());
+        hotKeys.offer("hot");
+        assertEquals(1, hotKeys.getKeys(6).size());
+        assertEquals(0, hotKeys.getKeys(7).size());
+    }
+
+    @Test
+    public void whenReadFromManyThreadsThenCountAtDrain() throws InterruptedException {
+        final CacheHotKeys hotKeys = new CacheHotKeys(4);
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(
+                    () -> {
+                        for (int j = 0; j < 64; j++) {
+                            hotKeys.offer("hot");
+                        }
+                    }
+            );
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(Collections.singletonList("hot"), hotKeys.getKeys());
+        assertEquals(1, hotKeys.getKeys(64).size());
+    }
+}
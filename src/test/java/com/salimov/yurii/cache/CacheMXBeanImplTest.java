@@ -0,0 +1,79 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class CacheMXBeanImplTest {
+
+    @Test
+    public void whenCreateCacheThenRegisterMBean() throws Exception {
+        try (TemporaryCache cache = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setName("registered")
+        )) {
+            cache.put("key", new Object());
+            cache.get("key");
+            cache.get("missing");
+            final CacheMXBean mbean = getMBean("registered");
+            assertEquals("registered", mbean.getName());
+            assertEquals(1, mbean.getSize());
+            assertEquals(1, mbean.getHitCount());
+            assertEquals(1, mbean.getMissCount());
+            assertTrue(mbean.getEstimatedMemory() > 0);
+        }
+    }
+
+    @Test
+    public void whenSetMaxSizeThenTriggerMaintenance() throws Exception {
+        try (TemporaryCache cache = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setName("resized")
+        )) {
+            for (int i = 0; i < 100; i++) {
+                cache.put("key" + i, new Object());
+            }
+            final CacheMXBean mbean = getMBean("resized");
+            mbean.setMaxSize(20);
+            assertEquals(20, mbean.getMaxSize());
+            final long deadline = System.currentTimeMillis() + 5000L;
+            while ((mbean.getMaintenanceCount() == 0) && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(10L);
+            }
+            assertEquals(15, cache.getSize());
+            assertEquals(85, mbean.getEvictionCount());
+        }
+    }
+
+    @Test
+    public void whenSetDefaultTimeoutThenUseItForNewObjects() throws Exception {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCache cache = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setName("timed").setTicker(ticker)
+        )) {
+            final CacheMXBean mbean = getMBean("timed");
+            mbean.setDefaultTimeout(100L);
+            cache.put("key", new Object());
+            ticker.advance(101L);
+            assertNull(cache.get("key"));
+            mbean.setMaintenanceInterval(5000L);
+            assertEquals(5000L, mbean.getMaintenanceInterval());
+            assertTrue(mbean.getMaintenanceDelay() <= 5000L);
+        }
+    }
+
+    private static CacheMXBean getMBean(final String name) throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = new ObjectName(
+                "com.salimov.yurii.cache:type=TemporaryCache,name=" + ObjectName.quote(name)
+        );
+        assertTrue(server.isRegistered(objectName));
+        return JMX.newMXBeanProxy(server, objectName, CacheMXBean.class);
+    }
+}
@@ -0,0 +1,161 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class CacheManagerTest {
+
+    @Test
+    public void whenCreateRegionsThenKeepThemApart() {
+        try (CacheManager manager = new CacheManager(1)) {
+            final TemporaryCache users = manager.createRegion("users");
+            final TemporaryCache orders = manager.createRegion(
+                    "orders", new CacheConfig().setMaxSize(10)
+            );
+            users.put("key", "user");
+            orders.put("key", "order");
+            assertSame(users, manager.getRegion("users"));
+            assertEquals("user", manager.getRegion("users").get("key"));
+            assertEquals("order", manager.getRegion("orders").get("key"));
+            assertEquals(2, manager.getRegionNames().size());
+            assertNull(manager.getRegion("missing"));
+        }
+    }
+
+    @Test
+    public void whenCreateRegionsFromOneConfigThenKeepConfigUnchanged() {
+        final CacheConfig config = new CacheConfig().setMaxSize(10);
+        try (CacheManager manager = new CacheManager(1)) {
+            final TemporaryCacheImpl first = (TemporaryCacheImpl) manager.createRegion("first", config);
+            final TemporaryCacheImpl second = (TemporaryCacheImpl) manager.createRegion("second", config);
+            assertNull(config.getName());
+            assertEquals(10, config.getMaxSize());
+            assertEquals(0, first.getGhostWindow());
+            assertEquals(0, second.getGhostWindow());
+        }
+        try (CacheManager manager = new CacheManager(1, 1000 * CacheConstants.ENTRY_MEMORY_OVERHEAD)) {
+            final TemporaryCacheImpl region = (TemporaryCacheImpl) manager.createRegion("budget", config);
+            assertTrue(region.getGhostWindow() > 0);
+            assertEquals(10, config.getMaxSize());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenCreateExistingRegionThenThrowException() {
+        try (CacheManager manager = new CacheManager(1)) {
+            manager.createRegion("twice");
+            manager.createRegion("twice");
+        }
+    }
+
+    @Test
+    public void whenRegionIsFullThenCleanItInSharedScheduler() throws Exception {
+        try (CacheManager manager = new CacheManager(1)) {
+            final TemporaryCache small = manager.createRegion(
+                    "small", new CacheConfig().setMaxSize(20)
+            );
+            manager.createRegion("idle");
+            for (int i = 0; i < 100; i++) {
+                small.put("key" + i, new Object());
+            }
+            final long deadline = System.currentTimeMillis() + 5000L;
+            while ((small.getSize() > 20) && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(10L);
+            }
+            assertTrue(small.getSize() <= 20);
+        }
+    }
+
+    @Test
+    public void whenCloseThenCloseRegionsAndUnregisterMBeans() throws Exception {
+        final CacheManager manager = new CacheManager(1);
+        manager.createRegion("closed");
+        final ObjectName name = getObjectName("closed");
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        manager.close();
+        assertTrue(manager.isClosed());
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        assertTrue(manager.getRegionNames().isEmpty());
+        try {
+            manager.createRegion("late");
+            fail();
+        } catch (IllegalStateException ex) {
+            assertTrue(manager.isClosed());
+        }
+    }
+
+    @Test
+    public void whenCloseRegionThenDestroyItInManager() throws Exception {
+        try (CacheManager manager = new CacheManager(1, 1000 * CacheConstants.ENTRY_MEMORY_OVERHEAD)) {
+            final TemporaryCache first = manager.createRegion("reused");
+            first.close();
+            assertNull(manager.getRegion("reused"));
+            assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(getObjectName("reused")));
+            final TemporaryCache second = manager.createRegion("reused");
+            first.close();
+            assertSame(second, manager.getRegion("reused"));
+            assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(getObjectName("reused")));
+        }
+    }
+
+    @Test
+    public void whenBudgetThenShareItBetweenRegionsWithinLimits() throws Exception {
+        final long entry = CacheConstants.ENTRY_MEMORY_OVERHEAD;
+        try (CacheManager manager = new CacheManager(1, 3000 * entry)) {
+            manager.createRegion("first");
+            assertEquals(3000 * entry, manager.getMemoryLimit("first"));
+            manager.createRegion("second");
+            manager.createRegion("third", new CacheConfig().setMaxMemory(500 * entry));
+            assertEquals(1000 * entry, manager.getMemoryLimit("first"));
+            assertEquals(1000 * entry, manager.getMemoryLimit("second"));
+            assertEquals(500 * entry, manager.getMemoryLimit("third"));
+            final CacheMXBean mbean = JMX.newMXBeanProxy(
+                    ManagementFactory.getPlatformMBeanServer(), getObjectName("third"), CacheMXBean.class
+            );
+            assertEquals(500, mbean.getMaxSize());
+        }
+    }
+
+    @Test
+    public void whenRegionMissesEvictedKeysThenGiveItMoreMemory() throws Exception {
+        final long entry = CacheConstants.ENTRY_MEMORY_OVERHEAD;
+        try (CacheManager manager = new CacheManager(1, 2000 * entry)) {
+            final TemporaryCache hot = manager.createRegion("hot");
+            final TemporaryCache cold = manager.createRegion(
+                    "cold", new CacheConfig().setMinMemory(900 * entry)
+            );
+            for (int i = 0; i < 2000; i++) {
+                hot.put(i, new Object());
+            }
+            final long deadline = System.currentTimeMillis() + 5000L;
+            while ((hot.getSize() > 1000) && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(10L);
+            }
+            for (int i = 0; i < 2000; i++) {
+                hot.get(i);
+            }
+            cold.put("key", new Object());
+            cold.get("key");
+            manager.rebalance();
+            assertEquals(1100 * entry, manager.getMemoryLimit("hot"));
+            assertEquals(900 * entry, manager.getMemoryLimit("cold"));
+            manager.rebalance();
+            assertEquals(1100 * entry, manager.getMemoryLimit("hot"));
+            assertEquals(900 * entry, manager.getMemoryLimit("cold"));
+        }
+    }
+
+    private static ObjectName getObjectName(final String name) throws Exception {
+        return new ObjectName(
+                "com.salimov.yurii.cache:type=TemporaryCache,name=" + ObjectName.quote(name)
+        );
+    }
+}
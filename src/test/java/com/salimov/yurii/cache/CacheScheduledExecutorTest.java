@@ -0,0 +1,95 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class CacheScheduledExecutorTest {
+
+    private final static int HIGH_WATER_MARK = 10;
+
+    @Test
+    public void whenSizePassesHighWaterMarkThenRunAtOnce() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CacheScheduledExecutor executor = new CacheScheduledExecutor(
+                latch::countDown, new CacheStatistics(), HIGH_WATER_MARK
+        );
+        executor.go();
+        executor.onWrite(HIGH_WATER_MARK + 1);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void whenSizeIsUnderHighWaterMarkThenDoNotRun() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CacheScheduledExecutor executor = new CacheScheduledExecutor(
+                latch::countDown, new CacheStatistics(), HIGH_WATER_MARK
+        );
+        executor.go();
+        executor.onWrite(HIGH_WATER_MARK);
+        assertFalse(latch.await(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void whenTriggeredThenHalveDelay() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CacheScheduledExecutor executor = new CacheScheduledExecutor(
+                latch::countDown, new CacheStatistics(), HIGH_WATER_MARK
+        );
+        final long delay = executor.getDelay();
+        executor.go();
+        executor.onWrite(HIGH_WATER_MARK + 1);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(delay / 2, executor.getDelay());
+    }
+
+    @Test
+    public void whenManyWritesUnderScaledThresholdThenDoNotRun() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final int highWaterMark = 2000000;
+        final CacheScheduledExecutor executor = new CacheScheduledExecutor(
+                latch::countDown, new CacheStatistics(), highWaterMark
+        );
+        executor.go();
+        for (int i = 0; i < 10000; i++) {
+            executor.onWrite(highWaterMark / 2);
+        }
+        assertFalse(latch.await(200, TimeUnit.MILLISECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void whenTriggeredAgainThenWaitMinDelay() throws InterruptedException {
+        final List<Long> runs = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch latch = new CountDownLatch(2);
+        final CacheScheduledExecutor executor = new CacheScheduledExecutor(
+                () -> {
+                    runs.add(System.currentTimeMillis());
+                    latch.countDown();
+                },
+                new CacheStatistics(), HIGH_WATER_MARK
+        );
+        executor.go();
+        executor.trigger();
+        while (runs.isEmpty()) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(50);
+        executor.trigger();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(runs.get(1) - runs.get(0) >= CacheConstants.SCHEDULER_MIN_DELAY);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,70 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class CacheSimulatorTest {
+
+    @Test
+    public void whenLoopFitsInCacheThenMissOnlyFirstReads() {
+        final List<SimulationResult> results = new CacheSimulator(
+                CacheTraces.loop(100, 10000)
+        ).run(150);
+        assertEquals(2, results.size());
+        for (SimulationResult result : results) {
+            assertEquals(10000, result.getEvents());
+            assertEquals(9900, result.getHits());
+        }
+    }
+
+    @Test
+    public void whenLoopDoesNotFitThenLruAlwaysMisses() {
+        final SimulationResult result = new CacheSimulator(CacheTraces.loop(200, 10000))
+                .addPolicy("cleaner", size -> key -> false)
+                .run(150)
+                .get(1);
+        assertEquals("lru", result.getPolicy());
+        assertEquals(0, result.getHits());
+    }
+
+    @Test
+    public void whenScanThenNeverHit() {
+        for (SimulationResult result : new CacheSimulator(CacheTraces.scan(1000)).run(10)) {
+            assertEquals(0.0, result.getHitRatio(), 0.0);
+        }
+    }
+
+    @Test
+    public void whenCacheGrowsThenZipfHitRatioGrows() {
+        final List<SimulationResult> results = new CacheSimulator(
+                CacheTraces.zipf(10000, 1.0, 100000, 42L)
+        ).run(100, 1000);
+        assertTrue(results.get(1).getHitRatio() > results.get(0).getHitRatio());
+        assertTrue(results.get(3).getHitRatio() > results.get(2).getHitRatio());
+    }
+
+    @Test
+    public void whenReplayFileThenStreamKeys() throws IOException {
+        final Path path = Files.createTempFile("trace", ".txt");
+        try {
+            Files.write(path, Arrays.asList("a", "b", "a", "c", "a"));
+            final SimulationResult result = new CacheSimulator(CacheTraces.file(path))
+                    .run(10)
+                    .get(0);
+            assertEquals(5, result.getEvents());
+            assertEquals(2, result.getHits());
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class CacheWriteBehindTest {
+
+    @Test
+    public void whenPutAndRemoveThenWriteToStoreOnClose() throws Exception {
+        final FileCacheWriter writer = new FileCacheWriter();
+        try (TemporaryCacheImpl cache = newCache(
+                new CacheConfig().setWriter(writer).setWriterDelay(60000L)
+        )) {
+            cache.put("first", "1");
+            cache.put("second", "2");
+            cache.merge("third", 3, (old, value) -> (int) old + (int) value);
+            cache.remove("first");
+        }
+        final Properties store = writer.read();
+        assertNull(store.getProperty("first"));
+        assertEquals("2", store.getProperty("second"));
+        assertEquals("3", store.getProperty("third"));
+    }
+
+    @Test
+    public void whenRemoveByTagPrefixAndClassThenDeleteFromStore() throws Exception {
+        final FileCacheWriter writer = new FileCacheWriter();
+        try (TemporaryCacheImpl cache = newCache(
+                new CacheConfig().setWriter(writer).setWriterDelay(60000L)
+        )) {
+            cache.put("tagged", "1", 60000L, "tag");
+            cache.put("prefix:key", "2");
+            cache.put("number", 3);
+            cache.put("kept", "4");
+            assertEquals(1, cache.invalidateTag("tag"));
+            assertEquals(1, cache.removeByPrefix("prefix:"));
+            cache.remove(Integer.class);
+        }
+        final Properties store = writer.read();
+        assertNull(store.getProperty("tagged"));
+        assertNull(store.getProperty("prefix:key"));
+        assertNull(store.getProperty("number"));
+        assertEquals("4", store.getProperty("kept"));
+    }
+
+    @Test
+    public void whenWriteKeyManyTimesThenWriteLastObjectOnce() throws Exception {
+        final FileCacheWriter writer = new FileCacheWriter();
+        try (TemporaryCacheImpl cache = newCache(
+                new CacheConfig().setWriter(writer).setWriterDelay(60000L)
+        )) {
+            for (int i = 0; i < 100; i++) {
+                cache.put("key", i);
+            }
+            cache.close();
+            assertEquals("99", writer.read().getProperty("key"));
+            assertEquals(1, writer.getBatches().size());
+            assertEquals(1, cache.getStatistics().getWriteCount());
+        }
+    }
+
+    @Test
+    public void whenBatchIsFullThenWriteAtOnce() throws Exception {
+        final FileCacheWriter writer = new FileCacheWriter();
+        try (TemporaryCacheImpl cache = newCache(
+                new CacheConfig().setWriter(writer)
+                        .setWriterDelay(60000L)
+                        .setWriterBatchSize(10)
+        )) {
+            for (int i = 0; i < 25; i++) {
+                cache.put("key" + i, i);
+            }
+            awaitWrites(cache, 20);
+        }
+        assertEquals(25, writer.read().size());
+        for (int size : writer.getBatches()) {
+            assertTrue(size <= 10);
+        }
+    }
+
+    @Test
+    public void whenBatchFailsThenRetry() throws Exception {
+        final FileCacheWriter writer = new FileCacheWriter().failNext(2);
+        try (TemporaryCacheImpl cache = newCache(
+                new CacheConfig().setWriter(writer).setWriterDelay(10L)
+        )) {
+            cache.put("key", "value");
+            awaitWrites(cache, 1);
+            assertEquals("value", writer.read().getProperty("key"));
+            assertEquals(2, cache.getStatistics().getWriteFailureCount());
+            assertEquals(0, cache.getStatistics().getWriteDropCount());
+        }
+    }
+
+    @Test
+    public void whenBatchFailsThenRetryItBeforeQueuedBatches() throws Exception {
+        final FileCacheWriter writer = new FileCacheWriter().failNext(1);
+        try (TemporaryCacheImpl cache = newCache(
+                new CacheConfig().setWriter(writer)
+                        .setWriterDelay(10L)
+                        .setWriterBatchSize(1)
+        )) {
+            cache.put("first", "1");
+            cache.put("second", "2");
+            awaitWrites(cache, 2);
+        }
+        assertEquals(Arrays.asList("first", "second"), writer.getKeys());
+    }
+
+    @Test
+    public void whenBatchFailsAfterAllRetriesThenDropOnlyIt() throws Exception {
+        final FileCacheWriter writer = new FileCacheWriter()
+                .failNext(CacheConstants.WRITER_RETRIES + 1);
+        try (TemporaryCacheImpl cache = newCache(
+                new CacheConfig().setWriter(writer)
+                        .setWriterDelay(1L)
+                        .setWriterBatchSize(1)
+        )) {
+            cache.put("first", "1");
+            cache.put("second", "2");
+            awaitWrites(cache, 1);
+            assertEquals(1, cache.getStatistics().getWriteDropCount());
+        }
+        assertEquals(Collections.singletonList("second"), writer.getKeys());
+    }
+
+    @Test
+    public void whenQueueIsFullThenBlockWriters() throws Exception {
+        final FileCacheWriter writer = new FileCacheWriter().block();
+        try (TemporaryCacheImpl cache = newCache(
+                new CacheConfig().setWriter(writer)
+                        .setWriterBatchSize(1)
+                        .setWriterMaxPending(2)
+        )) {
+            cache.put("key1", 1);
+            writer.awaitEntered();
+            cache.put("key2", 2);
+            cache.put("key3", 3);
+            cache.put("key2", 22);
+            final Thread blocked = new Thread(() -> cache.put("key4", 4));
+            blocked.start();
+            blocked.join(200L);
+            assertTrue(blocked.isAlive());
+            assertFalse(cache.exist("key4"));
+            writer.release();
+            blocked.join();
+        }
+        final Properties store = writer.read();
+        assertEquals(4, store.size());
+        assertEquals("22", store.getProperty("key2"));
+    }
+
+    @Test
+    public void whenClearCacheThenKeepObjectsInStore() throws Exception {
+        final FileCacheWriter writer = new FileCacheWriter();
+        try (TemporaryCacheImpl cache = newCache(new CacheConfig().setWriter(writer))) {
+            cache.put("key", "value");
+            cache.putNotFound("missing");
+            cache.clear();
+        }
+        final Properties store = writer.read();
+        assertEquals("value", store.getProperty("key"));
+        assertNull(store.getProperty("missing"));
+    }
+
+    @Test
+    public void whenKeyIsNotAdmittedThenWriteInOrderWithOtherWriters() throws Exception {
+        final FileCacheWriter writer = new FileCacheWriter();
+        final int keys = 1000;
+        final Thread[] threads = new Thread[4];
+        try (TemporaryCacheImpl cache = newCache(
+                new CacheConfig().setWriter(writer).setWriterDelay(60000L)
+                        .setMaxSize(10000).setDoorkeeperWindow(100000)
+        )) {
+            for (int i = 0; i < threads.length; i++) {
+                final int value = i;
+                threads[i] = new Thread(
+                        () -> {
+                            for (int key = 0; key < keys; key++) {
+                                cache.put("key" + key, value);
+                            }
+                        }
+                );
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            cache.close();
+            final Properties store = writer.read();
+            for (int key = 0; key < keys; key++) {
+                final Object object = cache.get("key" + key);
+                assertNotNull(object);
+                assertEquals(object.toString(), store.getProperty("key" + key));
+            }
+        }
+    }
+
+    private static TemporaryCacheImpl newCache(final CacheConfig config) {
+        return (TemporaryCacheImpl) TemporaryCache.newTemporaryCache(config);
+    }
+
+    private static void awaitWrites(
+            final TemporaryCache cache,
+            final long count
+    ) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000L;
+        while ((cache.getStatistics().getWriteCount() < count) &&
+                (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10L);
+        }
+    }
+}
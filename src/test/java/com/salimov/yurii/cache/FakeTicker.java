@@ -0,0 +1,23 @@
+package com.salimov.yurii.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ticker which is moved by hand.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+final class FakeTicker implements Ticker {
+
+    private final AtomicLong time = new AtomicLong(1000L);
+
+    @Override
+    public long read() {
+        return this.time.get();
+    }
+
+    FakeTicker advance(final long milliseconds) {
+        this.time.addAndGet(milliseconds);
+        return this;
+    }
+}
@@ -0,0 +1,102 @@
+package com.salimov.yurii.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class FileCacheWriter implements CacheWriter {
+
+    private final Path file;
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Object> keys = Collections.synchronizedList(new ArrayList<>());
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    FileCacheWriter() throws IOException {
+        this.file = Files.createTempFile("cache-writer", ".properties");
+        this.file.toFile().deleteOnExit();
+    }
+
+    @Override
+    public void write(final Map<Object, Object> objects) throws Exception {
+        enter();
+        final Properties properties = read();
+        for (Map.Entry<Object, Object> entry : objects.entrySet()) {
+            properties.setProperty(entry.getKey().toString(), entry.getValue().toString());
+        }
+        store(properties);
+        this.batches.add(objects.size());
+        this.keys.addAll(objects.keySet());
+    }
+
+    @Override
+    public void delete(final Collection<Object> keys) throws Exception {
+        enter();
+        final Properties properties = read();
+        for (Object key : keys) {
+            properties.remove(key.toString());
+        }
+        store(properties);
+        this.batches.add(keys.size());
+        this.keys.addAll(keys);
+    }
+
+    synchronized Properties read() throws IOException {
+        final Properties result = new Properties();
+        try (InputStream input = Files.newInputStream(this.file)) {
+            result.load(input);
+        }
+        return result;
+    }
+
+    FileCacheWriter failNext(final int count) {
+        this.failures.set(count);
+        return this;
+    }
+
+    FileCacheWriter block() {
+        this.gate = new CountDownLatch(1);
+        return this;
+    }
+
+    void release() {
+        this.gate.countDown();
+    }
+
+    void awaitEntered() throws InterruptedException {
+        this.entered.await();
+    }
+
+    List<Integer> getBatches() {
+        return new ArrayList<>(this.batches);
+    }
+
+    List<Object> getKeys() {
+        return new ArrayList<>(this.keys);
+    }
+
+    private void enter() throws Exception {
+        this.entered.countDown();
+        this.gate.await();
+        if (this.failures.getAndDecrement() > 0) {
+            throw new IOException("The store is not available");
+        }
+    }
+
+    private synchronized void store(final Properties properties) throws IOException {
+        try (OutputStream output = Files.newOutputStream(this.file)) {
+            properties.store(output, null);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package com.salimov.yurii.cache;
 
-import com.salimov.yurii.cache.temporary.Key;
-import com.salimov.yurii.cache.temporary.KeyComparator;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -0,0 +1,39 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import java.util.Collection;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class KeyPrefixIndexTest {
+
+    @Test
+    public void whenFindByPrefixThenReturnOnlyMatches() {
+        final KeyPrefixIndex index = new KeyPrefixIndex();
+        index.add("tenant4:order:1");
+        index.add("tenant42:order:1");
+        index.add("tenant42:order:2");
+        index.add("tenant43:order:1");
+        index.add(new Object());
+        final Collection<String> keys = index.find("tenant42:");
+        assertEquals(2, keys.size());
+        assertTrue(keys.contains("tenant42:order:1"));
+        assertTrue(keys.contains("tenant42:order:2"));
+        assertEquals(2, index.count("tenant42:"));
+        assertEquals(4, index.count("tenant4"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void whenRemoveThenDoNotFind() {
+        final KeyPrefixIndex index = new KeyPrefixIndex();
+        index.add("tenant42:order:1");
+        index.remove("tenant42:order:1");
+        assertTrue(index.find("tenant42:").isEmpty());
+        assertEquals(0, index.count(""));
+    }
+}
@@ -0,0 +1,125 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class KeyTableTest {
+
+    @Test
+    public void whenComputeThenSaveReplaceAndRemoveKeys() {
+        final KeyTable table = new KeyTable();
+        final Key key = new Key("key");
+        assertSame(key, table.compute(key, (_key, node) -> _key));
+        assertSame(key, table.get(new Key("key")));
+        final Key other = new Key("key");
+        assertSame(other, table.compute(other, (_key, node) -> _key));
+        assertSame(other, table.get(new Key("key")));
+        assertEquals(1, table.size());
+        assertNull(table.computeIfPresent(new Key("missing"), (_key, node) -> _key));
+        assertSame(other, table.remove(new Key("key")));
+        assertNull(table.get(key));
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void whenSampleThenReturnSavedKeys() {
+        final KeyTable table = new KeyTable();
+        final Random random = new Random(42L);
+        assertNull(table.sample(random));
+        final int size = 1000;
+        for (int i = 0; i < size; i++) {
+            table.compute(new Key(i), (_key, node) -> _key);
+        }
+        final Set<Object> sampled = new HashSet<>();
+        Key key;
+        for (int i = 0; i < 10 * size; i++) {
+            key = table.sample(random);
+            assertSame(key, table.get(key));
+            sampled.add(key.getValue());
+        }
+        assertTrue(sampled.size() > size * 9 / 10);
+    }
+
+    @Test
+    public void whenTableGrowsThenKeepEveryKeyOnce() {
+        final KeyTable table = new KeyTable();
+        final int size = 100000;
+        for (int i = 0; i < size; i++) {
+            table.compute(new Key(i), (_key, node) -> _key);
+        }
+        for (int i = 0; i < size; i += 2) {
+            table.remove(new Key(i));
+        }
+        assertEquals(size / 2, table.size());
+        final Set<Object> iterated = new HashSet<>();
+        for (Key key : table.keySet()) {
+            assertTrue(iterated.add(key.getValue()));
+        }
+        final Set<Object> split = StreamSupport.stream(table.keySet().spliterator(), true)
+                .map(Key::getValue)
+                .collect(Collectors.toSet());
+        assertEquals(size / 2, iterated.size());
+        assertEquals(iterated, split);
+        for (int i = 1; i < size; i += 2) {
+            assertNotNull(table.get(new Key(i)));
+        }
+    }
+
+    @Test
+    public void whenSplitKeySetThenCoverSegmentsAndKeys() {
+        final KeyTable table = new KeyTable();
+        for (int i = 0; i < 1000; i++) {
+            table.compute(new Key(i), (_key, node) -> _key);
+        }
+        final Spliterator<Key> first = table.keySet().spliterator();
+        final Spliterator<Key> second = first.trySplit();
+        assertNotNull(second);
+        assertEquals(1000, first.estimateSize() + second.estimateSize());
+        final AtomicInteger count = new AtomicInteger();
+        first.forEachRemaining(key -> count.incrementAndGet());
+        second.forEachRemaining(key -> count.incrementAndGet());
+        assertEquals(1000, count.get());
+    }
+
+    @Test
+    public void whenTableGrowsThenReadersNeverMissSavedKeys() throws Exception {
+        final KeyTable table = new KeyTable();
+        final int saved = 1000;
+        for (int i = 0; i < saved; i++) {
+            table.compute(new Key(i), (_key, node) -> _key);
+        }
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicInteger misses = new AtomicInteger();
+        final Thread reader = new Thread(
+                () -> {
+                    while (!done.get()) {
+                        for (int i = 0; i < saved; i++) {
+                            if (table.get(new Key(i)) == null) {
+                                misses.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+        );
+        reader.start();
+        for (int i = saved; i < 200000; i++) {
+            table.compute(new Key(i), (_key, node) -> _key);
+        }
+        done.set(true);
+        reader.join();
+        assertEquals(0, misses.get());
+    }
+}
@@ -1,6 +1,5 @@
 package com.salimov.yurii.cache;
 
-import com.salimov.yurii.cache.temporary.Key;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -12,6 +11,7 @@ public class KeyTest {
 
     private final static String ANY_STRING = "Some string...";
     private static final long DEFAULT_TIMEOUT = 1000L;
+    private static final long NOW = 1000000L;
 
     @Test
     public void whenCallConstructorWithOneParameter() {
@@ -30,22 +30,44 @@ public class KeyTest {
     @Test
     public void whenSetSmallTimeOutThenKeyIsDead() {
         final Key key = new Key(ANY_STRING, 1);
-        sleepOneSecond();
-        final boolean deaden = key.isDead();
+        final long now = NOW;
+        key.setLifetime(key.getLifetime(), now);
+        final boolean deaden = key.isDead(now + DEFAULT_TIMEOUT);
         assertTrue(deaden);
-        final boolean lived = key.isLive();
+        final boolean lived = key.isLive(now + DEFAULT_TIMEOUT);
         assertFalse(lived);
     }
 
     @Test
     public void whenSetBigTimeOutThenKeyIsDead() {
         final Key key = new Key(ANY_STRING, 100 * DEFAULT_TIMEOUT);
-        final boolean deaden = key.isDead();
+        final long now = NOW;
+        key.setLifetime(key.getLifetime(), now);
+        final boolean deaden = key.isDead(now + DEFAULT_TIMEOUT);
         assertFalse(deaden);
-        final boolean lived = key.isLive();
+        final boolean lived = key.isLive(now + DEFAULT_TIMEOUT);
         assertTrue(lived);
     }
 
+    @Test
+    public void whenTouchWithinGranularityThenKeepTimeout() {
+        final Key key = new Key(ANY_STRING, 100 * DEFAULT_TIMEOUT);
+        key.setLifetime(key.getLifetime(), NOW);
+        final long timeout = key.getTimeout();
+        key.touch(key.getLifetime(), timeout - key.getLifetime() + 1);
+        assertEquals(timeout, key.getTimeout());
+    }
+
+    @Test
+    public void whenTouchBeyondGranularityThenExtendTimeout() {
+        final Key key = new Key(ANY_STRING, DEFAULT_TIMEOUT);
+        key.setLifetime(key.getLifetime(), NOW);
+        final long now = key.getTimeout() + 1;
+        key.touch(key.getLifetime(), now);
+        assertEquals(now + DEFAULT_TIMEOUT, key.getTimeout());
+        assertFalse(key.isDead(now));
+    }
+
     @Test
     public void toStringTest() {
         final Key key = new Key(ANY_STRING);
@@ -116,12 +138,4 @@ public class KeyTest {
         final int result = first.compareTo(second);
         assertTrue(result != -1);
     }
-
-    private void sleepOneSecond() {
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void whenRecordThenReportPercentilesWithinError() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(100000, histogram.getCount());
+        assertWithinError(50000000L, histogram.getPercentile(50.0));
+        assertWithinError(99000000L, histogram.getPercentile(99.0));
+        assertWithinError(99900000L, histogram.getPercentile(99.9));
+        assertWithinError(100000000L, histogram.getPercentile(100.0));
+    }
+
+    @Test
+    public void whenResetThenForgetLatencies() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42L);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99.0));
+    }
+
+    @Test
+    public void whenIndexThenValueIsWithinBucket() {
+        for (long value : new long[]{0L, 1L, 15L, 16L, 17L, 1000L, 123456789L, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.index(value);
+            assertTrue(value <= LatencyHistogram.upperBound(index));
+            assertTrue((index == 0) || (value > LatencyHistogram.upperBound(index - 1)));
+        }
+    }
+
+    private static void assertWithinError(final long expected, final long actual) {
+        assertTrue(actual + " is not near " + expected, Math.abs(actual - expected) <= expected / 16);
+    }
+}
@@ -211,8 +211,445 @@ public final class TemporaryCacheImplTest {
         assertFalse(cache.exist(null));
     }
 
+    @Test
+    public void whenCloseSharedCacheThenReplaceIt() {
+        final TemporaryCache closed = Cache.getTemporaryCache();
+        closed.close();
+        cache = Cache.getTemporaryCache();
+        assertNotSame(closed, cache);
+        assertFalse(((TemporaryCacheImpl) cache).isClosed());
+        assertSame(cache, Cache.getTemporaryCache());
+    }
+
+    @Test
+    public void whenPutExpireAfterAccessThenReadExtendsLifetime() {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCache timed = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setTicker(ticker)
+        )) {
+            timed.putExpireAfterAccess(KEY, OBJECT, 2500L);
+            ticker.advance(1500L);
+            assertNotNull(timed.get(KEY));
+            ticker.advance(1500L);
+            assertNotNull(timed.get(KEY));
+            ticker.advance(2600L);
+            assertNull(timed.get(KEY));
+        }
+    }
+
+    @Test
+    public void whenPutExpireAfterAccessWithSubSecondLifetimeThenReadExtendsLifetime() {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCache timed = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setTicker(ticker)
+        )) {
+            timed.putExpireAfterAccess(KEY, OBJECT, 500L);
+            for (int i = 0; i < 5; i++) {
+                ticker.advance(300L);
+                assertNotNull(timed.get(KEY));
+            }
+            ticker.advance(600L);
+            assertNull(timed.get(KEY));
+        }
+    }
+
+    @Test
+    public void whenPutAboveMaxSizeThenEvictOnWrite() {
+        try (TemporaryCache bounded = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setMaxSize(100)
+        )) {
+            for (int i = 0; i < 1000; i++) {
+                bounded.put("key" + i, i);
+                assertTrue(bounded.getSize() <= 100);
+            }
+            assertTrue(bounded.getStatistics().getEvictionCount() >= 900);
+        }
+    }
+
+    @Test
+    public void whenPutAboveMaxSizeThenEvictInSortedOrder() {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCache bounded = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setTicker(ticker)
+                        .setMaxSize(100)
+                        .setEvictionSamples(16)
+        )) {
+            for (int i = 0; i < 10; i++) {
+                bounded.put("short" + i, i, 10000L);
+            }
+            for (int i = 0; i < 1000; i++) {
+                ticker.advance(1L);
+                bounded.put("long" + i, i, 60000L);
+            }
+            assertTrue(bounded.getSize() <= 100);
+            for (int i = 0; i < 10; i++) {
+                assertTrue(bounded.exist("short" + i));
+            }
+        }
+    }
+
+    @Test
+    public void whenReadHotKeyThenDetectAndInvalidateCopiesOnWrite() {
+        try (TemporaryCache replicated = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setName("replicated").setHotKeyReplicas(true)
+        )) {
+            replicated.put("cold", "value");
+            replicated.put("hot", 999);
+            readUntilReplicated(replicated, "hot");
+            assertTrue(((TemporaryCacheImpl) replicated).isReplicated("hot"));
+            assertFalse(((TemporaryCacheImpl) replicated).isReplicated("cold"));
+            assertEquals("hot", replicated.getStatistics().getHotKeys().get(0));
+            for (int i = 0; i < 100; i++) {
+                assertEquals(999, replicated.get("hot"));
+            }
+            replicated.put("hot", 1000);
+            assertFalse(((TemporaryCacheImpl) replicated).isReplicated("hot"));
+            for (int i = 0; i < 100; i++) {
+                assertEquals(1000, replicated.get("hot"));
+            }
+            replicated.remove("hot");
+            assertNull(replicated.get("hot"));
+        }
+    }
+
+    @Test
+    public void whenReadCopyOfHotKeyThenExtendLifetime() {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCache replicated = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setTicker(ticker).setHotKeyReplicas(true)
+        )) {
+            replicated.putExpireAfterAccess(KEY, OBJECT, 500L);
+            readUntilReplicated(replicated, KEY);
+            for (int i = 0; i < 10; i++) {
+                ticker.advance(300L);
+                assertEquals(OBJECT, replicated.get(KEY));
+            }
+            ticker.advance(600L);
+            assertNull(replicated.get(KEY));
+        }
+    }
+
+    @Test
+    public void whenPutExistingKeyThenResetLifetime() {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCache timed = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setTicker(ticker)
+        )) {
+            timed.put(KEY, OBJECT, TIME);
+            ticker.advance(600L);
+            timed.put(KEY, OBJECT, TIME);
+            ticker.advance(600L);
+            assertNotNull(timed.get(KEY));
+            ticker.advance(600L);
+            assertNull(timed.get(KEY));
+        }
+    }
+
+    @Test
+    public void whenSetExpiryThenComputeLifetimeOnRead() {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCache timed = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setTicker(ticker)
+        )) {
+            timed.setExpiry(
+                    new Expiry() {
+                        @Override
+                        public long expireAfterCreate(Object key, Object object, long milliseconds) {
+                            return milliseconds;
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(Object key, Object object, long milliseconds, long remaining) {
+                            return milliseconds;
+                        }
+
+                        @Override
+                        public long expireAfterRead(Object key, Object object, long lifetime, long remaining) {
+                            return 0;
+                        }
+                    }
+            );
+            timed.put(KEY, OBJECT, 10 * TIME);
+            assertNotNull(timed.get(KEY));
+            ticker.advance(1L);
+            assertNull(timed.get(KEY));
+            assertFalse(timed.exist(KEY));
+        }
+    }
+
+    @Test
+    public void whenRemoveByPrefixWithIndexThenRemoveOnlyMatches() {
+        try (TemporaryCache indexed = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setPrefixIndex(true)
+        )) {
+            assertPrefixOperations(indexed);
+        }
+    }
+
+    @Test
+    public void whenRemoveByPrefixWithoutIndexThenRemoveOnlyMatches() {
+        try (TemporaryCache plain = TemporaryCache.newTemporaryCache(new CacheConfig())) {
+            assertPrefixOperations(plain);
+        }
+    }
+
+    @Test
+    public void whenInvalidateTagThenRemoveOnlyTaggedObjects() {
+        try (TemporaryCache tagged = TemporaryCache.newTemporaryCache(new CacheConfig())) {
+            for (int i = 0; i < 10; i++) {
+                tagged.put(KEY + i, OBJECT, TIME, "order:123");
+            }
+            tagged.put(KEY + 10, OBJECT, TIME, "order:123", "order:124");
+            tagged.put(KEY + 11, OBJECT, TIME, "order:124");
+            tagged.put(KEY + 12, OBJECT);
+            assertEquals(11, tagged.invalidateTag("order:123"));
+            assertNull(tagged.get(KEY + 10));
+            assertNotNull(tagged.get(KEY + 11));
+            assertNotNull(tagged.get(KEY + 12));
+            assertEquals(0, tagged.invalidateTag("order:123"));
+            assertEquals(1, tagged.invalidateTag("order:124"));
+            assertEquals(1, tagged.getSize());
+        }
+    }
+
+    @Test
+    public void whenRemoveOrRePutTaggedObjectThenForgetTag() {
+        try (TemporaryCache tagged = TemporaryCache.newTemporaryCache(new CacheConfig())) {
+            tagged.put(KEY + 1, OBJECT, TIME, "tag");
+            tagged.put(KEY + 2, OBJECT, TIME, "tag");
+            tagged.remove(KEY + 1);
+            tagged.put(KEY + 2, OBJECT);
+            assertEquals(0, tagged.invalidateTag("tag"));
+            assertNotNull(tagged.get(KEY + 2));
+        }
+    }
+
+    @Test
+    public void whenPutNotFoundThenReturnNullAndRememberAbsence() {
+        try (TemporaryCache negative = TemporaryCache.newTemporaryCache(new CacheConfig())) {
+            negative.putNotFound(KEY);
+            assertNull(negative.get(KEY));
+            assertTrue(negative.isNotFound(KEY));
+            assertFalse(negative.exist(KEY));
+            assertEquals(0, negative.getSize());
+            assertTrue(negative.getAll().isEmpty());
+            final CacheStatistics statistics = negative.getStatistics();
+            assertEquals(1, statistics.getNotFoundHitCount());
+            assertEquals(0, statistics.getMissCount());
+            assertEquals(1, statistics.getNotFoundSize());
+            negative.put(KEY, OBJECT);
+            assertFalse(negative.isNotFound(KEY));
+            assertEquals(OBJECT, negative.get(KEY));
+            assertEquals(0, statistics.getNotFoundSize());
+        }
+    }
+
+    @Test
+    public void whenPutNotFoundWithShortLifetimeThenForgetAbsence() {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCache negative = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setTicker(ticker)
+        )) {
+            negative.putNotFound(KEY, 1L);
+            ticker.advance(2L);
+            assertFalse(negative.isNotFound(KEY));
+            assertNull(negative.get(KEY));
+            assertEquals(1, negative.getStatistics().getMissCount());
+        }
+    }
+
+    @Test
+    public void whenPutTooManyNotFoundThenKeepObjects() {
+        final int maxSize = 5;
+        try (TemporaryCache negative = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setNotFoundMaxSize(maxSize)
+        )) {
+            for (int i = 0; i < 10; i++) {
+                negative.put(KEY + i, OBJECT);
+            }
+            for (int i = 0; i < 100; i++) {
+                negative.putNotFound("missing" + i);
+            }
+            assertEquals(maxSize, negative.getStatistics().getNotFoundSize());
+            assertTrue(negative.isNotFound("missing99"));
+            assertFalse(negative.isNotFound("missing0"));
+            assertEquals(10, negative.getSize());
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(negative.get(KEY + i));
+            }
+        }
+    }
+
+    @Test
+    public void whenPutOnceWithDoorkeeperThenDoNotSave() {
+        try (TemporaryCache admitted = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setDoorkeeperWindow(1000)
+        )) {
+            admitted.put(KEY, OBJECT);
+            assertFalse(admitted.exist(KEY));
+            assertNull(admitted.get(KEY));
+            admitted.put(KEY, OBJECT);
+            assertTrue(admitted.exist(KEY));
+            assertEquals(OBJECT, admitted.get(KEY));
+            admitted.put(KEY, KEY);
+            assertEquals(KEY, admitted.get(KEY));
+            assertFalse(admitted.exist("unknown"));
+            assertEquals(1, admitted.getSize());
+        }
+    }
+
+    @Test
+    public void whenLatencyHistogramsEnabledThenRecordOperations() {
+        try (TemporaryCache timed = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setLatencyHistograms(true)
+        )) {
+            timed.put(KEY, OBJECT);
+            timed.get(KEY);
+            timed.get(KEY + 1);
+            timed.remove(KEY);
+            final CacheStatistics statistics = timed.getStatistics();
+            assertEquals(1, statistics.getLatency(CacheOperation.PUT).getCount());
+            assertEquals(1, statistics.getLatency(CacheOperation.GET_HIT).getCount());
+            assertEquals(1, statistics.getLatency(CacheOperation.GET_MISS).getCount());
+            assertEquals(1, statistics.getLatency(CacheOperation.REMOVE).getCount());
+            assertTrue(statistics.getLatencyPercentile(CacheOperation.PUT, 99.9) > 0);
+            statistics.resetLatencies();
+            assertEquals(0, statistics.getLatency(CacheOperation.PUT).getCount());
+            assertNull(cache.getStatistics().getLatency(CacheOperation.PUT));
+        }
+    }
+
+    @Test
+    public void whenPutIfAbsentThenSaveOnlyMissingOrDeadObject() {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCache timed = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setTicker(ticker)
+        )) {
+            assertNull(timed.putIfAbsent(KEY, "first", TIME));
+            ticker.advance(600L);
+            assertEquals("first", timed.putIfAbsent(KEY, "second", TIME));
+            ticker.advance(600L);
+            assertNull(timed.get(KEY));
+            assertNull(timed.putIfAbsent(KEY, "third", TIME));
+            assertEquals("third", timed.get(KEY));
+            timed.putNotFound(KEY + 1);
+            assertNull(timed.putIfAbsent(KEY + 1, "found"));
+            assertFalse(timed.isNotFound(KEY + 1));
+            assertEquals("found", timed.get(KEY + 1));
+        }
+    }
+
+    @Test
+    public void whenReplaceThenRestartLifetime() {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCache timed = TemporaryCache.newTemporaryCache(
+                new CacheConfig().setTicker(ticker)
+        )) {
+            timed.put(KEY, "first", TIME);
+            assertFalse(timed.replace(KEY, "other", "second"));
+            ticker.advance(600L);
+            assertTrue(timed.replace(KEY, "first", "second"));
+            ticker.advance(600L);
+            assertEquals("second", timed.get(KEY));
+            ticker.advance(600L);
+            assertNull(timed.get(KEY));
+            assertFalse(timed.replace(KEY, "second", "third"));
+        }
+    }
+
+    @Test
+    public void whenComputeAndMergeThenSaveOrRemoveObject() {
+        try (TemporaryCache computed = TemporaryCache.newTemporaryCache(new CacheConfig())) {
+            assertEquals(1, computed.compute(KEY, (key, old) -> Validator.isNull(old) ? 1 : (int) old + 1));
+            assertEquals(2, computed.compute(KEY, (key, old) -> Validator.isNull(old) ? 1 : (int) old + 1));
+            assertNull(computed.compute(KEY, (key, old) -> null));
+            assertFalse(computed.exist(KEY));
+            assertEquals(5, computed.merge(KEY, 5, (old, value) -> (int) old + (int) value));
+            assertEquals(8, computed.merge(KEY, 3, (old, value) -> (int) old + (int) value));
+            assertNull(computed.merge(KEY, 3, (old, value) -> null));
+            assertEquals(0, computed.getSize());
+        }
+    }
+
+    @Test
+    public void whenCompareAndSetThenReplaceOnlyUnchangedVersion() {
+        try (TemporaryCache versioned = TemporaryCache.newTemporaryCache(new CacheConfig())) {
+            assertNull(versioned.getVersioned(KEY));
+            versioned.put(KEY, "first");
+            final VersionedObject first = versioned.getVersioned(KEY);
+            assertEquals("first", first.getObject());
+            assertTrue(versioned.compareAndSet(KEY, first.getVersion(), "second"));
+            assertFalse(versioned.compareAndSet(KEY, first.getVersion(), "third"));
+            final VersionedObject second = versioned.getVersioned(KEY);
+            assertNotEquals(first.getVersion(), second.getVersion());
+            versioned.put(KEY, "second");
+            assertFalse(versioned.compareAndSet(KEY, second.getVersion(), "third"));
+            assertEquals("second", versioned.get(KEY));
+        }
+    }
+
+    @Test
+    public void whenUpdateConcurrentlyThenLoseNoWrites() throws Exception {
+        try (TemporaryCache counters = TemporaryCache.newTemporaryCache(new CacheConfig())) {
+            final int threads = 4;
+            final int increments = 10000;
+            final Thread[] workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Thread(
+                        () -> {
+                            for (int j = 0; j < increments; j++) {
+                                counters.merge(KEY, 1, (old, value) -> (int) old + (int) value);
+                                VersionedObject read;
+                                do {
+                                    read = counters.getVersioned(KEY + 1);
+                                } while (Validator.isNull(read) ?
+                                        Validator.isNotNull(counters.putIfAbsent(KEY + 1, 1)) :
+                                        !counters.compareAndSet(
+                                                KEY + 1, read.getVersion(),
+                                                (int) read.getObject() + 1
+                                        ));
+                            }
+                        }
+                );
+                workers[i].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            assertEquals(threads * increments, counters.get(KEY));
+            assertEquals(threads * increments, counters.get(KEY + 1));
+        }
+    }
+
     @Test
     public void whenGetSizeThenReturnCacheSize() {
         assertNotNull(cache.getSize());
     }
+
+    private static void assertPrefixOperations(final TemporaryCache cache) {
+        for (int i = 0; i < 10; i++) {
+            cache.put("tenant42:order:" + i, OBJECT);
+            cache.put("tenant43:order:" + i, OBJECT);
+        }
+        cache.put(42, OBJECT);
+        cache.putNotFound("tenant44:order:1");
+        assertEquals(0, cache.countByPrefix("tenant44:"));
+        assertEquals(0, cache.getAllByPrefix("tenant44:").size());
+        assertEquals(10, cache.countByPrefix("tenant42:"));
+        assertEquals(10, cache.getAllByPrefix("tenant42:").size());
+        assertEquals(10, cache.removeByPrefix("tenant42:"));
+        assertEquals(0, cache.countByPrefix("tenant42:"));
+        assertNull(cache.get("tenant42:order:1"));
+        assertNotNull(cache.get("tenant43:order:1"));
+        assertEquals(11, cache.getSize());
+        cache.clear();
+        assertEquals(0, cache.countByPrefix(""));
+    }
+
+    private static void readUntilReplicated(final TemporaryCache cache, final Object key) {
+        final Object object = cache.get(key);
+        for (int i = 0; (i < 100000) && !((TemporaryCacheImpl) cache).isReplicated(key); i++) {
+            assertEquals(object, cache.get(key));
+        }
+    }
 }
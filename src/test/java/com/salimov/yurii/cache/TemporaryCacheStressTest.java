@@ -0,0 +1,245 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the cache operations from many threads at once
+ * and checks the invariants which must hold after every
+ * interleaving: no lost updates, monotonic reads, no dead reads,
+ * bounded size and consistent indexes.
+ *
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class TemporaryCacheStressTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 20000;
+    private static final int KEYS = 64;
+
+    @Test
+    public void whenWritersOwnKeysThenNoLostUpdates() throws InterruptedException {
+        try (TemporaryCache cache = newCache(new CacheConfig().setMaxSize(1000000))) {
+            final Integer[][] written = new Integer[THREADS][KEYS];
+            run(
+                    thread -> {
+                        final ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < OPERATIONS; i++) {
+                            final int key = random.nextInt(KEYS);
+                            final String name = thread + ":" + key;
+                            if (random.nextInt(10) == 0) {
+                                cache.remove(name);
+                                written[thread][key] = null;
+                            } else {
+                                cache.put(name, i);
+                                written[thread][key] = i;
+                            }
+                            assertEquals(written[thread][key], cache.get(name));
+                        }
+                    }
+            );
+            for (int thread = 0; thread < THREADS; thread++) {
+                for (int key = 0; key < KEYS; key++) {
+                    assertEquals(written[thread][key], cache.get(thread + ":" + key));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void whenReadersReadSharedKeysThenValuesNeverGoBack() throws InterruptedException {
+        try (TemporaryCache cache = newCache(new CacheConfig().setMaxSize(1000000))) {
+            final int writers = THREADS / 2;
+            run(
+                    thread -> {
+                        final ThreadLocalRandom random = ThreadLocalRandom.current();
+                        if (thread < writers) {
+                            for (int i = 0; i < OPERATIONS; i++) {
+                                cache.put(thread + ":" + random.nextInt(KEYS), i);
+                            }
+                        } else {
+                            final int[][] seen = new int[writers][KEYS];
+                            for (int i = 0; i < OPERATIONS; i++) {
+                                final int writer = random.nextInt(writers);
+                                final int key = random.nextInt(KEYS);
+                                final Integer value = (Integer) cache.get(writer + ":" + key);
+                                if (value != null) {
+                                    assertTrue(value >= seen[writer][key]);
+                                    seen[writer][key] = value;
+                                } else {
+                                    assertEquals(0, seen[writer][key]);
+                                }
+                            }
+                        }
+                    }
+            );
+        }
+    }
+
+    @Test
+    public void whenTimeMovesThenDeadObjectsAreNeverRead() throws InterruptedException {
+        final FakeTicker ticker = new FakeTicker();
+        try (TemporaryCacheImpl cache = newCache(
+                new CacheConfig().setMaxSize(1000000).setTicker(ticker)
+        )) {
+            final long lifetime = 5L;
+            final CacheCleaner cleaner = new CacheCleaner(cache, 1000000, ticker);
+            run(
+                    thread -> {
+                        final ThreadLocalRandom random = ThreadLocalRandom.current();
+                        final long[] saved = new long[KEYS];
+                        for (int i = 0; i < OPERATIONS; i++) {
+                            final int key = random.nextInt(KEYS);
+                            final String name = thread + ":" + key;
+                            switch (random.nextInt(4)) {
+                                case 0:
+                                    cache.put(name, i, lifetime);
+                                    saved[key] = ticker.read();
+                                    break;
+                                case 1:
+                                    ticker.advance(1L);
+                                    break;
+                                case 2:
+                                    if (thread == 0) {
+                                        cleaner.run();
+                                    }
+                                    break;
+                                default:
+                                    final long now = ticker.read();
+                                    final Object value = cache.get(name);
+                                    if ((saved[key] == 0) || (now > saved[key] + lifetime)) {
+                                        assertNull(value);
+                                    }
+                            }
+                        }
+                    }
+            );
+        }
+    }
+
+    @Test
+    public void whenCleanerRunsWithWritersThenSizeAndIndexesStayConsistent()
+            throws InterruptedException {
+        final int maxSize = 100;
+        try (TemporaryCacheImpl cache = newCache(
+                new CacheConfig().setMaxSize(maxSize).setPrefixIndex(true)
+        )) {
+            final CacheCleaner cleaner = new CacheCleaner(cache, maxSize);
+            run(
+                    thread -> {
+                        final ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < OPERATIONS; i++) {
+                            final String name = "key:" + random.nextInt(10 * maxSize);
+                            switch (random.nextInt(8)) {
+                                case 0:
+                                    cleaner.run();
+                                    break;
+                                case 1:
+                                    cache.remove(name);
+                                    break;
+                                case 2:
+                                    cache.putNotFound(name);
+                                    break;
+                                case 3:
+                                    if (random.nextInt(100) == 0) {
+                                        cache.clear();
+                                    }
+                                    break;
+                                default:
+                                    cache.put(name, i, 60000L, "tag");
+                            }
+                        }
+                    }
+            );
+            cleaner.run();
+            assertTrue(cache.getSize() <= maxSize);
+            assertConsistent(cache);
+            assertEquals(cache.getSize(), cache.countByPrefix("key:"));
+            assertEquals(cache.getSize(), cache.invalidateTag("tag"));
+            assertEquals(0, cache.getSize());
+        }
+    }
+
+    @Test
+    public void whenRebuildInformationWithWritersThenReadOwnWrites()
+            throws InterruptedException {
+        try (TemporaryCache cache = newCache(new CacheConfig().setMaxSize(1000000))) {
+            run(
+                    thread -> {
+                        final ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < OPERATIONS / 4; i++) {
+                            final String name = thread + ":" + random.nextInt(KEYS);
+                            if (random.nextInt(4) == 0) {
+                                cache.remove(name);
+                                assertFalse(cache.getEntriesToString().containsKey(name));
+                            } else {
+                                cache.put(name, i);
+                                assertTrue(cache.getEntriesToString().containsKey(name));
+                            }
+                        }
+                    }
+            );
+            assertConsistent(cache);
+            final Map<String, String> entries = cache.getEntriesToString();
+            for (Key key : cache.keySet()) {
+                assertTrue(entries.containsKey(key.getValue().toString()));
+            }
+            assertEquals(cache.keySet().size(), entries.size());
+        }
+    }
+
+    private static void assertConsistent(final TemporaryCache cache) {
+        int objects = 0;
+        int notFound = 0;
+        for (Key key : cache.keySet()) {
+            if (key.isNotFound()) {
+                notFound++;
+            } else {
+                objects++;
+            }
+        }
+        assertEquals(notFound, cache.getStatistics().getNotFoundSize());
+        assertEquals(objects, cache.getSize());
+    }
+
+    private static TemporaryCacheImpl newCache(final CacheConfig config) {
+        return (TemporaryCacheImpl) TemporaryCache.newTemporaryCache(config);
+    }
+
+    private static void run(final IntConsumer body) throws InterruptedException {
+        final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            new Thread(
+                    () -> {
+                        try {
+                            start.await();
+                            body.accept(thread);
+                        } catch (Throwable ex) {
+                            errors.add(ex);
+                        } finally {
+                            finish.countDown();
+                        }
+                    }
+            ).start();
+        }
+        start.countDown();
+        assertTrue(finish.await(60, TimeUnit.SECONDS));
+        if (!errors.isEmpty()) {
+            final AssertionError error = new AssertionError(errors.size() + " threads failed");
+            errors.forEach(error::addSuppressed);
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class TickerTest {
+
+    @Test
+    public void whenReadCoarseTickerThenFollowSystemClock() throws InterruptedException {
+        final Ticker ticker = Ticker.coarseTicker();
+        final long first = ticker.read();
+        assertTrue(Math.abs(System.currentTimeMillis() - first) < 1000L);
+        Thread.sleep(50L);
+        assertTrue(ticker.read() > first);
+    }
+
+    @Test
+    public void whenGetCoarseTickerThenReturnSameInstance() {
+        assertSame(Ticker.coarseTicker(), Ticker.coarseTicker());
+    }
+}
@@ -0,0 +1,81 @@
+package com.salimov.yurii.cache;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Yurii Salimov (yuriy.alex.salimov@gmail.com)
+ */
+public class ValueCodecRegistryTest {
+
+    @Test
+    public void whenEncodeBuiltInsThenDecodeSameObjects() {
+        final ValueCodecRegistry registry = new ValueCodecRegistry();
+        final Object[] values = {
+                "Cache \u043a\u0435\u0448 \ud83d\ude00", 42L, 42, (short) 42, (byte) 42,
+                42.5, 42.5F, 'c', true, false
+        };
+        for (Object value : values) {
+            for (ByteBuffer buffer : new ByteBuffer[]{
+                    ByteBuffer.allocate(registry.size(value)),
+                    ByteBuffer.allocateDirect(registry.size(value))
+            }) {
+                registry.encode(value, buffer);
+                assertFalse(buffer.hasRemaining());
+                buffer.flip();
+                assertEquals(value, registry.decode(value.getClass(), buffer));
+            }
+            assertEquals(value, registry.decode(value.getClass(), registry.encode(value)));
+        }
+    }
+
+    @Test
+    public void whenEncodeBytesThenKeepPayloadAsIs() {
+        final ValueCodecRegistry registry = new ValueCodecRegistry();
+        final byte[] payload = {1, 2, 3};
+        assertSame(payload, registry.encode(payload));
+        assertSame(payload, registry.decode(byte[].class, payload));
+        final ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.position(2);
+        registry.encode(ByteBuffer.wrap(payload), buffer);
+        buffer.flip().position(2);
+        final ByteBuffer view = registry.decode(ByteBuffer.class, buffer);
+        assertEquals(ByteBuffer.wrap(payload), view);
+        buffer.put(2, (byte) 9);
+        assertEquals(9, view.get(0));
+    }
+
+    @Test
+    public void whenRegisterCodecThenUseItForClass() {
+        final ValueCodec<UUID> codec = new ValueCodec<UUID>() {
+            @Override
+            public int size(final UUID value) {
+                return 2 * Long.BYTES;
+            }
+
+            @Override
+            public void encode(final UUID value, final ByteBuffer buffer) {
+                buffer.putLong(value.getMostSignificantBits())
+                        .putLong(value.getLeastSignificantBits());
+            }
+
+            @Override
+            public UUID decode(final ByteBuffer buffer) {
+                return new UUID(buffer.getLong(), buffer.getLong());
+            }
+        };
+        final ValueCodecRegistry registry = new ValueCodecRegistry().register(UUID.class, codec);
+        final UUID value = UUID.randomUUID();
+        assertEquals(16, registry.encode(value).length);
+        assertEquals(value, registry.decode(UUID.class, registry.encode(value)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenNoCodecThenThrowException() {
+        new ValueCodecRegistry().encode(new Object());
+    }
+}